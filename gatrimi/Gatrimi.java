@@ -2,12 +2,16 @@ package gatrimi;
 
 import gatrimi.graphics.GraphicGraph;
 import gatrimi.graphics.GraphicPositionedNode;
+import gatrimi.model.ColoringResult;
+import gatrimi.model.ColoringStrategies;
 import gatrimi.model.Graph;
+import gatrimi.model.GraphDelta;
+import gatrimi.model.GraphFile;
+import gatrimi.model.GraphJournal;
+import gatrimi.model.IntGraph;
 import gatrimi.model.ListGraph;
 import gatrimi.model.MatrixGraph;
-import gatrimi.model.NotEnoughColorsException;
 import gatrimi.model.PositionedNode;
-import gatrimi.model.StdPositionedNode;
 import gatrimi.model.StdEdge;
 import gatrimi.model.Edge;
 
@@ -29,10 +33,15 @@ import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -44,6 +53,8 @@ import javax.swing.JPanel;
 import javax.swing.JSeparator;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 public class Gatrimi {
 
@@ -54,12 +65,12 @@ public class Gatrimi {
 	//ATTRIBUTS
 
 	/**
-	 * Le modle de l'application.
+	 * Le modèle de l'application.
 	 */
 	private Graph model;
 
 	/**
-	 * La fentre principale de l'application.
+	 * La fenêtre principale de l'application.
 	 */
 	private JFrame frame;
 
@@ -123,6 +134,11 @@ public class Gatrimi {
 	 */
 	private JMenuItem useMatrixRepresentationMenuItem;
 
+	/**
+	 * Le bouton de menu use journal.
+	 */
+	private JCheckBoxMenuItem useJournalMenuItem;
+
 	/**
 	 * Le bouton de menu exportPNG.
 	 */
@@ -143,6 +159,16 @@ public class Gatrimi {
 	 */
 	private JMenuItem colorizeVertexesMenuItem;
 
+	/**
+	 * Le bouton de menu minimize colors.
+	 */
+	private JMenuItem minimizeColorsMenuItem;
+
+	/**
+	 * Le bouton de menu incremental coloring.
+	 */
+	private JMenuItem colorBudgetMenuItem;
+
 	/**
 	 * Le bouton de menu contents.
 	 */
@@ -154,7 +180,7 @@ public class Gatrimi {
 	private JMenuItem aboutMenuItem;
 
 	/**
-	 * Le text field du nombre de noeuds  ajouter.
+	 * Le text field du nombre de noeuds à ajouter.
 	 */
 	private JTextField nodesNbToAddTextField;
 
@@ -169,22 +195,22 @@ public class Gatrimi {
 	private JButton linkAll;
 
 	/**
-	 * Le bouton permettant de supprimer toutes les artes du graphe.
+	 * Le bouton permettant de supprimer toutes les arêtes du graphe.
 	 */
 	private JButton unlinkAll;
 
 	/**
-	 * Le bouton lanant le coloriage des noeuds.
+	 * Le bouton lançant le coloriage des noeuds.
 	 */
 	private JButton colorizeNodesButton;
 
 	/**
-	 * Le bouton lanant le coloriage des arcs.
+	 * Le bouton lançant le coloriage des arcs.
 	 */
 	private JButton colorizeVertexesButton;
 
 	/**
-	 * Le label dcrivant l'tat du fichier de sauvegarde.
+	 * Le label décrivant l'état du fichier de sauvegarde.
 	 */
 	private JLabel fileStatusJLabel;
 
@@ -194,31 +220,79 @@ public class Gatrimi {
 	private JLabel notificationsLabel;
 
 	/**
-	 * Le composant graphique reprsentant le graphe.
+	 * Le composant graphique représentant le graphe.
 	 */
 	private GraphicGraph graphicGraph;
 
 	/**
-	 * L'observateur du modle mettant  jour la vue de la barre de menu.
+	 * L'observateur du modèle mettant à jour la vue de la barre de menu.
 	 */
 	private Observer menuBarObserver;
 
 	/**
-	 * L'observateur du modle mettant  jour la vue des boutons de
+	 * L'observateur du modèle mettant à jour la vue des boutons de
 	 * l'application.
 	 */
 	private Observer toolBarObserver;
 
 	/**
-	 * L'observateur du modle mettant  jour les informations affiches par
+	 * L'observateur du modèle mettant à jour les informations affichées par
 	 * l'application.
 	 */
 	private Observer stateBarObserver;
 
 	/**
-	 * L'espace (en pixel) entre deux noeuds lors de la gnration alatoire.
+	 * L'observateur du modèle comptant ses changements, pour les brouillons
+	 * du mode journal et les sauvegardes hors de l'EDT.
+	 */
+	private Observer changesObserver;
+
+	/**
+	 * L'espace (en pixel) entre deux noeuds lors de la génération aléatoire.
 	 */
 	private static final int RANDOM_GRAPH_NODE_SPACE = 50;
+
+	/**
+	 * La durée (en millisecondes) de la réduction du nombre de couleurs.
+	 */
+	private static final long MINIMIZE_COLORS_TIME = 5000;
+
+	/**
+	 * Le fil d'exécution des sauvegardes, qui se font une à une, dans
+	 * l'ordre des demandes.
+	 */
+	private final ExecutorService saver = Executors.newSingleThreadExecutor();
+
+	/**
+	 * L'intervalle (en millisecondes) entre deux brouillons du mode journal.
+	 */
+	private static final int DRAFT_DELAY = 30000;
+
+	/**
+	 * Le journal du fichier du modèle, en mode journal. Il n'est utilisé que
+	 * dans le fil des sauvegardes.
+	 */
+	private GraphJournal journal;
+
+	/**
+	 * Le nombre de sauvegardes en cours : les brouillons attendent qu'elles
+	 * soient terminées.
+	 */
+	private int pendingSaves;
+
+	/**
+	 * Le nombre de changements notifiés par les modèles successifs, et sa
+	 * valeur lors du dernier brouillon.
+	 */
+	private int changesNb;
+	private int draftedChangesNb;
+
+	/**
+	 * Le modèle dont une sauvegarde hors de l'EDT a écrit le contenu
+	 * courant : il est à jour sur son fichier, bien que
+	 * model.isSynchronized() soit faux. Il est oublié au changement suivant.
+	 */
+	private Graph writtenModel;
 	
 	
 	// CONSTRUCTEURS
@@ -265,11 +339,14 @@ public class Gatrimi {
 				new JMenuItem("Use list representation");
 		useMatrixRepresentationMenuItem =
 				new JMenuItem("Use matrix representation");
+		useJournalMenuItem = new JCheckBoxMenuItem("Use journal");
 
 		exportPNGMenuItem = new JMenuItem("Export PNG...");
 		randomGraphMenuItem = new JMenuItem("Random graph");
 		colorizeNodesMenuItem = new JMenuItem("Colorize nodes");
 		colorizeVertexesMenuItem = new JMenuItem("Colorize edges");
+		minimizeColorsMenuItem = new JMenuItem("Minimize node colors");
+		colorBudgetMenuItem = new JMenuItem("Incremental coloring...");
 
 		contentsMenuItem = new JMenuItem("Contents");
 		aboutMenuItem = new JMenuItem("About");
@@ -315,6 +392,8 @@ public class Gatrimi {
 				JMenu pref = new JMenu("Preferences"); {
 					pref.add(useListRepresentationMenuItem);
 					pref.add(useMatrixRepresentationMenuItem);
+					pref.add(new JSeparator());
+					pref.add(useJournalMenuItem);
 				}
 
 				menu.add(pref);
@@ -331,6 +410,9 @@ public class Gatrimi {
 				JMenu colorize = new JMenu("Colorize"); {
 					colorize.add(colorizeNodesMenuItem);
 					colorize.add(colorizeVertexesMenuItem);
+					colorize.add(minimizeColorsMenuItem);
+					colorize.add(new JSeparator());
+					colorize.add(colorBudgetMenuItem);
 				}
 				menu.add(colorize);
 			}
@@ -427,9 +509,11 @@ public class Gatrimi {
 				if (arg != null && !(Boolean) arg) { //getState() == State.NOMOD
 					saveAsMenuItem.setEnabled(false);
 					closeMenuItem.setEnabled(false);
+					colorBudgetMenuItem.setEnabled(false);
 				} else {
 					saveAsMenuItem.setEnabled(true);
 					closeMenuItem.setEnabled(true);
+					colorBudgetMenuItem.setEnabled(true);
 				}
 
 				//TODO Options 'Undo' et 'Redo', implanter undo et redo
@@ -444,11 +528,13 @@ public class Gatrimi {
 					unlinkAll.setEnabled(false);
 					colorizeNodesMenuItem.setEnabled(false);
 					colorizeVertexesMenuItem.setEnabled(false);
+					minimizeColorsMenuItem.setEnabled(false);
 					exportPNGMenuItem.setEnabled(false);
 				} else {
 					clearMenuItem.setEnabled(true);
 					linkAll.setEnabled(true);
 					colorizeNodesMenuItem.setEnabled(true);
+					minimizeColorsMenuItem.setEnabled(true);
 					if (model.getVertexesNb() == 0) {
 						unlinkAll.setEnabled(false);
 						colorizeVertexesMenuItem.setEnabled(false);
@@ -489,7 +575,7 @@ public class Gatrimi {
 			}
 		};
 
-		// Gestion de la barre d'tat
+		// Gestion de la barre d'état
 		stateBarObserver = new Observer() {
 			@Override
 			public void update(Observable arg0, Object arg1) {
@@ -506,6 +592,14 @@ public class Gatrimi {
 			}
 		};
 
+		changesObserver = new Observer() {
+			@Override
+			public void update(Observable arg0, Object arg1) {
+				changesNb++;
+				writtenModel = null;
+			}
+		};
+
 		addModelObservers();
 	}
 
@@ -516,7 +610,7 @@ public class Gatrimi {
 			@Override
 			public void windowClosing(WindowEvent e) {
 				if (operationConfirmed()) {
-					System.exit(0);
+					quit();
 				}	
 			}
 		});
@@ -531,7 +625,7 @@ public class Gatrimi {
 						putInteger(nodesNbToAddTextField.getText());
 
 				if (nodeNbToAdd == null) {
-					showError("Le formulaire doit tre "
+					showError("Le formulaire doit être "
 							+ "rempli avec un nombre entier");
 				} else if (nodeNbToAdd <= 0) {
 					showError("On ne peut ajouter " 
@@ -562,15 +656,20 @@ public class Gatrimi {
 		linkAll.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent arg0) {
-				for (PositionedNode n1 : model.getNodes()) {
-					for (PositionedNode n2 : model.getNodes()) {
-						Edge v = new StdEdge(n1, n2);
-						if (!model.getVertexes().contains(v) 
-								&& !n1.equals(n2)) {
-							model.addVertex(v);
+				//Tous les arcs manquants sont ajoutés en un seul lot
+				List<PositionedNode> nodes
+					= new ArrayList<PositionedNode>(model.getNodesView());
+				GraphDelta delta = new GraphDelta();
+				for (int i = 0; i < nodes.size(); i++) {
+					for (int j = i + 1; j < nodes.size(); j++) {
+						PositionedNode n1 = nodes.get(i);
+						PositionedNode n2 = nodes.get(j);
+						if (!model.areAdjacent(n1, n2)) {
+							delta.addVertex(new StdEdge(n1, n2));
 						}
 					}
 				}
+				model.apply(delta);
 				model.notifyObservers();
 			}
 		});
@@ -587,44 +686,80 @@ public class Gatrimi {
 		ActionListener colorizeNodesAction = new ActionListener() {		
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				try {
-					model.colorizeNodes();
-				} catch (NotEnoughColorsException ex) {
-					showError("Le graphe est trop grand pour pouvoir tre "
-							+ "colori avec le nombre de couleurs "
-							+ "dont dispose actuellement l'application");
-					for (PositionedNode n : model.getNodes()) {
-						model.colorizeNode(n, StdPositionedNode.COLOR_DEFAULT);
+				final IntGraph snapshot = model.snapshot();
+				new ColoringWorker() {
+					@Override
+					protected ColoringResult doInBackground() {
+						return ColoringResult.compute(snapshot,
+								ColoringStrategies.DSATUR);
 					}
-				}				
-				model.notifyObservers();
+				}.execute();
 			}
 		};
 		colorizeNodesButton.addActionListener(colorizeNodesAction);
 		colorizeNodesMenuItem.addActionListener(colorizeNodesAction);
 
-		ActionListener colorizeVertexesAction = new ActionListener() {
+		minimizeColorsMenuItem.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				//On part du coloriage courant, s'il est valide
+				final IntGraph snapshot = model.snapshot();
+				final int[] colors = new int[model.getNodesNb()];
+				for (PositionedNode n : model.getNodesView()) {
+					colors[n.getNumber() - 1] = n.getColor();
+				}
+				new ColoringWorker() {
+					@Override
+					protected ColoringResult doInBackground() {
+						return ColoringResult.minimize(snapshot, colors,
+								MINIMIZE_COLORS_TIME);
+					}
+				}.execute();
+			}
+		});
 
+		colorBudgetMenuItem.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
+				String input = JOptionPane.showInputDialog(
+						frame,
+						"Nombre de couleurs du coloriage incrémental "
+								+ "(0 pour le désactiver)",
+						model.getColorBudget());
+				if (input == null) {
+					return;
+				}
 				try {
-					model.colorizeVertexes();
-				} catch (NotEnoughColorsException ex) {
-					showError("Le graphe est trop grand pour pouvoir tre "
-							+ "colori avec le nombre de couleurs "
-							+ "dont dispose actuellement l'application");
+					int budget = Integer.parseInt(input.trim());
+					if (budget >= 0) {
+						model.setColorBudget(budget);
+						model.notifyObservers();
+					} else {
+						showError("La valeur doit être >= 0");
+					}
+				} catch (NumberFormatException ex) {
+					showError("La valeur doit être un entier.");
 				}
+			}
+		});
+
+		ActionListener colorizeVertexesAction = new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				model.colorizeVertexes();
 				model.notifyObservers();
 			}
 		};
 		colorizeVertexesButton.addActionListener(colorizeVertexesAction);
 		colorizeVertexesMenuItem.addActionListener(colorizeVertexesAction);
 
-		// Actions des lments du menu 'File'
+		// Actions des éléments du menu 'File'
 		newMenuItem.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent arg0) {
 				if (operationConfirmed()) {
+					closeJournal();
 					if (getState() != State.NOMOD) {
 						model.deleteObservers();
 					} else {
@@ -672,15 +807,26 @@ public class Gatrimi {
 			@Override
 			public void actionPerformed(ActionEvent e) {
 				if (operationConfirmed()) {
-					model.removeNodes(model.getNodes());
-					try {
-						model.load();
-					} catch (IOException ioe) {
-						showError("Une erreur s'est produite lors du "
-								+ "chargement du fichier");
-					} finally {
-						model.notifyObservers();
-					}
+					//Le modèle est relu tel qu'il a été enregistré, une fois
+					//les sauvegardes en cours terminées
+					final Graph reloaded = model;
+					final File file = model.getFile();
+					runOnSaver(new Callable<Void>() {
+						@Override
+						public Void call() throws IOException {
+							foldJournal();
+							GraphJournal.discardDrafts(file);
+							return null;
+						}
+					}, new Runnable() {
+						@Override
+						public void run() {
+							if (model == reloaded
+									&& file.equals(model.getFile())) {
+								reloadSaved();
+							}
+						}
+					});
 				}
 			}
 		});
@@ -689,12 +835,13 @@ public class Gatrimi {
 			@Override
 			public void actionPerformed(ActionEvent e) {
 				if (operationConfirmed()) {
+					closeJournal();
 					model.removeNodes(model.getNodes());
 					model.notifyObservers();
 					graphicGraph.repaint();
 					frame.remove(graphicGraph);
 					model.setFile(null);
-					//le boolen a false signifie qu'on va enlever le model
+					//le booléen a false signifie qu'on va enlever le model
 					model.notifyObservers(new Boolean(false));
 					model.deleteObservers();
 					model = null;
@@ -707,12 +854,12 @@ public class Gatrimi {
 			@Override
 			public void actionPerformed(ActionEvent e) {
 				if (operationConfirmed()) {
-					System.exit(0);
+					quit();
 				}
 			}
 		});
 
-		// Actions des lment du menu 'Edit'
+		// Actions des élément du menu 'Edit'
 		undoMenuItem.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
@@ -749,6 +896,47 @@ public class Gatrimi {
 			}
 		});
 
+		useJournalMenuItem.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				//Sinon, le journal sera créé par la prochaine sauvegarde
+				if (!useJournalMenuItem.isSelected()) {
+					closeJournal();
+				} else if (getState() == State.MOD_FIL
+						&& isSynchronized()) {
+					openJournal();
+				}
+			}
+		});
+
+		//Les brouillons du mode journal, pour reprendre une session
+		//interrompue
+		new Timer(DRAFT_DELAY, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (!useJournalMenuItem.isSelected() || pendingSaves > 0
+						|| getState() != State.MOD_FIL
+						|| isSynchronized() || changesNb == draftedChangesNb) {
+					return;
+				}
+				draftedChangesNb = changesNb;
+				final File file = model.getFile();
+				final GraphFile.Content content = GraphFile.capture(model);
+				saver.execute(new Runnable() {
+					@Override
+					public void run() {
+						if (journal != null && journal.getFile().equals(file)) {
+							try {
+								journal.draft(content);
+							} catch (IOException ioe) {
+								//Le brouillon suivant contiendra celui-ci
+							}
+						}
+					}
+				});
+			}
+		}).start();
+
 		randomGraphMenuItem.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
@@ -756,13 +944,14 @@ public class Gatrimi {
 					String input = JOptionPane.showInputDialog(
 							frame, 
 							"Entrez le nombre de noeud du graphe", 
-							"Slction", 
+							"Séléction", 
 							JOptionPane.QUESTION_MESSAGE
 							);
 					if (input != null) {
 						try {
 							int nb = Integer.parseInt(input);
 							if (nb > 1) {
+								closeJournal();
 								if (getState() != State.NOMOD) {
 									model.deleteObservers();
 								} else {
@@ -778,10 +967,10 @@ public class Gatrimi {
 								addModelObservers();	
 								frame.add(graphicGraph, BorderLayout.CENTER);
 							} else {
-								showError("La valeur doit tre > 1");
+								showError("La valeur doit être > 1");
 							}
 						} catch (NumberFormatException ex) {
-							showError("La valeur doit tre un entier.");
+							showError("La valeur doit être un entier.");
 						} finally {
 							if (getState() != State.NOMOD) { 
 								model.notifyObservers();
@@ -793,7 +982,7 @@ public class Gatrimi {
 			}
 		});
 
-		// Actions des lments du menu 'Help'
+		// Actions des éléments du menu 'Help'
 		contentsMenuItem.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
@@ -813,7 +1002,7 @@ public class Gatrimi {
 						frame,
 						"Une application pour le dessin et la colorisation "
 						+ "de graphe.\n"
-						+ "Bas sur un sujet de projet par Mme. Selmi.\n\n"
+						+ "Basé sur un sujet de projet par Mme. Selmi.\n\n"
 						+ "Par messieurs Smondack, Louet et Ferry.", 
 						"GaTriMi - version alpha",
 						JOptionPane.INFORMATION_MESSAGE);
@@ -862,15 +1051,15 @@ public class Gatrimi {
 						try {
 							file.createNewFile();
 						} catch (IOException e) {
-							showError("Impossible de crer le fichier"
-									+ "Vrifiez si vous disposez des droits"
-									+ " d'criture pour cet emplacement");
+							showError("Impossible de créer le fichier"
+									+ "Vérifiez si vous disposez des droits"
+									+ " d'écriture pour cet emplacement");
 						}
 					}
 					try {
 						ImageIO.write(bi, "png", file);
 					} catch (IOException e) { 
-						showError("Erreur d'entre / sortie du fichier"
+						showError("Erreur d'entrée / sortie du fichier"
 								+ "\nLe fichier est probablement corrompu");
 					}
 				}
@@ -882,6 +1071,8 @@ public class Gatrimi {
 		model.addObserver(menuBarObserver);
 		model.addObserver(toolBarObserver);
 		model.addObserver(stateBarObserver);
+		model.addObserver(changesObserver);
+		writtenModel = null;
 	}
 
 	private State getState() {
@@ -908,22 +1099,38 @@ public class Gatrimi {
 	/**
 	 * Retourne vrai si le model est null ou si model.isSynchronized() == true.
 	 * Ainsi l'info de synchronisation n'est accessible que lorsqu'il y a un
-	 * modle.
+	 * modèle.
 	 */
 	private boolean noModelOrNoFileOrSynchronized() {
 		return (model == null || model.getFile() == null
-				|| model.isSynchronized());
+				|| isSynchronized());
 	}
 
 	/**
-	 * Observe l'tat du modle et demande confirmation si le modle n'est pas
-	 * synchronis.
+	 * Le modèle est à jour sur son fichier : il est synchronisé, ou une
+	 * sauvegarde hors de l'EDT a écrit son contenu courant.
+	 */
+	private boolean isSynchronized() {
+		return model.isSynchronized() || model == writtenModel;
+	}
+
+	/**
+	 * Note que le contenu courant du modèle est écrit sur son fichier.
+	 */
+	private void markWritten() {
+		writtenModel = model;
+		stateBarObserver.update(null, null);
+	}
+
+	/**
+	 * Observe l'état du modèle et demande confirmation si le modèle n'est pas
+	 * synchronisé.
 	 */
 	private boolean operationConfirmed() {
-		String message = "Des donnes n'ont pas t sauvegardes."
+		String message = "Des données n'ont pas été sauvegardées."
 				+ "Souhaitez-vous continuer sans sauvegarder ?";
 
-		if (getState() == State.MOD_FIL && !model.isSynchronized()) {
+		if (getState() == State.MOD_FIL && !isSynchronized()) {
 			int answer = JOptionPane.showConfirmDialog(null, message,
 					"Attention!", JOptionPane.YES_NO_OPTION); 
 
@@ -942,50 +1149,57 @@ public class Gatrimi {
 	}
 
 	/**
-	 * Ralise une opration de sauvegarde en s'assurant de capturer les
-	 * exceptions. Si aucun fichier n'avait tait choisi pralablement,
-	 * cette action ralise en vriter celle de "Save as".
+	 * Réalise une opération de sauvegarde en s'assurant de capturer les
+	 * exceptions. Si aucun fichier n'avait était choisi préalablement,
+	 * cette action réalise en vériter celle de "Save as".
+	 * L'écriture se fait hors de l'EDT : l'édition peut continuer pendant
+	 * ce temps.
 	 */
 	private void saveWithHandledExceptions() {
-		try {
-			model.save();
-		} catch (IOException ioe) {
-			showError("Une erreur s'est produite lors de la sauvegarde "
-					+ "du fichier\nCelui-ci est probablement corrompu");
-		} finally {
-			model.notifyObservers();
-		}
+		saver.execute(new SaveWorker() {
+			@Override
+			protected void failed() {
+				showError("Une erreur s'est produite lors de la sauvegarde "
+						+ "du fichier\nSon contenu précédent est conservé");
+			}
+		});
 	}
 
 	/**
-	 * Ralise une opration de sauvegarde en demandant pralablement quel
+	 * Réalise une opération de sauvegarde en demandant préalablement quel
 	 * fichier utiliser. Si les choses tournent mal, on remet l'ancien fichier
 	 * en place.
 	 */
 	private void saveAsWithHandledExceptions() {
-		File backsave = model.getFile();
+		final File backsave = model.getFile();
 		JFileChooser filechooser = new JFileChooser();
 		filechooser.setSelectedFile(new File("graph"));
 
 		if (filechooser.showSaveDialog(frame) == JFileChooser.APPROVE_OPTION) {
-			model.setFile(filechooser.getSelectedFile());
-			try {
-				model.save();
-			} catch (IOException ioe) {
-				if (backsave != null) {
-					model.setFile(backsave);
+			final File chosen = filechooser.getSelectedFile();
+			model.setFile(chosen);
+			model.notifyObservers();
+			saver.execute(new SaveWorker() {
+				@Override
+				protected void failed() {
+					//Sauf si le modèle a changé de fichier entre-temps
+					if (backsave != null && saved == model
+							&& chosen.equals(model.getFile())) {
+						model.setFile(backsave);
+						model.notifyObservers();
+					}
 					showError("Une erreur s'est produite lors de la "
 							+ "sauvegarde du fichier");
 				}
-			} finally {
-				model.notifyObservers();
-			}
+			});
 		}
 	}
 
 	/**
-	 * Demande un fichoer  l'utilisateur et s'assure que le model n'est pas
+	 * Demande un fichoer à l'utilisateur et s'assure que le model n'est pas
 	 * null, puis charge le contenu du fichier dans le model.
+	 * Le chargement attend, sans bloquer l'EDT, la fin des sauvegardes en
+	 * cours, qui peuvent concerner ce fichier.
 	 */
 	private void open() {
 		JFileChooser fc = new JFileChooser();
@@ -996,18 +1210,57 @@ public class Gatrimi {
 				useListRepresentation();
 			}
 
-			File oldFile = model.getFile();
-
-			model.setFile(fc.getSelectedFile());
-			//Le boolen sert  dterminer s'il faut replacer le prcdent
-			//fichier et faire un reload en cas d'erreur d'entre sortie.
-			boolean retLoad = loadWithHandledExceptions();
-			if (!retLoad) {
-				if (oldFile != null) {
-					model.setFile(oldFile);
-					reload();
+			final Graph opened = model;
+			final File chosen = fc.getSelectedFile();
+			runOnSaver(new Callable<Void>() {
+				@Override
+				public Void call() throws IOException {
+					foldJournal();
+					return null;
 				}
+			}, new Runnable() {
+				@Override
+				public void run() {
+					if (model == opened) {
+						load(chosen);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Charge le fichier file dans le modèle, en replaçant le précédent
+	 * fichier en cas d'erreur d'entrée sortie.
+	 */
+	private void load(File file) {
+		File oldFile = model.getFile();
+		model.setFile(file);
+		//Le booléen sert à déterminer s'il faut replacer le précédent
+		//fichier et faire un reload en cas d'erreur d'entrée sortie.
+		boolean retLoad = loadWithHandledExceptions();
+		if (!retLoad) {
+			if (oldFile != null) {
+				model.setFile(oldFile);
+				reload();
 			}
+		}
+		model.notifyObservers();
+	}
+
+	/**
+	 * Relit le fichier du modèle tel qu'il a été enregistré, ses brouillons
+	 * ayant été écartés.
+	 */
+	private void reloadSaved() {
+		model.removeNodes(model.getNodes());
+		try {
+			model.load();
+			openJournal();
+		} catch (IOException ioe) {
+			showError("Une erreur s'est produite lors du "
+					+ "chargement du fichier");
+		} finally {
 			model.notifyObservers();
 		}
 	}
@@ -1019,23 +1272,126 @@ public class Gatrimi {
 	}
 
 	/**
-	 * Ralise l'opration de chargement du fichier en s'occupant des
-	 * ventuelles exceptions.
-	 * Renvoie true si tout s'est bien pass, false sinon.
+	 * Réalise l'opération de chargement du fichier en s'occupant des
+	 * éventuelles exceptions.
+	 * Renvoie true si tout s'est bien passé, false sinon.
 	 */
 	private boolean loadWithHandledExceptions() {
 		try {
 			model.load();
 		} catch (IOException e) {
-			showError("Erreur d'entre / sortie dans le fichier");
+			showError("Erreur d'entrée / sortie dans le fichier");
 			return false;
 		}
+		openJournal();
 		model.notifyObservers();
+		if (!model.isSynchronized()) {
+			JOptionPane.showMessageDialog(frame,
+					"Des modifications non enregistrées ont été récupérées",
+					"Journal", JOptionPane.INFORMATION_MESSAGE);
+		}
 		return true;
 	}
 
+	/**
+	 * En mode journal, reprend le journal du fichier du modèle, qui doit
+	 * contenir le modèle, journal compris : après un chargement, ou
+	 * lorsque le modèle est synchronisé.
+	 */
+	private void openJournal() {
+		if (!useJournalMenuItem.isSelected()) {
+			return;
+		}
+		final File file = model.getFile();
+		final GraphFile.Content content = GraphFile.capture(model);
+		runOnSaver(new Callable<Void>() {
+			@Override
+			public Void call() throws IOException {
+				foldJournal();
+				journal = new GraphJournal(file, content);
+				return null;
+			}
+		}, null);
+	}
+
+	/**
+	 * Ferme le journal tenu, en le repliant dans son fichier, une fois les
+	 * sauvegardes en cours terminées.
+	 */
+	private void closeJournal() {
+		runOnSaver(new Callable<Void>() {
+			@Override
+			public Void call() throws IOException {
+				foldJournal();
+				return null;
+			}
+		}, null);
+	}
+
+	/**
+	 * Ferme le journal tenu, dans le fil des sauvegardes.
+	 */
+	private void foldJournal() throws IOException {
+		if (journal != null) {
+			GraphJournal j = journal;
+			journal = null;
+			j.close();
+		}
+	}
+
+	/**
+	 * Exécute task dans le fil des sauvegardes, après celles qui sont en
+	 * cours, sans attendre sa fin : then, s'il n'est pas null, est ensuite
+	 * exécuté dans l'EDT, même si task a échoué. L'erreur éventuelle est
+	 * affichée auparavant.
+	 */
+	private void runOnSaver(final Callable<Void> task, final Runnable then) {
+		saver.execute(new SwingWorker<Void, Void>() {
+			@Override
+			protected Void doInBackground() throws Exception {
+				return task.call();
+			}
+
+			@Override
+			protected void done() {
+				try {
+					get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (ExecutionException e) {
+					showError("Une erreur s'est produite avec le journal du "
+							+ "fichier : " + e.getCause().getMessage());
+				}
+				if (then != null) {
+					then.run();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Quitte l'application une fois les sauvegardes en cours terminées. La
+	 * fenêtre est masquée dès la demande.
+	 */
+	private void quit() {
+		frame.setVisible(false);
+		runOnSaver(new Callable<Void>() {
+			@Override
+			public Void call() throws IOException {
+				foldJournal();
+				return null;
+			}
+		}, new Runnable() {
+			@Override
+			public void run() {
+				System.exit(0);
+			}
+		});
+	}
+
 
 	private void useListRepresentation() {
+		boolean written = model != null && model == writtenModel;
 		if (model != null) {
 			model.deleteObservers();
 			model = new ListGraph(model);
@@ -1048,9 +1404,14 @@ public class Gatrimi {
 		notificationsLabel.setText("Adjency list representation");
 		addModelObservers();
 		model.notifyObservers();
+		//La copie est à jour sur le fichier comme l'original
+		if (written) {
+			markWritten();
+		}
 	}
 
 	private void useMatrixRepresentation() {
+		boolean written = model != null && model == writtenModel;
 		if (model != null) {
 			model.deleteObservers();
 			model = new MatrixGraph(model);
@@ -1063,6 +1424,10 @@ public class Gatrimi {
 		notificationsLabel.setText("Matrix representation");
 		addModelObservers();
 		model.notifyObservers();
+		//La copie est à jour sur le fichier comme l'original
+		if (written) {
+			markWritten();
+		}
 	}
 	
 	private Graph randomGraph(int n) {
@@ -1105,7 +1470,7 @@ public class Gatrimi {
 			PositionedNode n2 = nodes.get(b);
 			if (n1 != n2) {
 				Edge v = new StdEdge(n1, n2);
-				if (!graph.getVertexes().contains(v)) {
+				if (!graph.getVertexesView().contains(v)) {
 					graph.addVertex(v);
 				}
 				i++;
@@ -1120,7 +1485,7 @@ public class Gatrimi {
 	}
 	
 	/**
-	 * Point d'entre de l'application.
+	 * Point d'entrée de l'application.
 	 */
 	public static void main(String[] args) {
 		SwingUtilities.invokeLater(new Runnable() {
@@ -1132,4 +1497,96 @@ public class Gatrimi {
 		});
 	}
 
+	// CLASSES INTERNES
+
+	/**
+	 * Le calcul d'un coloriage des noeuds du modèle hors de l'EDT, sur une
+	 * copie figée. Le coloriage est appliqué à la fin du calcul s'il
+	 * convient encore au modèle (ColoringResult.isValidFor) : il est
+	 * abandonné si le modèle a été remplacé, ou si des noeuds ou des arcs
+	 * ajoutés entre-temps le rendent invalide. Une modification qui le
+	 * laisse valide, comme le retrait d'un arc, ne l'empêche pas.
+	 */
+	private abstract class ColoringWorker
+			extends SwingWorker<ColoringResult, Void> {
+		
+		private final Graph colored = model;
+		
+		@Override
+		protected void done() {
+			ColoringResult res;
+			try {
+				res = get();
+			} catch (InterruptedException e) {
+				return;
+			} catch (ExecutionException e) {
+				showError("Le coloriage a échoué : "
+						+ e.getCause().getMessage());
+				return;
+			}
+			if (colored == model && res.isValidFor(colored.asIntGraph())) {
+				colored.applyColoring(res);
+				colored.notifyObservers();
+			}
+		}
+	}
+
+	/**
+	 * L'enregistrement du modèle hors de l'EDT. La copie du modèle est
+	 * prise à la création du SaveWorker, dans l'EDT ; une fois écrite, le
+	 * modèle est à jour sur son fichier s'il n'a notifié aucun changement
+	 * entre-temps.
+	 */
+	private abstract class SaveWorker extends SwingWorker<Void, Void> {
+
+		protected final Graph saved = model;
+		private final File file = model.getFile();
+		private final int changes = changesNb;
+		private final GraphFile.Content content = GraphFile.capture(model);
+		private final boolean journaled = useJournalMenuItem.isSelected();
+
+		SaveWorker() {
+			pendingSaves++;
+		}
+
+		/**
+		 * En mode journal, seules les différences sont écrites, dans le
+		 * journal du fichier ; celui-ci est créé par une première
+		 * sauvegarde complète.
+		 */
+		@Override
+		protected Void doInBackground() throws IOException {
+			if (!journaled) {
+				content.save(file);
+			} else if (journal != null && journal.getFile().equals(file)) {
+				journal.commit(content);
+			} else {
+				foldJournal();
+				journal = GraphJournal.create(file, content);
+			}
+			return null;
+		}
+
+		@Override
+		protected void done() {
+			pendingSaves--;
+			try {
+				get();
+			} catch (InterruptedException e) {
+				return;
+			} catch (ExecutionException e) {
+				failed();
+				return;
+			}
+			if (saved == model && changes == changesNb
+					&& file.equals(model.getFile())) {
+				markWritten();
+			}
+		}
+
+		/**
+		 * Signale, dans l'EDT, l'échec de l'écriture.
+		 */
+		protected abstract void failed();
+	}
 }
@@ -11,7 +11,7 @@ import javax.swing.JComponent;
 
 public class GraphicEdge extends JComponent {
 	/**
-	 * Le vertex servant de modle.
+	 * Le vertex servant de modèle.
 	 */
 	private Edge model;
 	
@@ -45,11 +45,11 @@ public class GraphicEdge extends JComponent {
 	//METHODES OUTILS
 	
 	/**
-	 * Dessine une ligne reprsentant un arc entre deux noeuds.
+	 * Dessine une ligne représentant un arc entre deux noeuds.
 	 */
 	private void drawVertex(Graphics g) {
 		PositionedNode[] nodes = model.getNodes();
-		g.setColor(model.getColor());
+		g.setColor(Palette.getColor(model.getColor()));
 		int offset = GraphicPositionedNode.DIAMETER / 2;
 		g.drawLine(nodes[0].getX() + offset, nodes[0].getY() + offset,
 				   nodes[1].getX() + offset, nodes[1].getY() + offset);
@@ -26,24 +26,24 @@ public class GraphicGraph extends JComponent {
 	//ATTRIBUTS STATIQUES
 	
 	/**
-	 * L'espace entre deux noeuds lors de la cration de plusieurs noeuds.
+	 * L'espace entre deux noeuds lors de la création de plusieurs noeuds.
 	 */
 	public static final int SPACE_DEFAULT = 10;
 	
 	//ATTRIBUTS
 	
 	/**
-	 * Le graphe servant de modle.
+	 * Le graphe servant de modèle.
 	 */
 	private Graph model;
 	
 	/**
-	 * L'ensemble des GraphicPositionedNode correspondants  ce graphe.
+	 * L'ensemble des GraphicPositionedNode correspondants à ce graphe.
 	 */
 	private Set<GraphicPositionedNode> graphicNodes;
 	
 	/**
-	 * L'ensemble des GraphicVertex correspondants  ce graphe.
+	 * L'ensemble des GraphicVertex correspondants à ce graphe.
 	 */
 	private Set<GraphicEdge> graphicVertexes;
 	
@@ -65,12 +65,12 @@ public class GraphicGraph extends JComponent {
 		//model.notifyObservers();
 	}
 	
-	//REQUTES
+	//REQUÊTES
 	
 	public Dimension idealDrawDimension() {
 		int idealX = -1;
 		int idealY = -1;
-		for (PositionedNode n : model.getNodes()) {
+		for (PositionedNode n : model.getNodesView()) {
 			if (n.getX() > idealX) {
 				idealX = n.getX();
 			}
@@ -85,7 +85,7 @@ public class GraphicGraph extends JComponent {
 	public Dimension minXandMinY() {
 		int minX = (int) idealDrawDimension().getWidth();
 		int minY = (int) idealDrawDimension().getHeight();
-		for (PositionedNode n : model.getNodes()) {
+		for (PositionedNode n : model.getNodesView()) {
 			if (n.getX() < minX) {
 				minX = n.getX();
 			}
@@ -99,12 +99,12 @@ public class GraphicGraph extends JComponent {
 	//COMMANDES
 	
 	public void translate(int deltaX, int deltaY) {
-		for (PositionedNode n : model.getNodes()) {
+		for (PositionedNode n : model.getNodesView()) {
 			if (n.getX() + deltaX < 0 || n.getY() + deltaY < 0) {
 				throw new IllegalArgumentException();
 			}
 		}
-		for (PositionedNode n : model.getNodes()) {
+		for (PositionedNode n : model.getNodesView()) {
 			n.setPosition(n.getX() + deltaX, n.getY() + deltaY);
 		}
 	}
@@ -173,7 +173,7 @@ public class GraphicGraph extends JComponent {
 		/*v.addMouseListener(new MouseAdapter() {
 			@Override
 			public void mouseClicked(MouseEvent e) {
-				System.out.println("Edge cliqu");
+				System.out.println("Edge cliqué");
 			}
 		});*/
 	}
@@ -264,10 +264,10 @@ public class GraphicGraph extends JComponent {
 	 */
 	private void makeNodesSet() {
 		graphicNodes = new HashSet<GraphicPositionedNode>();
-		for (PositionedNode n : model.getNodes()) {
+		for (PositionedNode n : model.getNodesView()) {
 			GraphicPositionedNode gNode = new GraphicPositionedNode(n);
 			graphicNodes.add(gNode);
-			//TODO vrifier que c'est inutile
+			//TODO vérifier que c'est inutile
 			//gNode.setLocation(gNode.getX(), gNode.getY());
 			addMouseBehavior(gNode);
 			this.add(gNode);
@@ -279,7 +279,7 @@ public class GraphicGraph extends JComponent {
 	 */
 	private void makeVertexesSet() {
 		graphicVertexes = new HashSet<GraphicEdge>();
-		for (Edge v : model.getVertexes()) {
+		for (Edge v : model.getVertexesView()) {
 			final GraphicEdge gv = new GraphicEdge(v);
 			graphicVertexes.add(gv);
 			addMouseBehavior(gv);
@@ -23,14 +23,14 @@ public class GraphicPositionedNode extends JComponent {
 	//ATTRIBUTS CONSTANTS
 	
 	/**
-	 * Le diamtre d'un sommet.
+	 * Le diamètre d'un sommet.
 	 */
 	public static final int DIAMETER = 30;
 	
 	//ATTRIBUTS
 	
 	/**
-	 * Le PositionedNode qui sert de modle  ce composant.
+	 * Le PositionedNode qui sert de modèle à ce composant.
 	 */
 	private PositionedNode model;
 	
@@ -69,10 +69,11 @@ public class GraphicPositionedNode extends JComponent {
 	//METHODES OUTILS
 	
 	/**
-	 * Dessine un rond pour le noeud, bien plac sur le Graphics g.
+	 * Dessine un rond pour le noeud, bien placé sur le Graphics g.
 	 */
 	private void drawNode(Graphics g) {
-		g.setColor(model.getColor());
+		Color fill = Palette.getColor(model.getColor());
+		g.setColor(fill);
 		g.fillOval(model.getX(), model.getY(), DIAMETER, DIAMETER);
 		g.setColor(Color.GRAY);
 		g.drawOval(model.getX(), model.getY(), DIAMETER, DIAMETER);
@@ -82,18 +83,13 @@ public class GraphicPositionedNode extends JComponent {
 		FontMetrics fm = g.getFontMetrics();
 		stringX = model.getX() + DIAMETER / 2 - fm.stringWidth(nb) / 2;
 		stringY = model.getY() + DIAMETER / 2 + fm.getAscent() / 2;
-		if (model.getColor() == Color.WHITE
-				|| model.getColor() == Color.YELLOW) {
-			g.setColor(Color.BLACK);
-		} else {
-			g.setColor(Color.WHITE);
-		}
+		g.setColor(Palette.getTextColor(fill));
 		g.drawString(nb, stringX, stringY);
 	}
 	
 	/**
-	 * Ajoute un observateur au model afin de se repeindre automatiquement ds
-	 * que ncessaire.
+	 * Ajoute un observateur au model afin de se repeindre automatiquement dès
+	 * que nécessaire.
 	 */
 	private void createController() {
 		model.addObserver(new Observer() {			
@@ -104,8 +100,8 @@ public class GraphicPositionedNode extends JComponent {
 				if (parent == null) {
 					repaint();
 				} else {
-					//On repeint tout le graphe ventuellement prsent
-					//afin d'viter les traces
+					//On repeint tout le graphe éventuellement présent
+					//afin d'éviter les traces
 					parent.repaint();
 				}
 			}
@@ -131,7 +127,7 @@ public class GraphicPositionedNode extends JComponent {
 		this.addMouseMotionListener(new MouseMotionListener() {
 			@Override
 			public void mouseDragged(MouseEvent e) {		
-				//La souris est draggue, et donc clique. On demande le focus
+				//La souris est dragguée, et donc cliquée. On demande le focus
 				requestFocus();
 				
 				int deltaX = e.getXOnScreen() - screenX;
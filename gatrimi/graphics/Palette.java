@@ -0,0 +1,83 @@
+package gatrimi.graphics;
+
+import gatrimi.model.PositionedNode;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Les couleurs d'affichage des classes de couleur du modèle.
+ * La classe par défaut est dessinée en noir ; les suivantes reçoivent des
+ * teintes espacées du nombre d'or sur le cercle chromatique, ce qui garde
+ * éloignées les teintes de classes voisines quel que soit leur nombre.
+ * La luminosité alterne en outre d'une classe à l'autre.
+ * Les couleurs sont calculées à la demande puis conservées.
+ */
+public final class Palette {
+
+	//ATTRIBUTS
+
+	/**
+	 * L'écart de teinte entre deux classes consécutives, en tours.
+	 */
+	private static final float HUE_STEP = 0.618034f;
+
+	private static final float SATURATION = 0.75f;
+	private static final float[] BRIGHTNESSES = {0.95f, 0.7f};
+
+	/**
+	 * La luminance au-delà de laquelle un texte se lit mieux en noir.
+	 */
+	private static final double LIGHT_LUMINANCE = 0.6;
+
+	/**
+	 * Les couleurs déjà calculées, par classe.
+	 */
+	private static final List<Color> COLORS = new ArrayList<Color>();
+	static {
+		COLORS.add(Color.BLACK);
+	}
+
+	//CONSTRUCTEURS
+
+	private Palette() {
+		// rien
+	}
+
+	//REQUETES
+
+	/**
+	 * Retourne la couleur d'affichage de la classe colorClass.
+	 *
+	 * @pre
+	 * 		colorClass >= PositionedNode.COLOR_DEFAULT
+	 */
+	public static synchronized Color getColor(int colorClass) {
+		if (colorClass < PositionedNode.COLOR_DEFAULT) {
+			throw new IllegalArgumentException();
+		}
+		for (int c = COLORS.size(); c <= colorClass; c++) {
+			float hue = (c - PositionedNode.INDEX_COLOR_INIT) * HUE_STEP;
+			COLORS.add(Color.getHSBColor(hue - (float) Math.floor(hue),
+					SATURATION, BRIGHTNESSES[c % BRIGHTNESSES.length]));
+		}
+		return COLORS.get(colorClass);
+	}
+
+	/**
+	 * Retourne la couleur, noire ou blanche, d'un texte écrit sur la
+	 * couleur c.
+	 *
+	 * @pre
+	 * 		c != null
+	 */
+	public static Color getTextColor(Color c) {
+		if (c == null) {
+			throw new IllegalArgumentException();
+		}
+		double luminance = (0.299 * c.getRed() + 0.587 * c.getGreen()
+				+ 0.114 * c.getBlue()) / 255;
+		return luminance > LIGHT_LUMINANCE ? Color.BLACK : Color.WHITE;
+	}
+}
@@ -1,48 +1,57 @@
 package gatrimi.model;
 
-import java.awt.Color;
-import java.io.BufferedOutputStream;
+import java.awt.Point;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
-import java.util.HashMap;
+import java.util.AbstractSet;
+import java.util.Collection;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Observable;
 import java.util.Set;
 
+/**
+ * Base des graphes dont la sous-classe tient à la fois l'adjacence et la
+ * couleur des arcs, sous la forme d'un numéro de classe. Les Edge rendus
+ * par le graphe sont des objets légers créés à la demande sur cette
+ * adjacence.
+ */
 public abstract class AbstractGraph extends Observable implements Graph {
 
 	//ATTRIBUTS	
-	private Set<Edge> vertexes;
+	private int vertexesNb;
 	private File file;
 	private boolean isSynchronized;
 	
+	/**
+	 * Le nombre de couleurs du coloriage incrémental, 0 s'il est désactivé.
+	 */
+	private int colorBudget;
+	
 	//CONSTRUCTEUR
 	
 	protected AbstractGraph() {
-		vertexes = new HashSet<Edge>();
+		vertexesNb = 0;
 		setChanged();
 	}
 	
+	/**
+	 * La sous-classe doit recopier elle-même les noeuds et les arcs de g.
+	 */
 	protected AbstractGraph(Graph g) {
 		if (g == null) {
 			throw new IllegalArgumentException();
 		}
-		vertexes = new HashSet<Edge>(g.getVertexes());
+		vertexesNb = 0;
 		file = g.getFile();
+		colorBudget = g.getColorBudget();
 		setChanged();
 	}
 	
 	
 	//REQUETES
 	
-	protected Set<Edge> getVertexesSet() {
-		return vertexes;
-	}
-	
 	public File getFile() {
 		return file;
 	}
@@ -51,85 +60,119 @@ public abstract class AbstractGraph extends Observable implements Graph {
 		return isSynchronized;
 	}
 	
+	@Override
+	public int getColorBudget() {
+		return colorBudget;
+	}
+	
 	@Override
 	public Set<Edge> getVertexes() {
-		Set<Edge> res = new HashSet<Edge>();
-		for (Edge v : vertexes) {
-			res.add(v);
+		return new EdgeSet(getVertexesView());
+	}
+
+	@Override
+	public Set<Edge> getVertexesView() {
+		return new EdgesView();
+	}
+	
+	@Override
+	public void forEachNode(Visitor<? super PositionedNode> v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		for (PositionedNode n : getNodesView()) {
+			v.visit(n);
+		}
+	}
+	
+	@Override
+	public void forEachEdge(final Visitor<? super Edge> v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		//Chaque arc est visité depuis celle de ses extrémités de plus petit
+		//identifiant
+		for (final PositionedNode n : getNodesView()) {
+			forEachNeighbor(n, new Visitor<PositionedNode>() {
+				@Override
+				public void visit(PositionedNode n2) {
+					if (n.getId() <= n2.getId()) {
+						v.visit(new StoredEdge(n, n2));
+					}
+				}
+			});
 		}
-		return res;
 	}
 
 	@Override
 	public int getVertexesNb(PositionedNode n) {
-		if (n == null || !getNodes().contains(n)) {
+		if (n == null || !hasNode(n)) {
 			throw new IllegalArgumentException();
 		}
-		
-		int nb = 0;
-		for (Edge v : vertexes) {
-			PositionedNode[] node = v.getNodes();
-			if (node[0].equals(n) || node[1].equals(n)) {
-				nb++;
-			}
-		}
-		return nb;
+		return getAdjacentsNb(n);
 	}
 
 	@Override
 	public int getVertexesNb() {
-		return vertexes.size();
+		return vertexesNb;
 	}
 
 	@Override
-	public Set<Edge> getVertexes(PositionedNode n) {
-		if (n == null || !getNodes().contains(n)) {
+	public Set<Edge> getVertexes(final PositionedNode n) {
+		if (n == null || !hasNode(n)) {
 			throw new IllegalArgumentException();
 		}
 		
-		Set<Edge> res = new HashSet<Edge>();
-		for (Edge v : vertexes) {
-			PositionedNode[] node = v.getNodes();
-			if (node[0].equals(n) || node[1].equals(n)) {
-				res.add(v);
+		final Set<Edge> res = new EdgeSet();
+		forEachNeighbor(n, new Visitor<PositionedNode>() {
+			@Override
+			public void visit(PositionedNode n2) {
+				res.add(new StoredEdge(n, n2));
 			}
-		}
+		});
 		return res;
 	}
 
 	@Override
 	public boolean areAdjacent(Edge v1, Edge v2) {
-		if (v1 == null || v2 == null
-				|| !getVertexes().contains(v1) || !getVertexes().contains(v2)) {
+		PositionedNode[] n1 = endsOf(v1);
+		PositionedNode[] n2 = endsOf(v2);
+		if (!hasVertex(n1) || !hasVertex(n2)) {
 			throw new IllegalArgumentException();
 		}
 		
-		PositionedNode[] n1 = v1.getNodes();
-		PositionedNode[] n2 = v2.getNodes();
 		return n1[0].equals(n2[0]) || n1[0].equals(n2[1])
 				|| n1[1].equals(n2[0]) || n1[1].equals(n2[1]);
 	}
 
 	@Override
 	public Set<Edge> getAdjacents(Edge v) {
-		if (v == null || !getVertexes().contains(v)) {
+		PositionedNode[] nTab = endsOf(v);
+		if (!hasVertex(nTab)) {
 			throw new IllegalArgumentException();
 		}
 		
-		Set<Edge> res = new HashSet<Edge>();
-		for (Edge v2 : vertexes) {
-			if (areAdjacent(v, v2)) {
-				res.add(v2);
-			}
-		}
+		//Les arcs adjacents à v sont exactement ceux incidents à l'une de ses
+		//extrémités (v y compris)
+		Set<Edge> res = getVertexes(nTab[0]);
+		res.addAll(getVertexes(nTab[1]));
 		return res;
 	}
+	
+	@Override
+	public IntGraph snapshot() {
+		return new IntGraphSnapshot(asIntGraph());
+	}
 
 	
 	//COMMANDES
 	
-	protected void setVertexesSet(Set<Edge> s) {
-		vertexes = s;
+	/**
+	 * Fixe le nombre d'arcs, la sous-classe ayant construit d'un bloc ses
+	 * listes ou sa matrice lors d'un chargement.
+	 */
+	protected void setVertexesNb(int nb) {
+		vertexesNb = nb;
 	}
 	
 	protected void setSynchronized(boolean b) {
@@ -141,32 +184,38 @@ public abstract class AbstractGraph extends Observable implements Graph {
 		setChanged();
 	}
 	
+	@Override
+	public void setColorBudget(int budget) {
+		if (budget < 0) {
+			throw new IllegalArgumentException();
+		}
+		colorBudget = budget;
+		if (budget > 0 && !Colorings.fits(asIntGraph(), nodeColors(), budget)) {
+			colorizeNodes();
+		}
+	}
+	
 	@Override
 	public void addVertex(Edge v) {
-		if (v == null || !getNodes().contains(v.getNodes()[0])
-					  || !getNodes().contains(v.getNodes()[1])) {
+		if (v == null || !hasNode(v.getNodes()[0])
+					  || !hasNode(v.getNodes()[1])) {
 			throw new IllegalArgumentException();
 		}
 		
-		vertexes.add(v);
+		store(v);
+		PositionedNode[] nTab = endsOf(v);
+		repairColors(nTab[0], nTab[1]);
+		setSynchronized(false);
 		setChanged();
 	}
 
 	@Override
 	public void removeVertex(Edge v) {
-		if (v == null) {
-			throw new IllegalArgumentException();
-		}
-		boolean isContained = false;
-		for (Edge v2 : vertexes) {
-			if (v2.equals(v)) {
-				isContained = true;
-			}
-		}
-		if (!isContained) {
+		if (!hasVertex(endsOf(v))) {
 			throw new IllegalArgumentException();
 		}
-		vertexes.remove(v);
+		unstore(v);
+		setSynchronized(false);
 		setChanged();
 	}
 
@@ -176,152 +225,120 @@ public abstract class AbstractGraph extends Observable implements Graph {
 			throw new IllegalArgumentException();
 		}
 		for (Edge v : vertexes) {
-			if (!this.vertexes.contains(v)) {
+			if (!hasVertex(endsOf(v))) {
 				throw new IllegalArgumentException();
 			}
 		}
 		
-		this.vertexes.removeAll(vertexes);
+		for (Edge v : vertexes) {
+			unstore(v);
+		}
+		setSynchronized(false);
 		setChanged();
 	}
-
-	/**
-	 * Coloriage des artes en passant par un graphe intermdiaire.
-	 * @throws NotEnoughColorsException
-	 */
+	
 	@Override
-	public void colorizeVertexes() throws NotEnoughColorsException {		 
-		// Table des correspondances
-		Map<Edge, PositionedNode> transposition;
-		
-		// Le graphe intermdiaire
-		Graph convertedGraph;
-		
-		transposition = new HashMap<Edge, PositionedNode>();
-		convertedGraph = new ListGraph();
+	public void apply(GraphDelta delta) {
+		if (delta == null) {
+			throw new IllegalArgumentException();
+		}
 		
-		//Pour chaque artes de this, on cr un nouveau noeud dans
-		//convertedGraph, puis on met  jour la table
-
-		for (Edge v : vertexes) {
-			convertedGraph.addNode();
-			
-			for (PositionedNode n : convertedGraph.getNodes()) {
-				if (n.getNumber() == convertedGraph.getNodesNb()) {
-					transposition.put(v, n);
-				}
+		//Validation du lot entier, avant toute modification
+		Set<Edge> removedVertexes = delta.getRemovedVertexes();
+		Set<PositionedNode> removedNodes = delta.getRemovedNodes();
+		for (Edge v : removedVertexes) {
+			if (!hasVertex(endsOf(v))) {
+				throw new IllegalArgumentException();
 			}
 		}
-		
-		// On cr les artes de convertedGraph
-		for (Edge v : transposition.keySet()) {
-			PositionedNode n1 = transposition.get(v);
-			for (Edge adjV : getAdjacents(v)) {
-				PositionedNode n2 = transposition.get(adjV);
-				convertedGraph.addVertex(new StdEdge(n1, n2));
+		for (PositionedNode n : removedNodes) {
+			if (!hasNode(n)) {
+				throw new IllegalArgumentException();
 			}
 		}
-		
-		// On colorie les noeuds de convertedGraph
-		convertedGraph.colorizeNodes();
-		
-		//Les couleurs des noeuds de convertedGraph correspondent aux couleurs
-		//des artes de this
-
-		for (PositionedNode n : transposition.values()) {
-			for (Edge v : transposition.keySet()) {
-				if (transposition.get(v).equals(n)) {
-					v.setColor(n.getColor());
-				}
+		for (Edge v : delta.getAddedVertexes()) {
+			PositionedNode[] nTab = v.getNodes();
+			if (!hasNode(nTab[0]) || !hasNode(nTab[1])
+					|| removedNodes.contains(nTab[0])
+					|| removedNodes.contains(nTab[1])) {
+				throw new IllegalArgumentException();
 			}
 		}
 		
+		//Application, sans nouvelle validation
+		for (Edge v : removedVertexes) {
+			unstore(v);
+		}
+		for (PositionedNode n : removedNodes) {
+			removeNode(n);
+		}
+		for (Point p : delta.getAddedNodes()) {
+			addNode(p.x, p.y);
+		}
+		for (Edge v : delta.getAddedVertexes()) {
+			store(v);
+		}
+		for (Edge v : delta.getAddedVertexes()) {
+			PositionedNode[] nTab = endsOf(v);
+			repairColors(nTab[0], nTab[1]);
+		}
+		setSynchronized(false);
 		setChanged();
 	}
 
 	/**
-	 * Coloration du graphe selon l'algorithme DSATUR.
-	 * @throws NotEnoughColorsException 
+	 * Coloriage des arêtes selon l'algorithme de Misra et Gries, sur les
+	 * numéros des extrémités de chaque arc.
 	 */
 	@Override
-	public void colorizeNodes() throws NotEnoughColorsException {
-		for (PositionedNode n : getNodes()) {
-			n.setColor(PositionedNode.COLOR_DEFAULT);
-		}
-		//La map associant chaque noeud  son degr (tab[0]) et  son degr
-		//de saturation (tab[1])
-		Map<PositionedNode, Integer[]> degreesMap 
-			= new HashMap<PositionedNode, Integer[]>();
-			
-		//L'ensemble des noeuds restant  colorier
-		Set<PositionedNode> nodesToColorize =
-									new HashSet<PositionedNode>(getNodes());
-		
-		// Initialisation des degrs et degrs de saturations de tout les noeuds
-		getDegrees(degreesMap, getNodes());
-		
-		// 1. Ordonner les sommets par ordre dcroissant de degr.
-		PositionedNode maxDegreeNode = getMaxDegreeNode(degreesMap);
-		if (maxDegreeNode != null) {
-	     	// 2. Colorer un des sommets de degr maximum avec la couleur 1.
-			colorizeNode(maxDegreeNode,
-						PositionedNode.COLORS[PositionedNode.INDEX_COLOR_INIT]);
-			nodesToColorize.remove(maxDegreeNode);
-			
-			
-			while (!nodesToColorize.isEmpty()) {
-		     	// 3. Choisir un sommet non color avec DSAT maximum.
-				maxDegreeNode = getMaxSatDegreeNode(degreesMap);
-				
-		     	// 4. Colorer ce sommet par la plus petite couleur possible
-				Color newColor = null;
-				Set<Color> neighbourColors = getNeighbourColors(maxDegreeNode);
-				for (int i = PositionedNode.INDEX_COLOR_INIT;
-					 i < PositionedNode.COLORS.length; i++) {
-					
-					Color c = PositionedNode.COLORS[i];
-					
-					if (!neighbourColors.contains(c)) {
-						newColor = c;
-						break;
-					}
-				}
-				
-				if (newColor == null) {
-					throw new NotEnoughColorsException();
-				}
-				
-				colorizeNode(maxDegreeNode, newColor);
-				nodesToColorize.remove(maxDegreeNode);
+	public void colorizeVertexes() {
+		final PositionedNode[] nodes = new PositionedNode[2 * vertexesNb];
+		final int[] ends = new int[2 * vertexesNb];
+		forEachEdge(new Visitor<Edge>() {
+			private int i;
+			@Override
+			public void visit(Edge v) {
+				PositionedNode[] nTab = endsOf(v);
+				nodes[i] = nTab[0];
+				nodes[i + 1] = nTab[1];
+				ends[i] = nTab[0].getNumber() - 1;
+				ends[i + 1] = nTab[1].getNumber() - 1;
+				i += 2;
 			}
-	     	// 5. Si tous les sommets sont colors alors stop. Sinon aller en 3.
+		});
+		
+		int[] colors = Colorings.misraGries(getNodesNb(), ends);
+		for (int e = 0; e < colors.length; e++) {
+			setVertexColor(nodes[2 * e], nodes[2 * e + 1], colors[e]);
 		}
+		setSynchronized(false);
 		setChanged();
 	}
+
+	/**
+	 * Coloration du graphe selon l'algorithme DSATUR, sur la vue par
+	 * indices du graphe : l'indice d'un noeud est son numéro moins un.
+	 */
+	@Override
+	public void colorizeNodes() {
+		setNodesColors(ColoringResult.compute(asIntGraph(),
+				ColoringStrategies.DSATUR).colors());
+	}
+	
+	@Override
+	public void applyColoring(ColoringResult res) {
+		if (res == null || !res.isValidFor(asIntGraph())) {
+			throw new IllegalArgumentException();
+		}
+		setNodesColors(res.colors());
+	}
 	
 	@Override
 	public void save() throws IOException {
 		if (file == null) {
 			throw new IllegalArgumentException();
 		}
-		if (!file.exists()) {
-			file.createNewFile();
-		}
-		
-		ObjectOutputStream output;
-		try {
-			output = new ObjectOutputStream(
-						new BufferedOutputStream(
-								new FileOutputStream(file)));
-		} catch (FileNotFoundException e) {
-			throw new InternalError("Fichier non trouv"); //Impossible
-		}
-		
-		try {
-			output.writeObject(new ListGraph(this));
-		} finally {
-			output.close();
-		}
+		GraphFile.capture(this).save(file);
 		isSynchronized = true;
 		setChanged();
 	}
@@ -332,74 +349,322 @@ public abstract class AbstractGraph extends Observable implements Graph {
 	// Outils
 	
 	/**
-	 * Renvoie la map des degrs de saturation.
+	 * Retourne true si le noeud n appartient au graphe, sans copier
+	 * l'ensemble des noeuds.
 	 */
-	private void getDegrees(Map<PositionedNode, Integer[]> dSatMap,
-			Set<PositionedNode> nodes) {
-		
-		for (PositionedNode n : nodes) {
-			Integer[] degrees = new Integer[2];
-			degrees[0] = getVertexesNb(n);
-			if (getNeighbourColors(n).size() > 0) {
-				degrees[1] = getNeighbourColors(n).size();
-				dSatMap.put(n, degrees);
-			} else {
-				degrees[1] = degrees[0];
-				dSatMap.put(n, degrees);
+	protected abstract boolean hasNode(PositionedNode n);
+	
+	/**
+	 * Le nombre de voisins du noeud n, qui appartient au graphe.
+	 */
+	protected abstract int getAdjacentsNb(PositionedNode n);
+	
+	/**
+	 * Retourne la couleur de l'arc (n1, n2), ou -1 si ces deux
+	 * noeuds du graphe ne sont pas adjacents.
+	 */
+	protected abstract int getVertexColor(PositionedNode n1,
+			PositionedNode n2);
+	
+	/**
+	 * Change la couleur de l'arc (n1, n2), qui existe.
+	 */
+	protected abstract void setVertexColor(PositionedNode n1,
+			PositionedNode n2, int color);
+	
+	/**
+	 * Relie les noeuds n1 et n2 du graphe par un arc de couleur color.
+	 * Retourne false, sans rien modifier, s'ils l'étaient déjà.
+	 */
+	protected abstract boolean link(PositionedNode n1, PositionedNode n2,
+			int color);
+	
+	/**
+	 * Retire l'arc (n1, n2). Retourne false s'il n'existait pas.
+	 */
+	protected abstract boolean unlink(PositionedNode n1, PositionedNode n2);
+	
+	/**
+	 * Le noeud d'indice i, c'est-à-dire de numéro i + 1.
+	 */
+	protected abstract PositionedNode nodeAt(int i);
+	
+	/**
+	 * Donne au nouveau noeud n la première couleur si le coloriage
+	 * incrémental est actif. Appelée par les sous-classes à chaque ajout
+	 * de noeud.
+	 */
+	protected void colorNewNode(PositionedNode n) {
+		if (colorBudget > 0) {
+			n.setColor(PositionedNode.INDEX_COLOR_INIT);
+		}
+	}
+	
+	/**
+	 * La capacité initiale d'une table de hachage devant recevoir size
+	 * éléments sans être agrandie.
+	 */
+	protected static int capacityFor(int size) {
+		return (int) (size / 0.75f) + 1;
+	}
+	
+	/**
+	 * Retourne les extrémités de l'arc v. Le tableau interne d'un arc de ce
+	 * graphe est rendu sans copie : il ne doit pas être modifié.
+	 */
+	private static PositionedNode[] endsOf(Edge v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		if (v instanceof AbstractGraph.StoredEdge) {
+			return ((StoredEdge) v).nodes;
+		}
+		return v.getNodes();
+	}
+	
+	/**
+	 * Retourne true si l'arc d'extrémités nTab appartient au graphe.
+	 */
+	private boolean hasVertex(PositionedNode[] nTab) {
+		return hasNode(nTab[0]) && hasNode(nTab[1])
+				&& getVertexColor(nTab[0], nTab[1]) >= 0;
+	}
+	
+	/**
+	 * Ajoute l'arc v, avec sa couleur, s'il n'existait pas déjà.
+	 */
+	private void store(Edge v) {
+		PositionedNode[] nTab = endsOf(v);
+		if (link(nTab[0], nTab[1], v.getColor())) {
+			vertexesNb++;
+		}
+	}
+	
+	/**
+	 * Retire l'arc v s'il existe.
+	 */
+	private void unstore(Edge v) {
+		PositionedNode[] nTab = endsOf(v);
+		if (unlink(nTab[0], nTab[1])) {
+			vertexesNb--;
+		}
+	}
+	
+	/**
+	 * Répare le coloriage incrémental après l'ajout de l'arc (n1, n2), en
+	 * dernier recours en recoloriant tout le graphe.
+	 */
+	private void repairColors(PositionedNode n1, PositionedNode n2) {
+		if (colorBudget == 0) {
+			return;
+		}
+		if (!Colorings.repair(asIntGraph(), nodeColors(), n1.getNumber() - 1,
+				n2.getNumber() - 1, colorBudget)) {
+			colorizeNodes();
+		}
+	}
+	
+	/**
+	 * Les couleurs des noeuds, par indice.
+	 */
+	private Colorings.NodeColors nodeColors() {
+		return new Colorings.NodeColors() {
+			@Override
+			public int getColor(int i) {
+				return nodeAt(i).getColor();
+			}
+			
+			@Override
+			public void setColor(int i, int c) {
+				nodeAt(i).setColor(c);
 			}
+		};
+	}
+	
+	/**
+	 * Donne à chaque noeud la couleur colors[numéro - 1].
+	 */
+	private void setNodesColors(int[] colors) {
+		for (PositionedNode n : getNodesView()) {
+			n.setColor(colors[n.getNumber() - 1]);
 		}
+		setSynchronized(false);
+		setChanged();
 	}
 	
+	//CLASSES INTERNES
+	
 	/**
-	 * Renvoie la liste des couleurs utilises parmi les noeuds adjacents  n.
+	 * Un arc de ce graphe, créé à la demande : il ne retient que ses
+	 * extrémités, sa couleur étant lue et écrite dans le stockage.
 	 */
-	private Set<Color> getNeighbourColors(PositionedNode n) {
-		Set<Color> res = new HashSet<Color>();
+	private class StoredEdge extends Observable implements Edge {
+		private final PositionedNode[] nodes;
 		
-		for (PositionedNode node : getAdjacents(n)) {
-			if (node.getColor() != PositionedNode.COLOR_DEFAULT) {
-				res.add(node.getColor());
+		StoredEdge(PositionedNode n1, PositionedNode n2) {
+			nodes = new PositionedNode[] {n1, n2};
+		}
+		
+		public String toString() {
+			return "[" + nodes[0].toString()
+					+ " - " + nodes[1].toString() + "]";
+		}
+		
+		/**
+		 * Un arc retiré du graphe reprend la couleur par défaut.
+		 */
+		@Override
+		public int getColor() {
+			if (!hasNode(nodes[0]) || !hasNode(nodes[1])) {
+				return COLOR_DEFAULT;
 			}
+			int c = getVertexColor(nodes[0], nodes[1]);
+			return c < 0 ? COLOR_DEFAULT : c;
 		}
 		
-		return res;
+		@Override
+		public PositionedNode[] getNodes() {
+			return new PositionedNode[] {nodes[0], nodes[1]};
+		}
+		
+		@Override
+		public boolean containsNode(PositionedNode n) {
+			return nodes[0].equals(n) || nodes[1].equals(n);
+		}
+		
+		@Override
+		public void setColor(int c) {
+			if (c < COLOR_DEFAULT) {
+				throw new IllegalArgumentException();
+			}
+			if (!hasVertex(nodes)) {
+				throw new IllegalStateException();
+			}
+			setVertexColor(nodes[0], nodes[1], c);
+			setChanged();
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if ((o != null) && (o.getClass() == this.getClass())) {
+				PositionedNode[] n = ((StoredEdge) o).nodes;
+				return (nodes[0].equals(n[0]) && nodes[1].equals(n[1]))
+						|| (nodes[0].equals(n[1]) && nodes[1].equals(n[0]));
+			}
+			return false;
+		}
+		
+		@Override
+		public int hashCode() {
+			return StdEdge.hash(nodes[0].hashCode(), nodes[1].hashCode());
+		}
 	}
 	
 	/**
-	 * Renvoie le sommet de plus degr maximum.
+	 * Une copie d'un ensemble d'arcs de ce graphe. Comme la vue des arcs,
+	 * elle contient tout arc ayant les mêmes extrémités que l'un de ses
+	 * éléments, quelle que soit sa classe.
 	 */
-	private PositionedNode getMaxDegreeNode(
-			Map<PositionedNode, Integer[]> degreesMap) {
-		int maxDegree = 0;
-		PositionedNode maxDegreeNode = null;
-		for (PositionedNode n : degreesMap.keySet()) {
-			if (degreesMap.get(n)[0] >= maxDegree) {
-				maxDegreeNode = n;
+	private class EdgeSet extends HashSet<Edge> {
+		EdgeSet() {
+			super();
+		}
+		
+		EdgeSet(Collection<Edge> c) {
+			super(c);
+		}
+		
+		@Override
+		public boolean contains(Object o) {
+			return super.contains(asStored(o));
+		}
+		
+		@Override
+		public boolean remove(Object o) {
+			return super.remove(asStored(o));
+		}
+		
+		/**
+		 * Remplace un arc d'une autre classe par l'arc de ce graphe de
+		 * mêmes extrémités, seul à pouvoir être égal aux éléments.
+		 */
+		private Object asStored(Object o) {
+			if (!(o instanceof Edge)
+					|| o instanceof AbstractGraph.StoredEdge) {
+				return o;
 			}
+			PositionedNode[] nTab = ((Edge) o).getNodes();
+			return new StoredEdge(nTab[0], nTab[1]);
 		}
-		return maxDegreeNode;
 	}
 	
 	/**
-	 * Renvoie le sommet non color de degr de saturation maximum, en cas de 
-	 * conflit, renvoie celui de degr maximum.
+	 * La vue non modifiable de l'ensemble des arcs. Elle contient tout arc
+	 * reliant deux noeuds adjacents de ce graphe, quelle que soit sa classe.
 	 */
-	private PositionedNode getMaxSatDegreeNode(
-			Map<PositionedNode, Integer[]> degreesMap) {
-		int maxSatDegree = -1; //il peut y avoir 0 pour les neouds sans arcs
-		PositionedNode maxSatDegreeNode = null;
-		for (PositionedNode n : degreesMap.keySet()) {
-			if (n.getColor() == PositionedNode.COLOR_DEFAULT) {
-				if (degreesMap.get(n)[1] > maxSatDegree) {
-					maxSatDegreeNode = n;
-				} else if (degreesMap.get(n)[1] == maxSatDegree) {
-					if (degreesMap.get(n)[0]
-							> degreesMap.get(maxSatDegreeNode)[0]) {
-						maxSatDegreeNode = n;
+	private class EdgesView extends AbstractSet<Edge> {
+		@Override
+		public int size() {
+			return vertexesNb;
+		}
+		
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Edge)) {
+				return false;
+			}
+			PositionedNode[] nTab = endsOf((Edge) o);
+			return hasNode(nTab[0]) && hasNode(nTab[1]) && hasVertex(nTab);
+		}
+		
+		/**
+		 * Parcourt en place l'adjacence de chaque noeud, par la vue par
+		 * indices, chaque arc étant rendu depuis celle de ses extrémités de
+		 * plus petit indice.
+		 */
+		@Override
+		public Iterator<Edge> iterator() {
+			final IntGraph g = asIntGraph();
+			return new Iterator<Edge>() {
+				private int i = -1;
+				private IntIterator neighbours;
+				private Edge next = advance();
+				
+				@Override
+				public boolean hasNext() {
+					return next != null;
+				}
+				
+				@Override
+				public Edge next() {
+					if (next == null) {
+						throw new NoSuchElementException();
 					}
+					Edge res = next;
+					next = advance();
+					return res;
 				}
-			}
+				
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+				
+				private Edge advance() {
+					while (true) {
+						while (neighbours != null && neighbours.hasNext()) {
+							int j = neighbours.next();
+							if (i <= j) {
+								return new StoredEdge(nodeAt(i), nodeAt(j));
+							}
+						}
+						if (++i >= g.getNodesNb()) {
+							return null;
+						}
+						neighbours = g.neighbors(i);
+					}
+				}
+			};
 		}
-		return maxSatDegreeNode;
 	}
 }
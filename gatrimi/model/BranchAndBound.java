@@ -0,0 +1,402 @@
+package gatrimi.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Coloriage exact des noeuds par séparation et évaluation, en suivant
+ * l'ordre de DSATUR : le prochain noeud est le plus saturé, et chacune des
+ * couleurs qu'il peut prendre ouvre un sous-arbre.
+ * La borne supérieure est d'abord celle d'un DSATUR glouton, la borne
+ * inférieure la taille d'une clique trouvée gloutonnement ; les noeuds de
+ * cette clique sont coloriés d'avance, ce qui élimine les permutations de
+ * couleurs. Les premiers niveaux de l'arbre sont développés en autant de
+ * sous-arbres qu'il faut pour occuper les fils de calcul, qui se les
+ * partagent au fil de l'eau et s'échangent la meilleure borne trouvée.
+ * La recherche s'arrête à l'expiration du délai, en gardant le meilleur
+ * coloriage trouvé.
+ */
+final class BranchAndBound {
+
+	//ATTRIBUTS
+
+	/**
+	 * Le nombre de sous-arbres préparés par fil de calcul, afin que les
+	 * fils qui terminent tôt trouvent encore du travail.
+	 */
+	private static final int TASKS_PER_THREAD = 8;
+
+	/**
+	 * Le nombre de noeuds de l'arbre explorés entre deux lectures de
+	 * l'horloge.
+	 */
+	private static final int CLOCK_PERIOD = 1024;
+
+	/**
+	 * Les voisins de chaque noeud, boucles exclues, triés.
+	 */
+	private final int[][] adjacency;
+	private final int nodesNb;
+	private final long deadline;
+
+	/**
+	 * Le nombre de couleurs du coloriage glouton initial, qu'aucun
+	 * coloriage partiel ne dépasse.
+	 */
+	private int maxColors;
+
+	/**
+	 * Le nombre de couleurs du meilleur coloriage trouvé.
+	 */
+	private volatile int upperBound;
+	private int[] best;
+	private int lowerBound;
+
+	/**
+	 * La recherche doit s'arrêter : délai expiré, ou borne inférieure
+	 * atteinte.
+	 */
+	private volatile boolean stopped;
+	private volatile boolean timedOut;
+
+	//CONSTRUCTEURS
+
+	private BranchAndBound(IntGraph g, long timeBudget) {
+		nodesNb = g.getNodesNb();
+		adjacency = new int[nodesNb][];
+		for (int i = 0; i < nodesNb; i++) {
+			int[] row = new int[g.degree(i)];
+			int k = 0;
+			for (IntIterator it = g.neighbors(i); it.hasNext();) {
+				int j = it.next();
+				if (j != i) {
+					row[k++] = j;
+				}
+			}
+			row = Arrays.copyOf(row, k);
+			Arrays.sort(row);
+			adjacency[i] = row;
+		}
+		deadline = System.nanoTime() + timeBudget * 1000000L;
+	}
+
+	//OUTILS
+
+	/**
+	 * Colorie les noeuds de g avec le moins de couleurs possible, en au
+	 * plus timeBudget millisecondes, sur threads fils de calcul.
+	 * Les couleurs du résultat commencent à
+	 * PositionedNode.INDEX_COLOR_INIT.
+	 */
+	static ExactColoring solve(IntGraph g, long timeBudget, int threads) {
+		if (g == null || timeBudget < 0 || threads <= 0) {
+			throw new IllegalArgumentException();
+		}
+		long start = System.nanoTime();
+		BranchAndBound bb = new BranchAndBound(g, timeBudget);
+		bb.run(threads);
+		int[] colors = bb.best.clone();
+		for (int i = 0; i < colors.length; i++) {
+			colors[i] += PositionedNode.INDEX_COLOR_INIT;
+		}
+		int lower = bb.timedOut ? bb.lowerBound : bb.upperBound;
+		return new ExactColoring(colors,
+				(System.nanoTime() - start) / 1000000L, lower, bb.upperBound);
+	}
+
+	private void run(int threads) {
+		//Borne supérieure gloutonne
+		int maxDegree = 0;
+		for (int[] row : adjacency) {
+			maxDegree = Math.max(maxDegree, row.length);
+		}
+		State greedy = new State(maxDegree + 1);
+		while (greedy.coloredNb < nodesNb) {
+			int v = greedy.select();
+			int c = 0;
+			while (greedy.counts[v][c] > 0) {
+				c++;
+			}
+			greedy.assign(v, c);
+		}
+		best = greedy.colors.clone();
+		upperBound = greedy.colorsNb;
+		maxColors = upperBound;
+
+		int[] clique = clique();
+		lowerBound = clique.length;
+		if (lowerBound >= upperBound) {
+			return;
+		}
+
+		//Les noeuds de la clique reçoivent d'office des couleurs distinctes
+		int[] root = new int[2 * clique.length];
+		for (int k = 0; k < clique.length; k++) {
+			root[2 * k] = clique[k];
+			root[2 * k + 1] = k;
+		}
+		List<int[]> prefixes = expand(root, threads * TASKS_PER_THREAD);
+
+		if (threads == 1 || prefixes.size() <= 1) {
+			for (int[] prefix : prefixes) {
+				explore(prefix);
+			}
+			return;
+		}
+		List<Callable<Void>> tasks =
+				new ArrayList<Callable<Void>>(prefixes.size());
+		for (final int[] prefix : prefixes) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					explore(prefix);
+					return null;
+				}
+			});
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			for (Future<Void> f : pool.invokeAll(tasks)) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Développe en largeur l'arbre de recherche à partir du préfixe root,
+	 * jusqu'à obtenir au moins count sous-arbres ou ne plus pouvoir
+	 * descendre. Un préfixe est une suite de paires (noeud, couleur).
+	 */
+	private List<int[]> expand(int[] root, int count) {
+		List<int[]> level = new ArrayList<int[]>();
+		level.add(root);
+		while (level.size() < count && !stopped) {
+			List<int[]> next = new ArrayList<int[]>();
+			boolean deeper = false;
+			for (int[] prefix : level) {
+				State s = new State(maxColors);
+				s.replay(prefix);
+				if (s.coloredNb == nodesNb) {
+					record(s);
+					continue;
+				}
+				int v = s.select();
+				for (int c = 0; c < s.colorsLimit(); c++) {
+					if (s.counts[v][c] == 0) {
+						int[] child = Arrays.copyOf(prefix, prefix.length + 2);
+						child[prefix.length] = v;
+						child[prefix.length + 1] = c;
+						next.add(child);
+						deeper = true;
+					}
+				}
+			}
+			level = next;
+			if (!deeper) {
+				break;
+			}
+		}
+		return level;
+	}
+
+	/**
+	 * Explore le sous-arbre issu du préfixe prefix.
+	 */
+	private void explore(int[] prefix) {
+		if (stopped) {
+			return;
+		}
+		State s = new State(maxColors);
+		s.replay(prefix);
+		if (s.colorsNb < upperBound) {
+			s.explore();
+		}
+	}
+
+	/**
+	 * Retient le coloriage complet de s s'il améliore la borne supérieure.
+	 */
+	private synchronized void record(State s) {
+		if (s.colorsNb < upperBound) {
+			best = s.colors.clone();
+			upperBound = s.colorsNb;
+			if (upperBound <= lowerBound) {
+				stopped = true;
+			}
+		}
+	}
+
+	/**
+	 * Retourne une clique construite gloutonnement : depuis chacun des
+	 * noeuds, on ajoute le candidat de plus grand degré parmi les voisins
+	 * communs, et on garde la plus grande clique obtenue.
+	 */
+	private int[] clique() {
+		int[] largest = new int[0];
+		int[] candidates = new int[nodesNb];
+		int[] clique = new int[nodesNb];
+		for (int v = 0; v < nodesNb; v++) {
+			if (adjacency[v].length < largest.length) {
+				continue;
+			}
+			int size = 0;
+			clique[size++] = v;
+			int candidatesNb = adjacency[v].length;
+			System.arraycopy(adjacency[v], 0, candidates, 0, candidatesNb);
+			while (candidatesNb > 0
+					&& size + candidatesNb > largest.length) {
+				int u = candidates[0];
+				for (int k = 1; k < candidatesNb; k++) {
+					if (adjacency[candidates[k]].length > adjacency[u].length) {
+						u = candidates[k];
+					}
+				}
+				clique[size++] = u;
+				int kept = 0;
+				for (int k = 0; k < candidatesNb; k++) {
+					if (Arrays.binarySearch(adjacency[u], candidates[k]) >= 0) {
+						candidates[kept++] = candidates[k];
+					}
+				}
+				candidatesNb = kept;
+			}
+			if (size > largest.length) {
+				largest = Arrays.copyOf(clique, size);
+			}
+		}
+		return largest;
+	}
+
+	//CLASSES INTERNES
+
+	/**
+	 * Un coloriage partiel, propre à un fil de calcul.
+	 */
+	private final class State {
+
+		/**
+		 * La couleur de chaque noeud, à partir de 0, ou -1.
+		 */
+		final int[] colors;
+
+		/**
+		 * counts[v][c] : le nombre de voisins de v de couleur c.
+		 */
+		final int[][] counts;
+
+		/**
+		 * Le nombre de couleurs distinctes autour de chaque noeud.
+		 */
+		final int[] saturations;
+		int coloredNb;
+
+		/**
+		 * Le nombre de couleurs utilisées.
+		 */
+		int colorsNb;
+		private int steps;
+
+		/**
+		 * Un coloriage vide, qui n'utilisera pas plus de maxColors
+		 * couleurs.
+		 */
+		State(int maxColors) {
+			colors = new int[nodesNb];
+			Arrays.fill(colors, -1);
+			counts = new int[nodesNb][maxColors];
+			saturations = new int[nodesNb];
+		}
+
+		/**
+		 * Le noeud non colorié de plus grande saturation, puis de plus grand
+		 * degré.
+		 */
+		int select() {
+			int selected = -1;
+			for (int v = 0; v < nodesNb; v++) {
+				if (colors[v] < 0 && (selected < 0
+						|| saturations[v] > saturations[selected]
+						|| (saturations[v] == saturations[selected]
+							&& adjacency[v].length
+								> adjacency[selected].length))) {
+					selected = v;
+				}
+			}
+			return selected;
+		}
+
+		/**
+		 * Les couleurs 0 .. colorsLimit() - 1 peuvent encore améliorer la
+		 * borne supérieure : une couleur nouvelle n'est permise que si elle
+		 * reste en deçà.
+		 */
+		int colorsLimit() {
+			return Math.min(colorsNb + 1, upperBound - 1);
+		}
+
+		void assign(int v, int c) {
+			colors[v] = c;
+			coloredNb++;
+			colorsNb = Math.max(colorsNb, c + 1);
+			for (int u : adjacency[v]) {
+				if (counts[u][c]++ == 0) {
+					saturations[u]++;
+				}
+			}
+		}
+
+		void unassign(int v, int c, int previousColorsNb) {
+			colors[v] = -1;
+			coloredNb--;
+			colorsNb = previousColorsNb;
+			for (int u : adjacency[v]) {
+				if (--counts[u][c] == 0) {
+					saturations[u]--;
+				}
+			}
+		}
+
+		void replay(int[] prefix) {
+			for (int k = 0; k < prefix.length; k += 2) {
+				assign(prefix[k], prefix[k + 1]);
+			}
+		}
+
+		void explore() {
+			if (stopped) {
+				return;
+			}
+			if (++steps % CLOCK_PERIOD == 0 && System.nanoTime() > deadline) {
+				timedOut = true;
+				stopped = true;
+				return;
+			}
+			if (coloredNb == nodesNb) {
+				record(this);
+				return;
+			}
+			int v = select();
+			for (int c = 0; c < colorsLimit() && !stopped; c++) {
+				if (counts[v][c] == 0) {
+					int previous = colorsNb;
+					assign(v, c);
+					explore();
+					unassign(v, c, previous);
+				}
+			}
+		}
+	}
+}
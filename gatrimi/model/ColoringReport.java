@@ -0,0 +1,406 @@
+package gatrimi.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Le bilan d'un coloriage des noeuds ou des arcs d'un graphe : les conflits
+ * (éléments adjacents de même couleur), la taille de chaque classe de
+ * couleur, le nombre de couleurs utilisées et la borne Delta + 1 (degré
+ * maximal plus un) que garantissent un coloriage glouton des noeuds et
+ * celui de Misra et Gries pour les arcs.
+ * La vérification se fait en parallèle sur tous les processeurs
+ * disponibles, par tranches de noeuds : chacune ne parcourt que les arcs
+ * incidents à ses noeuds, sans copie ni table de hachage.
+ * Les éléments non coloriés (couleur par défaut) ne sont pas comptés en
+ * conflit, mais rendent le coloriage invalide.
+ *
+ * @inv
+ * 		getConflicts().size() == min(getConflictsNb(), MAX_CONFLICTS)
+ * 		getColorsNb() == nombre de c >= INDEX_COLOR_INIT tels que
+ * 			getClassSize(c) > 0
+ * 		getBound() == getMaxDegree() + 1
+ * 		isValid() <==> getConflictsNb() == 0 && getUncoloredNb() == 0
+ */
+public final class ColoringReport {
+
+	//ATTRIBUTS
+
+	/**
+	 * Le nombre maximal de conflits décrits : au-delà, ils sont seulement
+	 * comptés.
+	 */
+	public static final int MAX_CONFLICTS = 1000;
+
+	/**
+	 * Les conflits décrits, par indices de noeuds (numéro - 1) : {i, j} pour
+	 * un arc i - j dont les extrémités ont la même couleur, {i, j, k} pour
+	 * deux arcs i - j et i - k de même couleur.
+	 */
+	private final List<int[]> conflicts;
+	private final long conflictsNb;
+
+	/**
+	 * Le nombre d'éléments de chaque couleur, la case
+	 * PositionedNode.COLOR_DEFAULT comptant les éléments non coloriés.
+	 */
+	private final int[] classSizes;
+	private final int colorsNb;
+	private final int maxDegree;
+
+	//CONSTRUCTEURS
+
+	private ColoringReport(Tally t) {
+		conflicts = Collections.unmodifiableList(t.conflicts);
+		conflictsNb = t.conflictsNb;
+		classSizes = t.classSizes;
+		maxDegree = t.maxDegree;
+		int nb = 0;
+		for (int c = PositionedNode.INDEX_COLOR_INIT; c < classSizes.length;
+				c++) {
+			if (classSizes[c] > 0) {
+				nb++;
+			}
+		}
+		colorsNb = nb;
+	}
+
+	//REQUETES
+
+	/**
+	 * Vérifie le coloriage courant des noeuds de g.
+	 *
+	 * @pre
+	 * 		g != null
+	 */
+	public static ColoringReport ofNodes(Graph g) {
+		if (g == null) {
+			throw new IllegalArgumentException();
+		}
+		final int[] colors = new int[g.getNodesNb()];
+		g.forEachNode(new Visitor<PositionedNode>() {
+			@Override
+			public void visit(PositionedNode n) {
+				colors[n.getNumber() - 1] = n.getColor();
+			}
+		});
+		return ofNodes(g.asIntGraph(), colors);
+	}
+
+	/**
+	 * Vérifie le coloriage colors des noeuds de g, par indice de noeud.
+	 *
+	 * @pre
+	 * 		g != null
+	 * 		colors != null && colors.length == g.getNodesNb()
+	 * 		forall c in colors : c >= PositionedNode.COLOR_DEFAULT
+	 */
+	public static ColoringReport ofNodes(final IntGraph g,
+			final int[] colors) {
+		if (g == null || colors == null
+				|| colors.length != g.getNodesNb()) {
+			throw new IllegalArgumentException();
+		}
+		final int maxColor = maxColor(colors);
+		final Tally total = new Tally(maxColor);
+		run(colors.length, new Colorings.Chunk() {
+			@Override
+			public void run(int from, int to) {
+				Tally t = new Tally(maxColor);
+				for (int i = from; i < to; i++) {
+					int c = colors[i];
+					t.classSizes[c]++;
+					int degree = 0;
+					for (IntIterator it = g.neighbors(i); it.hasNext();) {
+						int j = it.next();
+						if (j == i) {
+							continue;
+						}
+						degree++;
+						if (j > i && c != PositionedNode.COLOR_DEFAULT
+								&& colors[j] == c) {
+							t.conflict(new int[] {i, j}, 1);
+						}
+					}
+					t.maxDegree = Math.max(t.maxDegree, degree);
+				}
+				total.add(t);
+			}
+		});
+		return new ColoringReport(total);
+	}
+
+	/**
+	 * Vérifie le coloriage courant des arcs de g.
+	 * Les arcs sont d'abord relevés, dans l'ordre, par forEachEdge.
+	 *
+	 * @pre
+	 * 		g != null
+	 */
+	public static ColoringReport ofEdges(Graph g) {
+		if (g == null) {
+			throw new IllegalArgumentException();
+		}
+		final int[] ends = new int[2 * g.getVertexesNb()];
+		final int[] colors = new int[g.getVertexesNb()];
+		g.forEachEdge(new Visitor<Edge>() {
+			private int e;
+			@Override
+			public void visit(Edge v) {
+				PositionedNode[] nTab = v.getNodes();
+				ends[2 * e] = nTab[0].getNumber() - 1;
+				ends[2 * e + 1] = nTab[1].getNumber() - 1;
+				colors[e] = v.getColor();
+				e++;
+			}
+		});
+		return ofEdges(g.getNodesNb(), ends, colors);
+	}
+
+	/**
+	 * Vérifie le coloriage colors des arcs d'un graphe à nodesNb noeuds :
+	 * l'arc e relie les noeuds d'indices ends[2 * e] et ends[2 * e + 1].
+	 *
+	 * @pre
+	 * 		nodesNb >= 0
+	 * 		ends != null && colors != null
+	 * 		ends.length == 2 * colors.length
+	 * 		forall i in ends : 0 <= i < nodesNb
+	 * 		forall c in colors : c >= Edge.COLOR_DEFAULT
+	 */
+	public static ColoringReport ofEdges(int nodesNb, final int[] ends,
+			final int[] colors) {
+		if (nodesNb < 0 || ends == null || colors == null
+				|| ends.length != 2 * colors.length) {
+			throw new IllegalArgumentException();
+		}
+		//Les arcs incidents à chaque noeud, une boucle ne l'étant qu'une fois
+		final int[] offsets = new int[nodesNb + 1];
+		for (int e = 0; e < colors.length; e++) {
+			int u = ends[2 * e];
+			int v = ends[2 * e + 1];
+			if (u < 0 || u >= nodesNb || v < 0 || v >= nodesNb) {
+				throw new IllegalArgumentException();
+			}
+			offsets[u + 1]++;
+			if (v != u) {
+				offsets[v + 1]++;
+			}
+		}
+		for (int i = 0; i < nodesNb; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		final int[] incident = new int[offsets[nodesNb]];
+		int[] next = offsets.clone();
+		for (int e = 0; e < colors.length; e++) {
+			incident[next[ends[2 * e]]++] = e;
+			if (ends[2 * e + 1] != ends[2 * e]) {
+				incident[next[ends[2 * e + 1]]++] = e;
+			}
+		}
+
+		final int maxColor = maxColor(colors);
+		final Tally total = new Tally(maxColor);
+		run(nodesNb, new Colorings.Chunk() {
+			@Override
+			public void run(int from, int to) {
+				Tally t = new Tally(maxColor);
+				//seenAt[c] : le dernier noeud où la couleur c a été vue,
+				//seenOn[c] : sur quel arc d'abord, seenNb[c] : combien de fois
+				int[] seenAt = new int[maxColor + 1];
+				int[] seenOn = new int[maxColor + 1];
+				int[] seenNb = new int[maxColor + 1];
+				Arrays.fill(seenAt, -1);
+				for (int v = from; v < to; v++) {
+					for (int p = offsets[v]; p < offsets[v + 1]; p++) {
+						int e = incident[p];
+						int c = colors[e];
+						if (ends[2 * e] == v) {
+							t.classSizes[c]++;
+						}
+						if (c == Edge.COLOR_DEFAULT) {
+							continue;
+						}
+						if (seenAt[c] == v) {
+							//e est en conflit avec chacun des arcs déjà vus
+							t.conflict(new int[] {v, other(ends, seenOn[c], v),
+									other(ends, e, v)}, seenNb[c]++);
+						} else {
+							seenAt[c] = v;
+							seenOn[c] = e;
+							seenNb[c] = 1;
+						}
+					}
+					t.maxDegree = Math.max(t.maxDegree,
+							offsets[v + 1] - offsets[v]);
+				}
+				total.add(t);
+			}
+		});
+		return new ColoringReport(total);
+	}
+
+	/**
+	 * Retourne le nombre de paires d'éléments adjacents de même couleur.
+	 */
+	public long getConflictsNb() {
+		return conflictsNb;
+	}
+
+	/**
+	 * Retourne au plus MAX_CONFLICTS conflits, par indices de noeuds :
+	 * {i, j} pour un arc i - j dont les extrémités ont la même couleur,
+	 * {i, j, k} pour deux arcs i - j et i - k de même couleur.
+	 */
+	public List<int[]> getConflicts() {
+		return conflicts;
+	}
+
+	/**
+	 * Retourne le nombre d'éléments de la couleur c.
+	 *
+	 * @pre
+	 * 		c >= PositionedNode.COLOR_DEFAULT
+	 */
+	public int getClassSize(int c) {
+		if (c < PositionedNode.COLOR_DEFAULT) {
+			throw new IllegalArgumentException();
+		}
+		return c < classSizes.length ? classSizes[c] : 0;
+	}
+
+	/**
+	 * Retourne le nombre d'éléments de chaque couleur, jusqu'à la plus
+	 * grande couleur utilisée.
+	 */
+	public int[] getClassSizes() {
+		return classSizes.clone();
+	}
+
+	/**
+	 * Retourne le nombre d'éléments non coloriés.
+	 */
+	public int getUncoloredNb() {
+		return classSizes[PositionedNode.COLOR_DEFAULT];
+	}
+
+	/**
+	 * Retourne le nombre de couleurs utilisées.
+	 */
+	public int getColorsNb() {
+		return colorsNb;
+	}
+
+	/**
+	 * Retourne le degré maximal des noeuds, boucles exclues pour le
+	 * coloriage des noeuds.
+	 */
+	public int getMaxDegree() {
+		return maxDegree;
+	}
+
+	/**
+	 * Retourne Delta + 1, le nombre de couleurs qu'un bon coloriage ne
+	 * dépasse pas.
+	 */
+	public int getBound() {
+		return maxDegree + 1;
+	}
+
+	/**
+	 * Tous les éléments sont coloriés, et aucun conflit n'a été trouvé.
+	 */
+	public boolean isValid() {
+		return conflictsNb == 0 && getUncoloredNb() == 0;
+	}
+
+	/**
+	 * Le coloriage n'utilise pas plus de Delta + 1 couleurs.
+	 */
+	public boolean isWithinBound() {
+		return colorsNb <= getBound();
+	}
+
+	public String toString() {
+		return (isValid() ? "valide" : "invalide") + " : " + colorsNb
+				+ " couleurs (Delta + 1 = " + getBound() + "), "
+				+ conflictsNb + " conflits, "
+				+ getUncoloredNb() + " non coloriés";
+	}
+
+	//OUTILS
+
+	private static int maxColor(int[] colors) {
+		int max = PositionedNode.COLOR_DEFAULT;
+		for (int c : colors) {
+			if (c < PositionedNode.COLOR_DEFAULT) {
+				throw new IllegalArgumentException();
+			}
+			max = Math.max(max, c);
+		}
+		return max;
+	}
+
+	/**
+	 * L'extrémité de l'arc e autre que v.
+	 */
+	private static int other(int[] ends, int e, int v) {
+		return ends[2 * e] == v ? ends[2 * e + 1] : ends[2 * e];
+	}
+
+	/**
+	 * Traite les positions [0, size[ par tranches, en parallèle sur tous
+	 * les processeurs disponibles.
+	 */
+	private static void run(int size, Colorings.Chunk chunk) {
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			Colorings.runChunks(pool, threads, size, chunk);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	//CLASSES INTERNES
+
+	/**
+	 * Les comptes d'une tranche, puis leur somme.
+	 */
+	private static final class Tally {
+		final List<int[]> conflicts = new ArrayList<int[]>();
+		long conflictsNb;
+		final int[] classSizes;
+		int maxDegree;
+
+		Tally(int maxColor) {
+			classSizes = new int[maxColor + 1];
+		}
+
+		/**
+		 * Compte count conflits, dont c décrit le premier.
+		 */
+		void conflict(int[] c, int count) {
+			if (conflicts.size() < MAX_CONFLICTS) {
+				conflicts.add(c);
+			}
+			conflictsNb += count;
+		}
+
+		synchronized void add(Tally t) {
+			for (int k = 0; k < t.conflicts.size()
+					&& conflicts.size() < MAX_CONFLICTS; k++) {
+				conflicts.add(t.conflicts.get(k));
+			}
+			conflictsNb += t.conflictsNb;
+			for (int c = 0; c < classSizes.length; c++) {
+				classSizes[c] += t.classSizes[c];
+			}
+			maxDegree = Math.max(maxDegree, t.maxDegree);
+		}
+	}
+}
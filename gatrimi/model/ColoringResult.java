@@ -0,0 +1,164 @@
+package gatrimi.model;
+
+import java.util.BitSet;
+
+/**
+ * Un coloriage des noeuds calculé hors du modèle : la couleur de chaque
+ * noeud, par indice, le nombre de couleurs utilisées et la durée du
+ * calcul.
+ * Le calcul ne touche pas au graphe : il peut se faire dans un autre fil de
+ * calcul, sur une copie figée (Graph.snapshot()), et son résultat n'est
+ * appliqué qu'en une fois par Graph.applyColoring, ou simplement abandonné.
+ *
+ * @inv
+ * 		getColors()[i] >= PositionedNode.INDEX_COLOR_INIT
+ * 		getColorsNb() == nombre de valeurs distinctes de getColors()
+ * 		getElapsedTime() >= 0
+ */
+public final class ColoringResult {
+
+	//ATTRIBUTS
+
+	/**
+	 * La couleur de chaque noeud, par indice de noeud.
+	 */
+	private final int[] colors;
+
+	private final int colorsNb;
+
+	/**
+	 * La durée du calcul, en millisecondes.
+	 */
+	private final long elapsedTime;
+
+	//CONSTRUCTEURS
+
+	ColoringResult(int[] colors, long elapsedTime) {
+		this.colors = colors;
+		this.elapsedTime = elapsedTime;
+		colorsNb = countColors(colors);
+	}
+
+	//REQUETES
+
+	/**
+	 * Colorie les noeuds de g selon la stratégie s, sans rien modifier.
+	 * g devrait être une copie figée si le graphe d'origine peut changer
+	 * pendant le calcul.
+	 *
+	 * @pre
+	 * 		g != null
+	 * 		s != null
+	 */
+	public static ColoringResult compute(IntGraph g, ColoringStrategy s) {
+		if (g == null || s == null) {
+			throw new IllegalArgumentException();
+		}
+		long start = System.nanoTime();
+		int[] colors = s.colorize(g);
+		Colorings.checkColors(colors, g.getNodesNb());
+		return new ColoringResult(colors,
+				(System.nanoTime() - start) / 1000000L);
+	}
+
+	/**
+	 * Réduit le nombre de couleurs d'un coloriage des noeuds de g par
+	 * recherche tabou (TabuCol), sur tous les processeurs disponibles,
+	 * pendant au plus timeBudget millisecondes. La recherche part de start,
+	 * la couleur de chaque noeud par indice, ou du coloriage de DSATUR si
+	 * start vaut null, n'est pas un coloriage valide de g ou utilise plus
+	 * de couleurs. Comme compute, elle ne modifie rien.
+	 *
+	 * @pre
+	 * 		g != null
+	 * 		timeBudget >= 0
+	 * @post
+	 * 		result.isValidFor(g)
+	 */
+	public static ColoringResult minimize(IntGraph g, int[] start,
+			long timeBudget) {
+		return TabuCol.solve(g, start, timeBudget,
+				Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Retourne le nombre de noeuds colorié.
+	 */
+	public int getNodesNb() {
+		return colors.length;
+	}
+
+	/**
+	 * Retourne, pour chaque indice de noeud, sa couleur.
+	 */
+	public int[] getColors() {
+		return colors.clone();
+	}
+
+	/**
+	 * Retourne le nombre de couleurs utilisées.
+	 */
+	public int getColorsNb() {
+		return colorsNb;
+	}
+
+	/**
+	 * Retourne la durée du calcul, en millisecondes.
+	 */
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+
+	/**
+	 * Le coloriage convient encore au graphe g : même nombre de noeuds, et
+	 * aucun arc entre deux noeuds distincts de même couleur. Ce n'est plus
+	 * le cas si des noeuds ou des arcs ont été ajoutés depuis la copie.
+	 *
+	 * @pre
+	 * 		g != null
+	 */
+	public boolean isValidFor(IntGraph g) {
+		if (g == null) {
+			throw new IllegalArgumentException();
+		}
+		return g.getNodesNb() == colors.length && isProper(g, colors);
+	}
+
+	/**
+	 * Les couleurs, sans copie, pour l'application au modèle.
+	 */
+	int[] colors() {
+		return colors;
+	}
+
+	/**
+	 * Aucun arc de g ne relie deux noeuds distincts de même couleur dans
+	 * colors, qui a un élément par noeud.
+	 */
+	static boolean isProper(IntGraph g, int[] colors) {
+		for (int i = 0; i < colors.length; i++) {
+			for (IntIterator it = g.neighbors(i); it.hasNext();) {
+				int j = it.next();
+				if (j != i && colors[j] == colors[i]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Le nombre de valeurs distinctes de colors.
+	 */
+	static int countColors(int[] colors) {
+		BitSet used = new BitSet();
+		for (int c : colors) {
+			used.set(c);
+		}
+		return used.cardinality();
+	}
+
+	public String toString() {
+		return colorsNb + " couleurs en " + elapsedTime + " ms";
+	}
+}
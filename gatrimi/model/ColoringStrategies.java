@@ -0,0 +1,170 @@
+package gatrimi.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Le registre des stratégies de coloriage des noeuds, indexées par nom.
+ * Les stratégies classiques y sont enregistrées d'office ; d'autres peuvent
+ * y être ajoutées sans modifier les graphes.
+ */
+public final class ColoringStrategies {
+	
+	//ATTRIBUTS
+	
+	/**
+	 * Ordre des indices croissants.
+	 */
+	public static final ColoringStrategy FIRST_FIT =
+			new Strategy("first-fit") {
+				@Override
+				public int[] colorize(IntGraph g) {
+					return Colorings.firstFit(g);
+				}
+			};
+	
+	/**
+	 * Ordre des degrés décroissants (Welsh-Powell).
+	 */
+	public static final ColoringStrategy LARGEST_FIRST =
+			new Strategy("largest-first") {
+				@Override
+				public int[] colorize(IntGraph g) {
+					return Colorings.largestFirst(g);
+				}
+			};
+	
+	/**
+	 * Ordre de dégénérescence : les noeuds de plus petit degré résiduel sont
+	 * retirés d'abord et coloriés en dernier.
+	 */
+	public static final ColoringStrategy SMALLEST_LAST =
+			new Strategy("smallest-last") {
+				@Override
+				public int[] colorize(IntGraph g) {
+					return Colorings.smallestLast(g);
+				}
+			};
+	
+	/**
+	 * Le prochain noeud est celui qui a le plus de voisins déjà coloriés.
+	 */
+	public static final ColoringStrategy INCIDENCE_DEGREE =
+			new Strategy("incidence-degree") {
+				@Override
+				public int[] colorize(IntGraph g) {
+					return Colorings.incidenceDegree(g);
+				}
+			};
+	
+	/**
+	 * Recursive Largest First : les classes de couleur sont construites
+	 * l'une après l'autre.
+	 */
+	public static final ColoringStrategy RLF =
+			new Strategy("rlf") {
+				@Override
+				public int[] colorize(IntGraph g) {
+					return Colorings.rlf(g);
+				}
+			};
+	
+	/**
+	 * DSATUR, la stratégie par défaut des graphes.
+	 */
+	public static final ColoringStrategy DSATUR =
+			new Strategy("dsatur") {
+				@Override
+				public int[] colorize(IntGraph g) {
+					return Colorings.dsatur(g);
+				}
+			};
+	
+	/**
+	 * Jones-Plassmann, sur tous les processeurs disponibles.
+	 */
+	public static final ColoringStrategy JONES_PLASSMANN =
+			new Strategy("jones-plassmann") {
+				@Override
+				public int[] colorize(IntGraph g) {
+					return Colorings.jonesPlassmann(g,
+							Runtime.getRuntime().availableProcessors());
+				}
+			};
+	
+	private static final Map<String, ColoringStrategy> STRATEGIES =
+			new LinkedHashMap<String, ColoringStrategy>();
+	
+	static {
+		register(FIRST_FIT);
+		register(LARGEST_FIRST);
+		register(SMALLEST_LAST);
+		register(INCIDENCE_DEGREE);
+		register(RLF);
+		register(DSATUR);
+		register(JONES_PLASSMANN);
+	}
+	
+	//CONSTRUCTEURS
+	
+	private ColoringStrategies() {
+	}
+	
+	//REQUETES
+	
+	/**
+	 * Retourne la stratégie enregistrée sous le nom name, ou null.
+	 */
+	public static synchronized ColoringStrategy get(String name) {
+		if (name == null) {
+			throw new IllegalArgumentException();
+		}
+		return STRATEGIES.get(name);
+	}
+	
+	/**
+	 * Retourne les stratégies enregistrées, dans l'ordre d'enregistrement.
+	 */
+	public static synchronized Collection<ColoringStrategy> getAll() {
+		return Collections.unmodifiableCollection(
+				new ArrayList<ColoringStrategy>(STRATEGIES.values()));
+	}
+	
+	//COMMANDES
+	
+	/**
+	 * Enregistre la stratégie s sous son nom, en remplaçant celle qui
+	 * portait déjà ce nom.
+	 */
+	public static synchronized void register(ColoringStrategy s) {
+		if (s == null || s.getName() == null) {
+			throw new IllegalArgumentException();
+		}
+		STRATEGIES.put(s.getName(), s);
+	}
+	
+	//CLASSES INTERNES
+	
+	/**
+	 * Une stratégie nommée.
+	 */
+	private abstract static class Strategy implements ColoringStrategy {
+		private final String name;
+		
+		Strategy(String name) {
+			this.name = name;
+		}
+		
+		@Override
+		public String getName() {
+			return name;
+		}
+		
+		public String toString() {
+			return name;
+		}
+	}
+}
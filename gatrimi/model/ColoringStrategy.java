@@ -0,0 +1,33 @@
+package gatrimi.model;
+
+/**
+ * Un algorithme de coloriage des noeuds d'un graphe.
+ * Une stratégie travaille sur la vue par indices du graphe, qu'elle ne
+ * modifie pas, et rend l'affectation calculée : c'est le graphe qui
+ * l'applique ensuite à ses noeuds.
+ * 
+ * @inv
+ * 		getName() != null
+ */
+public interface ColoringStrategy {
+	
+	//REQUETES
+	
+	/**
+	 * Le nom sous lequel la stratégie est enregistrée.
+	 */
+	String getName();
+	
+	/**
+	 * Calcule un coloriage des noeuds de g. Retourne, pour chaque indice de
+	 * noeud, sa couleur.
+	 * 
+	 * @pre
+	 * 		g != null
+	 * @post
+	 * 		result.length == g.getNodesNb()
+	 * 		forall i : result[i] >= PositionedNode.INDEX_COLOR_INIT
+	 * 		g.hasEdge(i, j) && i != j ==> result[i] != result[j]
+	 */
+	int[] colorize(IntGraph g);
+}
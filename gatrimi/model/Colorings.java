@@ -0,0 +1,1043 @@
+package gatrimi.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Algorithmes de coloriage travaillant sur la vue par indices d'un graphe.
+ * Les couleurs sont des numéros de classe à partir de
+ * PositionedNode.INDEX_COLOR_INIT, sans limite supérieure : un noeud de
+ * degré d prend au plus la couleur d + 1.
+ */
+final class Colorings {
+	
+	//ATTRIBUTS
+	
+	/**
+	 * La graine des priorités de Jones-Plassmann : un même graphe est
+	 * toujours colorié de la même façon.
+	 */
+	private static final long PRIORITIES_SEED = 42L;
+	
+	/**
+	 * En deçà de ce nombre de noeuds par tâche, un tour n'est pas découpé.
+	 */
+	private static final int MIN_CHUNK = 1024;
+	
+	//CONSTRUCTEURS
+	
+	private Colorings() {
+	}
+	
+	//OUTILS
+	
+	/**
+	 * Coloriage glouton des noeuds de g dans l'ordre de leurs indices.
+	 */
+	static int[] firstFit(IntGraph g) {
+		int n = g.getNodesNb();
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		return greedy(g, order);
+	}
+	
+	/**
+	 * Coloriage glouton des noeuds de g par degrés décroissants.
+	 */
+	static int[] largestFirst(IntGraph g) {
+		int[] ranks = degreeRanks(g);
+		int[] order = new int[ranks.length];
+		for (int i = 0; i < ranks.length; i++) {
+			order[ranks[i]] = i;
+		}
+		return greedy(g, order);
+	}
+	
+	/**
+	 * Coloriage glouton des noeuds de g dans l'ordre inverse de
+	 * dégénérescence : le noeud de plus petit degré dans le graphe restant
+	 * est retiré à chaque étape, et colorié après tous ceux retirés après
+	 * lui. Les noeuds sont rangés dans des listes par degré résiduel, en
+	 * O(n + m).
+	 */
+	static int[] smallestLast(IntGraph g) {
+		int n = g.getNodesNb();
+		int[] degrees = new int[n];
+		int maxDegree = 0;
+		for (int i = 0; i < n; i++) {
+			degrees[i] = g.degree(i);
+			maxDegree = Math.max(maxDegree, degrees[i]);
+		}
+		//Listes doublement chaînées des noeuds de chaque degré résiduel
+		int[] heads = new int[maxDegree + 1];
+		Arrays.fill(heads, -1);
+		int[] next = new int[n];
+		int[] prev = new int[n];
+		for (int i = 0; i < n; i++) {
+			prev[i] = -1;
+			next[i] = heads[degrees[i]];
+			if (next[i] >= 0) {
+				prev[next[i]] = i;
+			}
+			heads[degrees[i]] = i;
+		}
+		
+		boolean[] removed = new boolean[n];
+		int[] order = new int[n];
+		int d = 0;
+		for (int k = n - 1; k >= 0; k--) {
+			while (heads[d] < 0) {
+				d++;
+			}
+			int i = heads[d];
+			unlinkDegree(heads, next, prev, degrees, i);
+			removed[i] = true;
+			order[k] = i;
+			for (IntIterator it = g.neighbors(i); it.hasNext();) {
+				int j = it.next();
+				if (!removed[j]) {
+					unlinkDegree(heads, next, prev, degrees, j);
+					degrees[j]--;
+					prev[j] = -1;
+					next[j] = heads[degrees[j]];
+					if (next[j] >= 0) {
+						prev[next[j]] = j;
+					}
+					heads[degrees[j]] = j;
+				}
+			}
+			//Retirer i fait baisser d'au plus un le degré minimum
+			d = Math.max(d - 1, 0);
+		}
+		return greedy(g, order);
+	}
+	
+	/**
+	 * Coloriage glouton où le prochain noeud est celui qui a le plus de
+	 * voisins déjà coloriés, puis le plus grand degré.
+	 */
+	static int[] incidenceDegree(IntGraph g) {
+		int n = g.getNodesNb();
+		int[] colors = new int[n];
+		SaturationQueue queue = new SaturationQueue(degreeRanks(g));
+		for (int i = 0; i < n; i++) {
+			queue.add(i, 0);
+		}
+		boolean[] marks = colorMarks(g);
+		for (int step = 0; step < n; step++) {
+			int best = queue.poll();
+			colors[best] = smallestFreeColor(g, colors, best, marks);
+			for (IntIterator it = g.neighbors(best); it.hasNext();) {
+				int j = it.next();
+				if (colors[j] == 0) {
+					queue.increase(j);
+				}
+			}
+		}
+		return colors;
+	}
+	
+	/**
+	 * Coloriage Recursive Largest First : chaque classe de couleur est un
+	 * stable construit en partant du noeud non colorié de plus grand degré,
+	 * puis en ajoutant le noeud encore admissible qui a le plus de voisins
+	 * parmi les noeuds exclus de la classe (le moins de voisins admissibles
+	 * en cas d'égalité).
+	 */
+	static int[] rlf(IntGraph g) {
+		final byte admissible = 0;
+		final byte excluded = 1;
+		final byte colored = 2;
+		int n = g.getNodesNb();
+		int[] colors = new int[n];
+		byte[] states = new byte[n];
+		int[] admissibleDegrees = new int[n];
+		int[] excludedDegrees = new int[n];
+		int[] left = new int[n];
+		int leftNb = n;
+		for (int i = 0; i < n; i++) {
+			left[i] = i;
+		}
+		
+		for (int c = PositionedNode.INDEX_COLOR_INIT; leftNb > 0; c++) {
+			for (int k = 0; k < leftNb; k++) {
+				states[left[k]] = admissible;
+				excludedDegrees[left[k]] = 0;
+			}
+			for (int k = 0; k < leftNb; k++) {
+				int i = left[k];
+				admissibleDegrees[i] = 0;
+				for (IntIterator it = g.neighbors(i); it.hasNext();) {
+					int j = it.next();
+					if (j != i && states[j] == admissible) {
+						admissibleDegrees[i]++;
+					}
+				}
+			}
+			
+			int v = -1;
+			for (int k = 0; k < leftNb; k++) {
+				int i = left[k];
+				if (v < 0 || admissibleDegrees[i] > admissibleDegrees[v]) {
+					v = i;
+				}
+			}
+			while (v >= 0) {
+				colors[v] = c;
+				states[v] = colored;
+				for (IntIterator it = g.neighbors(v); it.hasNext();) {
+					int u = it.next();
+					if (states[u] == admissible) {
+						states[u] = excluded;
+						for (IntIterator it2 = g.neighbors(u); it2.hasNext();) {
+							int x = it2.next();
+							if (x != u && states[x] == admissible) {
+								admissibleDegrees[x]--;
+								excludedDegrees[x]++;
+							}
+						}
+					}
+				}
+				
+				v = -1;
+				for (int k = 0; k < leftNb; k++) {
+					int i = left[k];
+					if (states[i] == admissible && (v < 0
+							|| excludedDegrees[i] > excludedDegrees[v]
+							|| (excludedDegrees[i] == excludedDegrees[v]
+								&& admissibleDegrees[i]
+									< admissibleDegrees[v]))) {
+						v = i;
+					}
+				}
+			}
+			
+			int kept = 0;
+			for (int k = 0; k < leftNb; k++) {
+				if (colors[left[k]] == 0) {
+					left[kept++] = left[k];
+				}
+			}
+			leftNb = kept;
+		}
+		return colors;
+	}
+	
+	/**
+	 * Coloration des noeuds de g selon l'algorithme DSATUR. Retourne, pour
+	 * chaque indice de noeud, l'indice de sa couleur.
+	 * Le prochain noeud à colorier est tiré d'une file rangée par degré de
+	 * saturation puis par degré : colorier un noeud ne met à jour que ses
+	 * voisins, soit O((n + m) log n) en tout.
+	 */
+	static int[] dsatur(IntGraph g) {
+		int n = g.getNodesNb();
+		int[] colors = new int[n];
+		//Les couleurs présentes autour de chaque noeud non colorié, créées
+		//au premier voisin colorié
+		BitSet[] neighbourColors = new BitSet[n];
+		SaturationQueue queue = new SaturationQueue(degreeRanks(g));
+		for (int i = 0; i < n; i++) {
+			queue.add(i, 0);
+		}
+		for (int step = 0; step < n; step++) {
+			// Le sommet non coloré de DSAT maximum, puis de degré maximum
+			int best = queue.poll();
+			int c = (neighbourColors[best] == null)
+					? PositionedNode.INDEX_COLOR_INIT
+					: neighbourColors[best].nextClearBit(
+							PositionedNode.INDEX_COLOR_INIT);
+			colors[best] = c;
+			neighbourColors[best] = null;
+			for (IntIterator it = g.neighbors(best); it.hasNext();) {
+				int j = it.next();
+				if (colors[j] == 0) {
+					if (neighbourColors[j] == null) {
+						neighbourColors[j] = new BitSet();
+					}
+					if (!neighbourColors[j].get(c)) {
+						neighbourColors[j].set(c);
+						queue.increase(j);
+					}
+				}
+			}
+		}
+		return colors;
+	}
+	
+	/**
+	 * Coloration des noeuds de g selon l'algorithme de Jones-Plassmann, sur
+	 * threads fils d'exécution. Chaque noeud reçoit une priorité aléatoire ;
+	 * à chaque tour, les noeuds non coloriés plus prioritaires que tous leurs
+	 * voisins non coloriés forment un stable, et sont coloriés en parallèle
+	 * avec la plus petite couleur absente de leur voisinage.
+	 * Retourne, pour chaque indice de noeud, l'indice de sa couleur. Le
+	 * résultat peut compter quelques couleurs de plus que DSATUR.
+	 */
+	static int[] jonesPlassmann(final IntGraph g, int threads) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException();
+		}
+		int n = g.getNodesNb();
+		final int[] colors = new int[n];
+		final int[] priorities = new int[n];
+		final int marksLength = colorMarks(g).length;
+		Random random = new Random(PRIORITIES_SEED);
+		for (int i = 0; i < n; i++) {
+			priorities[i] = random.nextInt();
+		}
+		final boolean[] selected = new boolean[n];
+		final int[] remaining = new int[n];
+		for (int i = 0; i < n; i++) {
+			remaining[i] = i;
+		}
+		int remainingNb = n;
+		
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			while (remainingNb > 0) {
+				//Sélection du stable de ce tour
+				runChunks(pool, threads, remainingNb, new Chunk() {
+					@Override
+					public void run(int from, int to) {
+						for (int k = from; k < to; k++) {
+							int i = remaining[k];
+							selected[i] = isLocalMax(g, colors, priorities, i);
+						}
+					}
+				});
+				
+				//Coloriage du stable : ses noeuds ne sont pas voisins, et ne
+				//lisent que les couleurs des tours précédents
+				runChunks(pool, threads, remainingNb, new Chunk() {
+					@Override
+					public void run(int from, int to) {
+						boolean[] marks = new boolean[marksLength];
+						for (int k = from; k < to; k++) {
+							int i = remaining[k];
+							if (selected[i]) {
+								colors[i] = smallestFreeColor(g, colors, i,
+										marks);
+							}
+						}
+					}
+				});
+				
+				int kept = 0;
+				for (int k = 0; k < remainingNb; k++) {
+					if (colors[remaining[k]] == 0) {
+						remaining[kept++] = remaining[k];
+					}
+				}
+				remainingNb = kept;
+			}
+		} finally {
+			pool.shutdown();
+		}
+		return colors;
+	}
+	
+	/**
+	 * Coloriage des arcs selon l'algorithme de Misra et Gries, qui utilise
+	 * au plus D + 1 couleurs, D étant le degré maximum du graphe.
+	 * L'arc e relie les noeuds d'indices ends[2 * e] et ends[2 * e + 1],
+	 * parmi n noeuds ; chaque paire n'apparaît qu'une fois.
+	 * Chaque arc est colorié à son tour : on construit un éventail maximal
+	 * autour de l'une de ses extrémités, on inverse au besoin une chaîne
+	 * alternée de deux couleurs, puis on fait tourner les couleurs d'un
+	 * préfixe de l'éventail. Les arcs de chaque noeud sont tenus dans une
+	 * table de hachage indexée par couleur, de taille proportionnelle à son
+	 * degré, qui connaît sa première couleur libre : la mémoire reste en
+	 * O(n + m), et l'éventail d'un arc se construit en O(D) en suivant la
+	 * première couleur libre de son dernier noeud. Hors inversion des
+	 * chaînes, le tout est en O(m D).
+	 * Retourne la couleur de chaque arc, à partir de
+	 * PositionedNode.INDEX_COLOR_INIT.
+	 */
+	static int[] misraGries(int n, int[] ends) {
+		int m = ends.length / 2;
+		int[] degrees = new int[n];
+		int maxDegree = 0;
+		for (int e = 0; e < m; e++) {
+			int u = ends[2 * e];
+			int v = ends[2 * e + 1];
+			maxDegree = Math.max(maxDegree, ++degrees[u]);
+			if (u != v) {
+				maxDegree = Math.max(maxDegree, ++degrees[v]);
+			}
+		}
+		
+		ColorTables at = new ColorTables(degrees);
+		int[] colors = new int[m];
+		Arrays.fill(colors, -1);
+		int[] fan = new int[maxDegree + 1];
+		int[] fanEdges = new int[maxDegree + 1];
+		boolean[] inFan = new boolean[n];
+		int[] path = new int[m];
+		int[] shifted = new int[maxDegree + 1];
+		
+		for (int e = 0; e < m; e++) {
+			int x = ends[2 * e];
+			int f = ends[2 * e + 1];
+			if (x == f) {
+				continue;
+			}
+			//Cas le plus fréquent : une couleur est libre aux deux
+			//extrémités. Les couleurs jusqu'à la somme des degrés en
+			//contiennent toujours une, mais seules celles jusqu'à D
+			//peuvent servir
+			int free = -1;
+			int bound = Math.min(maxDegree, degrees[x] + degrees[f]);
+			for (int c = Math.max(at.freeColor(x), at.freeColor(f));
+					c <= bound && free < 0; c++) {
+				if (at.get(x, c) < 0 && at.get(f, c) < 0) {
+					free = c;
+				}
+			}
+			if (free >= 0) {
+				color(at, ends, colors, e, free);
+				continue;
+			}
+			
+			//Eventail de x commençant par f, prolongé tant que l'arc de x
+			//de la couleur d, libre au dernier noeud, mène hors de
+			//l'éventail : c'est la seule maximalité dont la suite a besoin
+			int fanNb = 1;
+			fan[0] = f;
+			fanEdges[0] = e;
+			inFan[f] = true;
+			int d = at.freeColor(f);
+			for (int xe = at.get(x, d); xe >= 0; xe = at.get(x, d)) {
+				int w = other(ends, xe, x);
+				if (inFan[w]) {
+					break;
+				}
+				fan[fanNb] = w;
+				fanEdges[fanNb] = xe;
+				fanNb++;
+				inFan[w] = true;
+				d = at.freeColor(w);
+			}
+			for (int i = 0; i < fanNb; i++) {
+				inFan[fan[i]] = false;
+			}
+			
+			//Inversion de la chaîne cd partant de x
+			int c = at.freeColor(x);
+			int pathNb = 0;
+			int v = x;
+			int col = d;
+			for (int pe = at.get(v, col); pe >= 0; pe = at.get(v, col)) {
+				path[pathNb++] = pe;
+				v = other(ends, pe, v);
+				col = (col == d) ? c : d;
+			}
+			for (int i = 0; i < pathNb; i++) {
+				uncolor(at, ends, colors, path[i]);
+			}
+			for (int i = 0; i < pathNb; i++) {
+				color(at, ends, colors, path[i], (i % 2 == 0) ? c : d);
+			}
+			
+			//Premier noeud de l'éventail où d est libre, tant que le
+			//préfixe reste un éventail
+			int w = -1;
+			for (int i = 0; i < fanNb && w < 0; i++) {
+				if (i > 0 && at.get(fan[i - 1], colors[fanEdges[i]]) >= 0) {
+					break;
+				}
+				if (at.get(fan[i], d) < 0) {
+					w = i;
+				}
+			}
+			if (w < 0) {
+				throw new IllegalStateException();
+			}
+			
+			//Rotation du préfixe : chaque arc prend la couleur du suivant
+			for (int i = 0; i < w; i++) {
+				shifted[i] = colors[fanEdges[i + 1]];
+			}
+			for (int i = 1; i <= w; i++) {
+				uncolor(at, ends, colors, fanEdges[i]);
+			}
+			for (int i = 0; i < w; i++) {
+				color(at, ends, colors, fanEdges[i], shifted[i]);
+			}
+			color(at, ends, colors, fanEdges[w], d);
+		}
+		
+		//Une boucle prend ensuite une couleur libre en son noeud, qui en a
+		//au moins une puisqu'elle ne compte qu'une fois dans son degré
+		for (int e = 0; e < m; e++) {
+			int x = ends[2 * e];
+			if (x == ends[2 * e + 1]) {
+				int c = at.freeColor(x);
+				colors[e] = c;
+				at.put(x, c, e);
+			}
+		}
+		
+		for (int e = 0; e < m; e++) {
+			colors[e] += PositionedNode.INDEX_COLOR_INIT;
+		}
+		return colors;
+	}
+	
+	/**
+	 * Retourne true si colors est un coloriage valide de g n'utilisant que
+	 * les budget premières couleurs, en O(n + m).
+	 */
+	static boolean fits(IntGraph g, NodeColors colors, int budget) {
+		int end = PositionedNode.INDEX_COLOR_INIT + budget;
+		for (int i = 0; i < g.getNodesNb(); i++) {
+			int c = colors.getColor(i);
+			if (c < PositionedNode.INDEX_COLOR_INIT || c >= end) {
+				return false;
+			}
+			for (IntIterator it = g.neighbors(i); it.hasNext();) {
+				int j = it.next();
+				if (j != i && colors.getColor(j) == c) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Répare le coloriage après l'ajout de l'arc (i, j) : une extrémité
+	 * sans couleur, ou de la même couleur que l'autre, est recoloriée avec
+	 * les budget premières couleurs par recolor.
+	 * Retourne false si aucune ne peut l'être.
+	 */
+	static boolean repair(IntGraph g, NodeColors colors, int i, int j,
+			int budget) {
+		if (i == j) {
+			return true;
+		}
+		if (colors.getColor(i) == 0 && !recolor(g, colors, i, budget)) {
+			return false;
+		}
+		if (colors.getColor(j) == 0 && !recolor(g, colors, j, budget)) {
+			return false;
+		}
+		if (colors.getColor(i) != colors.getColor(j)) {
+			return true;
+		}
+		//On tente d'abord l'extrémité de plus petit degré
+		int first = (g.degree(i) <= g.degree(j)) ? i : j;
+		int second = (first == i) ? j : i;
+		return recolor(g, colors, first, budget)
+				|| recolor(g, colors, second, budget);
+	}
+	
+	/**
+	 * Donne au noeud i une couleur parmi les budget premières qui est
+	 * absente de son voisinage. S'il n'y en a pas, cherche une couleur c
+	 * portée par un seul voisin y qui peut lui-même en changer : y prend
+	 * sa nouvelle couleur et i prend c.
+	 * Retourne false si aucune des deux recherches n'aboutit ; les
+	 * couleurs sont alors inchangées.
+	 */
+	static boolean recolor(IntGraph g, NodeColors colors, int i,
+			int budget) {
+		int end = PositionedNode.INDEX_COLOR_INIT + budget;
+		int[] counts = new int[end];
+		int[] holders = new int[end];
+		for (IntIterator it = g.neighbors(i); it.hasNext();) {
+			int j = it.next();
+			int c = colors.getColor(j);
+			if (j != i && c < end) {
+				counts[c]++;
+				holders[c] = j;
+			}
+		}
+		for (int c = PositionedNode.INDEX_COLOR_INIT; c < end; c++) {
+			if (counts[c] == 0) {
+				colors.setColor(i, c);
+				return true;
+			}
+		}
+		
+		//Recherche bornée au voisinage : un seul voisin à déplacer
+		for (int c = PositionedNode.INDEX_COLOR_INIT; c < end; c++) {
+			if (counts[c] == 1) {
+				int y = holders[c];
+				boolean[] taken = new boolean[end];
+				taken[c] = true;
+				for (IntIterator it = g.neighbors(y); it.hasNext();) {
+					int c2 = colors.getColor(it.next());
+					if (c2 < end) {
+						taken[c2] = true;
+					}
+				}
+				for (int c2 = PositionedNode.INDEX_COLOR_INIT; c2 < end;
+						c2++) {
+					if (!taken[c2]) {
+						colors.setColor(y, c2);
+						colors.setColor(i, c);
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Vérifie que colors est une affectation de n couleurs valides, telle
+	 * que retournée par une ColoringStrategy.
+	 */
+	static void checkColors(int[] colors, int n) {
+		if (colors == null || colors.length != n) {
+			throw new IllegalArgumentException();
+		}
+		for (int c : colors) {
+			if (c < PositionedNode.INDEX_COLOR_INIT) {
+				throw new IllegalArgumentException();
+			}
+		}
+	}
+	
+	/**
+	 * Coloriage glouton des noeuds de g dans l'ordre order : chacun prend la
+	 * plus petite couleur absente de son voisinage déjà colorié.
+	 */
+	private static int[] greedy(IntGraph g, int[] order) {
+		int[] colors = new int[g.getNodesNb()];
+		boolean[] marks = colorMarks(g);
+		for (int i : order) {
+			colors[i] = smallestFreeColor(g, colors, i, marks);
+		}
+		return colors;
+	}
+	
+	/**
+	 * L'extrémité de l'arc e opposée au noeud v.
+	 */
+	private static int other(int[] ends, int e, int v) {
+		return (ends[2 * e] == v) ? ends[2 * e + 1] : ends[2 * e];
+	}
+	
+	private static void color(ColorTables at, int[] ends, int[] colors,
+			int e, int c) {
+		colors[e] = c;
+		at.put(ends[2 * e], c, e);
+		at.put(ends[2 * e + 1], c, e);
+	}
+	
+	private static void uncolor(ColorTables at, int[] ends, int[] colors,
+			int e) {
+		int c = colors[e];
+		at.remove(ends[2 * e], c);
+		at.remove(ends[2 * e + 1], c);
+		colors[e] = -1;
+	}
+	
+	/**
+	 * Retire le noeud i de la liste de son degré résiduel.
+	 */
+	private static void unlinkDegree(int[] heads, int[] next, int[] prev,
+			int[] degrees, int i) {
+		if (prev[i] >= 0) {
+			next[prev[i]] = next[i];
+		} else {
+			heads[degrees[i]] = next[i];
+		}
+		if (next[i] >= 0) {
+			prev[next[i]] = prev[i];
+		}
+	}
+	
+	/**
+	 * Retourne le rang de chaque noeud dans l'ordre des degrés décroissants,
+	 * les noeuds de même degré restant dans l'ordre de leurs indices.
+	 */
+	private static int[] degreeRanks(IntGraph g) {
+		int n = g.getNodesNb();
+		int maxDegree = 0;
+		int[] degrees = new int[n];
+		for (int i = 0; i < n; i++) {
+			degrees[i] = g.degree(i);
+			maxDegree = Math.max(maxDegree, degrees[i]);
+		}
+		//Tri par dénombrement
+		int[] starts = new int[maxDegree + 2];
+		for (int i = 0; i < n; i++) {
+			starts[maxDegree - degrees[i] + 1]++;
+		}
+		for (int d = 1; d < starts.length; d++) {
+			starts[d] += starts[d - 1];
+		}
+		int[] ranks = new int[n];
+		for (int i = 0; i < n; i++) {
+			ranks[i] = starts[maxDegree - degrees[i]]++;
+		}
+		return ranks;
+	}
+	
+	/**
+	 * Retourne true si le noeud i est plus prioritaire que tous ses voisins
+	 * non coloriés, les égalités étant départagées par l'indice.
+	 */
+	private static boolean isLocalMax(IntGraph g, int[] colors,
+			int[] priorities, int i) {
+		for (IntIterator it = g.neighbors(i); it.hasNext();) {
+			int j = it.next();
+			if (j != i && colors[j] == 0
+					&& (priorities[j] > priorities[i]
+						|| (priorities[j] == priorities[i] && j > i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * La plus petite couleur absente du voisinage colorié du noeud i. Les
+	 * couleurs des voisins sont marquées dans marks, de longueur
+	 * colorMarks(g).length, qui est rendu vide.
+	 */
+	private static int smallestFreeColor(IntGraph g, int[] colors, int i,
+			boolean[] marks) {
+		for (IntIterator it = g.neighbors(i); it.hasNext();) {
+			int c = colors[it.next()];
+			if (c < marks.length) {
+				marks[c] = true;
+			}
+		}
+		//Le noeud a moins de marks.length - 1 voisins : une couleur est libre
+		int res = PositionedNode.INDEX_COLOR_INIT;
+		while (marks[res]) {
+			res++;
+		}
+		for (IntIterator it = g.neighbors(i); it.hasNext();) {
+			int c = colors[it.next()];
+			if (c < marks.length) {
+				marks[c] = false;
+			}
+		}
+		return res;
+	}
+	
+	/**
+	 * Un tableau de marques pour smallestFreeColor : un noeud de degré d
+	 * prend au plus la couleur d + 1.
+	 */
+	private static boolean[] colorMarks(IntGraph g) {
+		int maxDegree = 0;
+		for (int i = 0; i < g.getNodesNb(); i++) {
+			maxDegree = Math.max(maxDegree, g.degree(i));
+		}
+		return new boolean[maxDegree + 2];
+	}
+	
+	/**
+	 * Découpe les size premières positions en au plus threads tranches,
+	 * traitées en parallèle par pool, et attend leur fin.
+	 */
+	static void runChunks(ExecutorService pool, int threads, int size,
+			final Chunk chunk) {
+		int chunks = Math.max(1, Math.min(threads, size / MIN_CHUNK));
+		if (chunks == 1) {
+			chunk.run(0, size);
+			return;
+		}
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(chunks);
+		for (int t = 0; t < chunks; t++) {
+			final int from = (int) ((long) size * t / chunks);
+			final int to = (int) ((long) size * (t + 1) / chunks);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					chunk.run(from, to);
+					return null;
+				}
+			});
+		}
+		try {
+			for (Future<Void> f : pool.invokeAll(tasks)) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+	
+	//CLASSES INTERNES
+	
+	/**
+	 * L'accès aux couleurs des noeuds d'un graphe, par indice de noeud.
+	 */
+	interface NodeColors {
+		int getColor(int i);
+		void setColor(int i, int c);
+	}
+	
+	/**
+	 * Un traitement portant sur une tranche [from, to[ de positions.
+	 */
+	interface Chunk {
+		void run(int from, int to);
+	}
+	
+	/**
+	 * Les arcs coloriés de chaque noeud, par couleur, pour misraGries : une
+	 * table de hachage à adressage ouvert par noeud, de capacité au moins
+	 * double de son degré plus un, toutes rangées dans un même tableau. Un
+	 * noeud n'ayant jamais plus d'arcs coloriés que son degré, sa table
+	 * reste à moitié vide. Chaque table tient aussi la plus petite couleur
+	 * libre de son noeud.
+	 */
+	private static final class ColorTables {
+		private final int[] starts;
+		private final int[] masks;
+		
+		/**
+		 * Les couleurs rangées, -1 pour une case vide, et l'arc de chacune.
+		 */
+		private final int[] keys;
+		private final int[] edges;
+		
+		private final int[] firstFree;
+		
+		ColorTables(int[] degrees) {
+			int n = degrees.length;
+			starts = new int[n];
+			masks = new int[n];
+			long size = 0;
+			for (int v = 0; v < n; v++) {
+				int capacity = Integer.highestOneBit(2 * degrees[v] + 1) << 1;
+				starts[v] = (int) size;
+				masks[v] = capacity - 1;
+				size += capacity;
+				if (size > Integer.MAX_VALUE) {
+					throw new IllegalArgumentException();
+				}
+			}
+			keys = new int[(int) size];
+			Arrays.fill(keys, -1);
+			edges = new int[(int) size];
+			firstFree = new int[n];
+		}
+		
+		/**
+		 * L'arc de couleur c au noeud v, ou -1.
+		 */
+		int get(int v, int c) {
+			int mask = masks[v];
+			int base = starts[v];
+			for (int i = hash(c) & mask;; i = (i + 1) & mask) {
+				int key = keys[base + i];
+				if (key == c) {
+					return edges[base + i];
+				}
+				if (key < 0) {
+					return -1;
+				}
+			}
+		}
+		
+		/**
+		 * La plus petite couleur libre au noeud v.
+		 */
+		int freeColor(int v) {
+			return firstFree[v];
+		}
+		
+		/**
+		 * Range l'arc e, de couleur c libre au noeud v.
+		 */
+		void put(int v, int c, int e) {
+			int mask = masks[v];
+			int base = starts[v];
+			int i = hash(c) & mask;
+			while (keys[base + i] >= 0) {
+				i = (i + 1) & mask;
+			}
+			keys[base + i] = c;
+			edges[base + i] = e;
+			if (c == firstFree[v]) {
+				int f = c + 1;
+				while (get(v, f) >= 0) {
+					f++;
+				}
+				firstFree[v] = f;
+			}
+		}
+		
+		/**
+		 * Libère la couleur c, prise au noeud v. Les cases suivantes de la
+		 * même grappe sont ramenées en arrière au besoin, pour que get
+		 * puisse s'arrêter à la première case vide.
+		 */
+		void remove(int v, int c) {
+			int mask = masks[v];
+			int base = starts[v];
+			int i = hash(c) & mask;
+			while (keys[base + i] != c) {
+				i = (i + 1) & mask;
+			}
+			for (int j = (i + 1) & mask; keys[base + j] >= 0;
+					j = (j + 1) & mask) {
+				int h = hash(keys[base + j]) & mask;
+				//La case j reste en place si h est dans ]i, j] (circulaire)
+				boolean stays = (i <= j) ? (i < h && h <= j)
+						: (i < h || h <= j);
+				if (!stays) {
+					keys[base + i] = keys[base + j];
+					edges[base + i] = edges[base + j];
+					i = j;
+				}
+			}
+			keys[base + i] = -1;
+			if (c < firstFree[v]) {
+				firstFree[v] = c;
+			}
+		}
+		
+		private static int hash(int c) {
+			int h = c * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+	}
+	
+	/**
+	 * La file des noeuds non coloriés : un tas indexé par degré de
+	 * saturation, ordonné par rang de degré. Le noeud servi est celui de
+	 * plus petit rang dans le tas non vide de plus haute saturation.
+	 */
+	private static final class SaturationQueue {
+		private final int[] ranks;
+		
+		/**
+		 * Le degré de saturation de chaque noeud de la file.
+		 */
+		private final int[] levels;
+		
+		/**
+		 * La position de chaque noeud dans son tas.
+		 */
+		private final int[] positions;
+		
+		private int[][] heaps;
+		private int[] sizes;
+		
+		/**
+		 * Le plus haut degré de saturation dont le tas peut être non vide.
+		 */
+		private int top;
+		
+		SaturationQueue(int[] ranks) {
+			this.ranks = ranks;
+			levels = new int[ranks.length];
+			positions = new int[ranks.length];
+			heaps = new int[1][];
+			sizes = new int[1];
+			top = 0;
+		}
+		
+		void add(int i, int level) {
+			if (level >= heaps.length) {
+				heaps = Arrays.copyOf(heaps, level + 1);
+				sizes = Arrays.copyOf(sizes, level + 1);
+			}
+			if (heaps[level] == null) {
+				heaps[level] = new int[16];
+			} else if (sizes[level] == heaps[level].length) {
+				heaps[level] = Arrays.copyOf(heaps[level],
+						2 * heaps[level].length);
+			}
+			levels[i] = level;
+			heaps[level][sizes[level]] = i;
+			positions[i] = sizes[level]++;
+			siftUp(level, positions[i]);
+			top = Math.max(top, level);
+		}
+		
+		/**
+		 * Augmente de un le degré de saturation du noeud i.
+		 */
+		void increase(int i) {
+			int level = levels[i];
+			remove(i);
+			add(i, level + 1);
+		}
+		
+		/**
+		 * Retire et retourne le prochain noeud à colorier.
+		 */
+		int poll() {
+			while (sizes[top] == 0) {
+				top--;
+			}
+			int i = heaps[top][0];
+			remove(i);
+			return i;
+		}
+		
+		private void remove(int i) {
+			int level = levels[i];
+			int[] heap = heaps[level];
+			int k = positions[i];
+			int last = heap[--sizes[level]];
+			if (last != i) {
+				heap[k] = last;
+				positions[last] = k;
+				siftDown(level, k);
+				siftUp(level, positions[last]);
+			}
+		}
+		
+		private void siftUp(int level, int k) {
+			int[] heap = heaps[level];
+			int i = heap[k];
+			while (k > 0) {
+				int parent = (k - 1) >>> 1;
+				if (ranks[heap[parent]] <= ranks[i]) {
+					break;
+				}
+				heap[k] = heap[parent];
+				positions[heap[k]] = k;
+				k = parent;
+			}
+			heap[k] = i;
+			positions[i] = k;
+		}
+		
+		private void siftDown(int level, int k) {
+			int[] heap = heaps[level];
+			int size = sizes[level];
+			int i = heap[k];
+			while (2 * k + 1 < size) {
+				int child = 2 * k + 1;
+				if (child + 1 < size
+						&& ranks[heap[child + 1]] < ranks[heap[child]]) {
+					child++;
+				}
+				if (ranks[i] <= ranks[heap[child]]) {
+					break;
+				}
+				heap[k] = heap[child];
+				positions[heap[k]] = k;
+				k = child;
+			}
+			heap[k] = i;
+			positions[i] = k;
+		}
+	}
+}
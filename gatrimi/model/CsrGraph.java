@@ -0,0 +1,694 @@
+package gatrimi.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Observable;
+import java.util.Set;
+
+/**
+ * Implémente un graphe immuable dont l'adjacence est stockée au format CSR
+ * (compressed sparse row) : les voisins du noeud d'indice i sont
+ * targets[offsets[i]] .. targets[offsets[i + 1] - 1], triés par indice
+ * croissant.
+ * La structure du graphe ne peut pas être modifiée, seules les couleurs de
+ * ses éléments peuvent l'être. Il est destiné aux traitements d'analyse
+ * (degrés, adjacence, coloriage) sur de gros graphes, et est lui-même sa
+ * propre vue par indices.
+ * Il ne partage rien avec le graphe dont il est construit : ses noeuds en
+ * sont des copies, et ses arcs sont désignés par les indices de leurs
+ * extrémités.
+ */
+public class CsrGraph extends Observable implements Graph, IntGraph {
+
+	//ATTRIBUTS
+
+	/**
+	 * Les noeuds du graphe, rangés par numéro croissant : le noeud de
+	 * numéro k est à l'indice k - 1.
+	 */
+	private PositionedNode[] nodes;
+
+	/**
+	 * Le début de la ligne de chaque noeud dans targets (taille n + 1).
+	 */
+	private int[] offsets;
+
+	/**
+	 * Les indices des noeuds voisins, ligne par ligne.
+	 */
+	private int[] targets;
+
+	/**
+	 * Pour chaque case de targets, la couleur de l'arc correspondant. Les
+	 * deux cases d'un même arc portent la même couleur.
+	 */
+	private int[] edgeColors;
+
+	/**
+	 * Le nombre d'arcs du graphe.
+	 */
+	private int edgesNb;
+
+	private File file;
+	private boolean isSynchronized;
+
+	/**
+	 * Le nombre de couleurs du coloriage incrémental, 0 s'il est désactivé.
+	 */
+	private int colorBudget;
+
+	//CONSTRUCTEURS
+
+	/**
+	 * Construit la représentation CSR du graphe g, avec ses positions et
+	 * ses couleurs.
+	 */
+	public CsrGraph(Graph g) {
+		if (g == null) {
+			throw new IllegalArgumentException();
+		}
+		nodes = new PositionedNode[g.getNodesNb()];
+		g.forEachNode(new Visitor<PositionedNode>() {
+			@Override
+			public void visit(PositionedNode n) {
+				int i = n.getNumber() - 1;
+				nodes[i] = new StdPositionedNode(n.getX(), n.getY(), i + 1);
+				nodes[i].setColor(n.getColor());
+			}
+		});
+
+		edgesNb = g.getVertexesNb();
+		final int[] ends = new int[edgesNb * 2];
+		final int[] colors = new int[edgesNb];
+		g.forEachEdge(new Visitor<Edge>() {
+			private int e;
+			@Override
+			public void visit(Edge v) {
+				PositionedNode[] nTab = v.getNodes();
+				ends[2 * e] = nTab[0].getNumber() - 1;
+				ends[2 * e + 1] = nTab[1].getNumber() - 1;
+				colors[e++] = v.getColor();
+			}
+		});
+
+		//Premier passage : les degrés
+		offsets = new int[nodes.length + 1];
+		for (int e = 0; e < edgesNb; e++) {
+			offsets[ends[2 * e] + 1]++;
+			if (ends[2 * e] != ends[2 * e + 1]) {
+				offsets[ends[2 * e + 1] + 1]++;
+			}
+		}
+		for (int i = 0; i < nodes.length; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+
+		//Second passage : les lignes, dans l'ordre des arcs
+		int[] rawTargets = new int[offsets[nodes.length]];
+		int[] rawColors = new int[offsets[nodes.length]];
+		int[] cursor = Arrays.copyOf(offsets, nodes.length);
+		for (int e = 0; e < edgesNb; e++) {
+			int u = ends[2 * e];
+			int v = ends[2 * e + 1];
+			rawTargets[cursor[u]] = v;
+			rawColors[cursor[u]++] = colors[e];
+			if (u != v) {
+				rawTargets[cursor[v]] = u;
+				rawColors[cursor[v]++] = colors[e];
+			}
+		}
+
+		//Transposition : le graphe étant symétrique, parcourir les lignes
+		//dans l'ordre produit des lignes triées
+		targets = new int[rawTargets.length];
+		edgeColors = new int[rawTargets.length];
+		cursor = Arrays.copyOf(offsets, nodes.length);
+		for (int u = 0; u < nodes.length; u++) {
+			for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+				int v = rawTargets[k];
+				targets[cursor[v]] = u;
+				edgeColors[cursor[v]++] = rawColors[k];
+			}
+		}
+
+		file = g.getFile();
+		isSynchronized = g.isSynchronized();
+		setChanged();
+	}
+
+	//REQUETES
+
+	@Override
+	public File getFile() {
+		return file;
+	}
+
+	@Override
+	public boolean isSynchronized() {
+		return isSynchronized;
+	}
+
+	@Override
+	public int getColorBudget() {
+		return colorBudget;
+	}
+
+	@Override
+	public Set<PositionedNode> getNodes() {
+		return new HashSet<PositionedNode>(Arrays.asList(nodes));
+	}
+
+	@Override
+	public Set<Edge> getVertexes() {
+		return new HashSet<Edge>(getVertexesView());
+	}
+
+	@Override
+	public Set<PositionedNode> getNodesView() {
+		return new NodesView();
+	}
+
+	@Override
+	public Set<Edge> getVertexesView() {
+		return new EdgesView();
+	}
+
+	@Override
+	public void forEachNode(Visitor<? super PositionedNode> v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		for (PositionedNode n : nodes) {
+			v.visit(n);
+		}
+	}
+
+	@Override
+	public void forEachEdge(Visitor<? super Edge> v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		for (int i = 0; i < nodes.length; i++) {
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				if (targets[k] >= i) {
+					v.visit(new EdgeView(i, targets[k]));
+				}
+			}
+		}
+	}
+
+	@Override
+	public void forEachNeighbor(PositionedNode n,
+			Visitor<? super PositionedNode> v) {
+		int i = indexOf(n);
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+			v.visit(nodes[targets[k]]);
+		}
+	}
+
+	@Override
+	public int getVertexesNb(PositionedNode n) {
+		int i = indexOf(n);
+		return offsets[i + 1] - offsets[i];
+	}
+
+	@Override
+	public int getVertexesNb() {
+		return edgesNb;
+	}
+
+	@Override
+	public int getNodesNb() {
+		return nodes.length;
+	}
+
+	@Override
+	public Set<Edge> getVertexes(PositionedNode n) {
+		int i = indexOf(n);
+		Set<Edge> res = new HashSet<Edge>();
+		for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+			res.add(new EdgeView(i, targets[k]));
+		}
+		return res;
+	}
+
+	@Override
+	public boolean areAdjacent(PositionedNode n1, PositionedNode n2) {
+		return slotOf(indexOf(n1), indexOf(n2)) >= 0;
+	}
+
+	@Override
+	public boolean areAdjacent(Edge v1, Edge v2) {
+		int[] ends1 = endsOf(v1);
+		int[] ends2 = endsOf(v2);
+		return ends1[0] == ends2[0] || ends1[0] == ends2[1]
+				|| ends1[1] == ends2[0] || ends1[1] == ends2[1];
+	}
+
+	@Override
+	public Set<PositionedNode> getAdjacents(PositionedNode n) {
+		int i = indexOf(n);
+		Set<PositionedNode> res = new HashSet<PositionedNode>();
+		for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+			res.add(nodes[targets[k]]);
+		}
+		return res;
+	}
+
+	@Override
+	public Set<Edge> getAdjacents(Edge v) {
+		int[] ends = endsOf(v);
+		Set<Edge> res = new HashSet<Edge>();
+		for (int i : ends) {
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				res.add(new EdgeView(i, targets[k]));
+			}
+		}
+		return res;
+	}
+
+	@Override
+	public IntGraph asIntGraph() {
+		return this;
+	}
+
+	/**
+	 * La structure d'un CsrGraph ne change jamais : il est sa propre copie
+	 * figée.
+	 */
+	@Override
+	public IntGraph snapshot() {
+		return this;
+	}
+
+	@Override
+	public int degree(int i) {
+		return offsets[i + 1] - offsets[i];
+	}
+
+	@Override
+	public IntIterator neighbors(final int i) {
+		return new IntIterator() {
+			private int k = offsets[i];
+
+			@Override
+			public boolean hasNext() {
+				return k < offsets[i + 1];
+			}
+
+			@Override
+			public int next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return targets[k++];
+			}
+		};
+	}
+
+	@Override
+	public boolean hasEdge(int i, int j) {
+		return slotOf(i, j) >= 0;
+	}
+
+	//COMMANDES
+
+	@Override
+	public void setFile(File file) {
+		this.file = file;
+		setChanged();
+	}
+
+	/**
+	 * Le budget est retenu, mais la structure du graphe ne change jamais :
+	 * aucun coloriage n'est à réparer.
+	 */
+	@Override
+	public void setColorBudget(int budget) {
+		if (budget < 0) {
+			throw new IllegalArgumentException();
+		}
+		colorBudget = budget;
+	}
+
+	@Override
+	public void addNode() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void addNode(int x, int y) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeNode(PositionedNode n) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeNodes(Set<PositionedNode> nodes) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void addVertex(Edge v) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeVertex(Edge v) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeVertexes(Set<Edge> vertexes) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void apply(GraphDelta delta) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void addEdge(int i, int j) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void colorizeNode(PositionedNode n, int c) {
+		if (!StdPositionedNode.isRightColor(c)) {
+			throw new IllegalArgumentException();
+		}
+		nodes[indexOf(n)].setColor(c);
+		isSynchronized = false;
+		setChanged();
+	}
+
+	/**
+	 * Coloriage des arêtes selon l'algorithme de Misra et Gries, sur les
+	 * indices des extrémités de chaque arc.
+	 */
+	@Override
+	public void colorizeVertexes() {
+		int[] ends = new int[2 * edgesNb];
+		int e = 0;
+		for (int i = 0; i < nodes.length; i++) {
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				if (targets[k] >= i) {
+					ends[2 * e] = i;
+					ends[2 * e++ + 1] = targets[k];
+				}
+			}
+		}
+		int[] colors = Colorings.misraGries(nodes.length, ends);
+		for (e = 0; e < edgesNb; e++) {
+			setEdgeColor(ends[2 * e], ends[2 * e + 1], colors[e]);
+		}
+		isSynchronized = false;
+		setChanged();
+	}
+
+	/**
+	 * Coloration du graphe selon l'algorithme DSATUR, sur les tableaux CSR.
+	 */
+	@Override
+	public void colorizeNodes() {
+		setNodesColors(ColoringResult.compute(this, ColoringStrategies.DSATUR)
+				.colors());
+	}
+
+	@Override
+	public void applyColoring(ColoringResult res) {
+		if (res == null || !res.isValidFor(this)) {
+			throw new IllegalArgumentException();
+		}
+		setNodesColors(res.colors());
+	}
+
+	@Override
+	public void save() throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException();
+		}
+		GraphFile.capture(this).save(file);
+		isSynchronized = true;
+		setChanged();
+	}
+
+	/**
+	 * Un CsrGraph est immuable : il se construit à partir d'un graphe déjà
+	 * chargé.
+	 */
+	@Override
+	public void load() throws IOException {
+		throw new UnsupportedOperationException();
+	}
+
+	//OUTILS
+
+	/**
+	 * Donne au noeud d'indice i la couleur colors[i].
+	 */
+	private void setNodesColors(int[] colors) {
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i].setColor(colors[i]);
+		}
+		isSynchronized = false;
+		setChanged();
+	}
+
+	/**
+	 * Donne la couleur c à l'arc reliant les noeuds d'indices i et j, dans
+	 * ses deux cases.
+	 *
+	 * @pre
+	 * 		i et j sont adjacents
+	 */
+	private void setEdgeColor(int i, int j, int c) {
+		edgeColors[slotOf(i, j)] = c;
+		edgeColors[slotOf(j, i)] = c;
+	}
+
+	/**
+	 * Retourne l'indice du noeud n.
+	 */
+	private int indexOf(PositionedNode n) {
+		int i = lookup(n);
+		if (i < 0) {
+			throw new IllegalArgumentException();
+		}
+		return i;
+	}
+
+	/**
+	 * Retourne l'indice du noeud n, ou -1 si n n'est pas un noeud de ce
+	 * graphe.
+	 */
+	private int lookup(Object n) {
+		if (!(n instanceof PositionedNode)) {
+			return -1;
+		}
+		int i = ((PositionedNode) n).getNumber() - 1;
+		return (i >= 0 && i < nodes.length && nodes[i].equals(n)) ? i : -1;
+	}
+
+	/**
+	 * Retourne la position de j dans la ligne de i, ou un nombre négatif si
+	 * i et j ne sont pas adjacents.
+	 */
+	private int slotOf(int i, int j) {
+		int k = Arrays.binarySearch(targets, offsets[i], offsets[i + 1], j);
+		return k < offsets[i] ? -1 : k;
+	}
+
+	/**
+	 * Retourne les indices des extrémités de l'arc v.
+	 *
+	 * @pre
+	 * 		v est un arc de ce graphe
+	 */
+	private int[] endsOf(Edge v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		PositionedNode[] nTab = v.getNodes();
+		int[] ends = new int[] {indexOf(nTab[0]), indexOf(nTab[1])};
+		if (slotOf(ends[0], ends[1]) < 0) {
+			throw new IllegalArgumentException();
+		}
+		return ends;
+	}
+
+	//CLASSES INTERNES
+
+	/**
+	 * Un arc de ce graphe, désigné par les indices de ses extrémités, sa
+	 * couleur étant lue et écrite dans edgeColors.
+	 */
+	private class EdgeView extends Observable implements Edge {
+		private final int u;
+		private final int v;
+
+		EdgeView(int u, int v) {
+			this.u = u;
+			this.v = v;
+		}
+
+		public String toString() {
+			return "[" + nodes[u] + " - " + nodes[v] + "]";
+		}
+
+		@Override
+		public int getColor() {
+			return edgeColors[slotOf(u, v)];
+		}
+
+		@Override
+		public PositionedNode[] getNodes() {
+			return new PositionedNode[] {nodes[u], nodes[v]};
+		}
+
+		@Override
+		public boolean containsNode(PositionedNode n) {
+			return nodes[u].equals(n) || nodes[v].equals(n);
+		}
+
+		@Override
+		public void setColor(int c) {
+			if (c < COLOR_DEFAULT) {
+				throw new IllegalArgumentException();
+			}
+			setEdgeColor(u, v, c);
+			isSynchronized = false;
+			CsrGraph.this.setChanged();
+			setChanged();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if ((o != null) && (o.getClass() == this.getClass())) {
+				EdgeView e = (EdgeView) o;
+				return e.owner() == owner()
+						&& ((u == e.u && v == e.v) || (u == e.v && v == e.u));
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return StdEdge.hash(u, v);
+		}
+
+		private CsrGraph owner() {
+			return CsrGraph.this;
+		}
+	}
+
+	/**
+	 * La vue non modifiable de l'ensemble des noeuds, adossée au tableau
+	 * nodes.
+	 */
+	private class NodesView extends AbstractSet<PositionedNode> {
+		@Override
+		public Iterator<PositionedNode> iterator() {
+			return Collections.unmodifiableList(Arrays.asList(nodes))
+					.iterator();
+		}
+
+		@Override
+		public int size() {
+			return nodes.length;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return lookup(o) >= 0;
+		}
+	}
+
+	/**
+	 * La vue non modifiable de l'ensemble des arcs, parcourant les lignes
+	 * dans l'ordre des indices. Chaque arc est rendu depuis son extrémité de
+	 * plus petit indice.
+	 */
+	private class EdgesView extends AbstractSet<Edge> {
+		@Override
+		public Iterator<Edge> iterator() {
+			return new Iterator<Edge>() {
+				private int i = 0;
+				private int k = offsets[0];
+
+				{
+					advance();
+				}
+
+				/**
+				 * Place k sur la prochaine case d'un voisin d'indice au
+				 * moins i.
+				 */
+				private void advance() {
+					while (i < nodes.length) {
+						if (k == offsets[i + 1]) {
+							i++;
+						} else if (targets[k] < i) {
+							k++;
+						} else {
+							return;
+						}
+					}
+				}
+
+				@Override
+				public boolean hasNext() {
+					return i < nodes.length;
+				}
+
+				@Override
+				public Edge next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					Edge res = new EdgeView(i, targets[k++]);
+					advance();
+					return res;
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return edgesNb;
+		}
+
+		/**
+		 * Contient tout arc reliant deux noeuds adjacents de ce graphe,
+		 * quelle que soit sa classe.
+		 */
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Edge)) {
+				return false;
+			}
+			PositionedNode[] nTab = ((Edge) o).getNodes();
+			int i = lookup(nTab[0]);
+			int j = lookup(nTab[1]);
+			return i >= 0 && j >= 0 && slotOf(i, j) >= 0;
+		}
+	}
+}
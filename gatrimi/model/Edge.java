@@ -1,13 +1,12 @@
 package gatrimi.model;
 
-import java.awt.Color;
 import java.io.Serializable;
 
 /**
- * Classe spcifiant un arc color entre deux PositionedNode.
+ * Classe spécifiant un arc coloré entre deux PositionedNode.
  *
  * @inv
- * 		COLORS.contains(getColor())
+ * 		getColor() >= COLOR_DEFAULT
  * 		getNodes.length == 2
  * 		getNodes()[0].equals(getNodes()[1])
  * 
@@ -22,31 +21,23 @@ import java.io.Serializable;
  * $POST$
  * 		getNodes().contains(n1)
  * 		getNodes().contains(n2)
- * 		getColor.equals(COLOR_DEFAULT)
+ * 		getColor() == COLOR_DEFAULT
  */
 public interface Edge extends Serializable, ObservableModel {
 	//ATTRIBUTS STATIQUES
 	
 	/**
-	 * Le tableau de toutes les couleurs pouvant tre prisent par un arc.
+	 * La couleur par défaut prise par un arc, qui n'est pas colorié.
 	 */
-	Color[] COLORS = {
-	        Color.BLACK, Color.BLUE, Color.CYAN, Color.DARK_GRAY, Color.GRAY,
-	        Color.GREEN, Color.LIGHT_GRAY, Color.MAGENTA, Color.ORANGE,
-	        Color.PINK, Color.RED, Color.WHITE, Color.YELLOW
-	    };
-	
-	/**
-	 * La couleur par dfaut prise par un arc.
-	 */
-	Color COLOR_DEFAULT = COLORS[0];
+	int COLOR_DEFAULT = 0;
 	
 	//REQUETES
 	
 	/**
-	 * Retourne la couleur actuelle de l'arc.
+	 * Retourne la couleur actuelle de l'arc : c'est le numéro d'une classe
+	 * de couleur, comme pour les sommets.
 	 */
-	Color getColor();
+	int getColor();
 	
 	/**
 	 * Retourne le tableau des PositionedNodes en relation par cet arc.
@@ -61,13 +52,12 @@ public interface Edge extends Serializable, ObservableModel {
 	//COMMANDES
 	
 	/**
-	 * Donne la couleur c  l'arc.
+	 * Donne la couleur c à l'arc.
 	 * 
 	 * @pre
-	 * 		c != null
-	 * 		COLORS.contains(c)
+	 * 		c >= COLOR_DEFAULT
 	 * @post
-	 * 		getColor.equals(c)
+	 * 		getColor() == c
 	 */
-	void setColor(Color c);
+	void setColor(int c);
 }
@@ -0,0 +1,196 @@
+package gatrimi.model;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Stockage compact des arcs d'un graphe : chaque arc est réduit à la paire
+ * des identifiants de ses extrémités, empaquetée dans un long, et à sa
+ * couleur, rangée dans un int.
+ * Les paires sont rangées dans une table à adressage ouvert (sondage
+ * linéaire), remplie aux trois quarts au plus : un arc y occupe entre 16 et
+ * 32 octets, sans aucun objet par arc.
+ * La paire (a, b) désigne le même arc que la paire (b, a).
+ */
+final class EdgeStore implements Serializable {
+
+	//ATTRIBUTS
+
+	/**
+	 * Case vide de la table (aucun identifiant n'est négatif).
+	 */
+	private static final long EMPTY = -1L;
+
+	/**
+	 * La capacité initiale de la table.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Les paires d'identifiants, la plus petite dans les 32 bits de poids
+	 * fort.
+	 */
+	private long[] keys;
+
+	/**
+	 * La couleur de l'arc rangé dans la case de même rang.
+	 */
+	private int[] colors;
+
+	private int size;
+
+	//CONSTRUCTEURS
+
+	EdgeStore() {
+		clear();
+	}
+
+	/**
+	 * Une table dimensionnée pour recevoir expected arcs sans agrandissement.
+	 */
+	EdgeStore(int expected) {
+		int capacity = INITIAL_CAPACITY;
+		while (3L * capacity < 4L * expected) {
+			capacity *= 2;
+		}
+		allocate(capacity);
+	}
+
+	//REQUETES
+
+	int size() {
+		return size;
+	}
+
+	boolean contains(int a, int b) {
+		return keys[find(key(a, b))] != EMPTY;
+	}
+
+	/**
+	 * Retourne la couleur de l'arc (a, b), ou -1 s'il n'est pas
+	 * stocké.
+	 */
+	int getColor(int a, int b) {
+		int i = find(key(a, b));
+		return keys[i] == EMPTY ? -1 : colors[i];
+	}
+
+	//COMMANDES
+
+	/**
+	 * Ajoute l'arc (a, b) avec la couleur color, s'il n'est pas
+	 * déjà stocké. Retourne true si l'arc a été ajouté.
+	 */
+	boolean add(int a, int b, int color) {
+		long k = key(a, b);
+		int i = find(k);
+		if (keys[i] != EMPTY) {
+			return false;
+		}
+		keys[i] = k;
+		colors[i] = color;
+		size++;
+		if (4 * size > 3 * keys.length) {
+			rehash(2 * keys.length);
+		}
+		return true;
+	}
+
+	/**
+	 * Change la couleur de l'arc (a, b), qui doit être stocké.
+	 */
+	void setColor(int a, int b, int color) {
+		int i = find(key(a, b));
+		if (keys[i] == EMPTY) {
+			throw new IllegalArgumentException();
+		}
+		colors[i] = color;
+	}
+
+	/**
+	 * Retire l'arc (a, b). Les cases suivantes de la même grappe sont
+	 * recalées afin que la table ne contienne aucune case morte.
+	 * Retourne true si l'arc était stocké.
+	 */
+	boolean remove(int a, int b) {
+		int i = find(key(a, b));
+		if (keys[i] == EMPTY) {
+			return false;
+		}
+		int mask = keys.length - 1;
+		for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+			int h = home(keys[j]);
+			//La case j peut venir en i si sa place d'origine n'est pas dans
+			//l'intervalle circulaire ]i, j]
+			boolean inRange = (i <= j) ? (i < h && h <= j)
+									   : (i < h || h <= j);
+			if (!inRange) {
+				keys[i] = keys[j];
+				colors[i] = colors[j];
+				i = j;
+			}
+		}
+		keys[i] = EMPTY;
+		size--;
+		return true;
+	}
+
+	void clear() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	//OUTILS
+
+	private static long key(int a, int b) {
+		if (a < 0 || b < 0) {
+			throw new IllegalArgumentException();
+		}
+		return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+	}
+
+	/**
+	 * La case où la paire k devrait être rangée en l'absence de collision.
+	 */
+	private int home(long k) {
+		long h = k * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32) & (keys.length - 1);
+	}
+
+	/**
+	 * Retourne la case contenant la paire k, ou la case vide où elle serait
+	 * rangée.
+	 */
+	private int find(long k) {
+		int mask = keys.length - 1;
+		int i = home(k);
+		while (keys[i] != EMPTY && keys[i] != k) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/**
+	 * Remplace la table par une table vide de la capacité donnée.
+	 */
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		colors = new int[capacity];
+		size = 0;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldColors = colors;
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		colors = new int[capacity];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int j = find(oldKeys[i]);
+				keys[j] = oldKeys[i];
+				colors[j] = oldColors[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package gatrimi.model;
+
+/**
+ * Le résultat d'un coloriage exact : le meilleur coloriage trouvé, et
+ * l'encadrement du nombre chromatique établi par la recherche.
+ * Si la recherche a pu être menée à son terme, les deux bornes sont égales
+ * et le coloriage est optimal ; sinon elles mesurent l'écart qui reste à
+ * combler.
+ *
+ * @inv
+ * 		0 <= getLowerBound() <= getUpperBound()
+ * 		isOptimal() <==> getLowerBound() == getUpperBound()
+ * 		getColors() utilise exactement getUpperBound() couleurs
+ */
+public final class ExactColoring {
+
+	//ATTRIBUTS
+
+	/**
+	 * Le meilleur coloriage trouvé.
+	 */
+	private final ColoringResult coloring;
+
+	private final int lowerBound;
+	private final int upperBound;
+
+	//CONSTRUCTEURS
+
+	ExactColoring(int[] colors, long elapsedTime, int lowerBound,
+			int upperBound) {
+		if (colors == null || lowerBound < 0 || lowerBound > upperBound) {
+			throw new IllegalArgumentException();
+		}
+		coloring = new ColoringResult(colors, elapsedTime);
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+	}
+
+	//REQUETES
+
+	/**
+	 * Colorie les noeuds de g avec le nombre minimum de couleurs, par
+	 * séparation et évaluation sur tous les processeurs disponibles, en au
+	 * plus timeBudget millisecondes. A l'expiration du délai, le meilleur
+	 * coloriage trouvé est retourné avec l'encadrement prouvé du nombre
+	 * chromatique. Comme ColoringResult.compute, elle ne modifie rien.
+	 *
+	 * @pre
+	 * 		g != null
+	 * 		timeBudget >= 0
+	 */
+	public static ExactColoring solve(IntGraph g, long timeBudget) {
+		return BranchAndBound.solve(g, timeBudget,
+				Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Retourne le meilleur coloriage trouvé, à appliquer par
+	 * Graph.applyColoring.
+	 */
+	public ColoringResult getColoring() {
+		return coloring;
+	}
+
+	/**
+	 * Retourne, pour chaque indice de noeud, sa couleur, à partir de
+	 * PositionedNode.INDEX_COLOR_INIT.
+	 */
+	public int[] getColors() {
+		return coloring.getColors();
+	}
+
+	/**
+	 * Retourne une borne inférieure prouvée du nombre chromatique.
+	 */
+	public int getLowerBound() {
+		return lowerBound;
+	}
+
+	/**
+	 * Retourne le nombre de couleurs du meilleur coloriage trouvé.
+	 */
+	public int getUpperBound() {
+		return upperBound;
+	}
+
+	/**
+	 * Le coloriage est prouvé optimal.
+	 */
+	public boolean isOptimal() {
+		return lowerBound == upperBound;
+	}
+
+	public String toString() {
+		return isOptimal() ? "chi = " + upperBound
+				: lowerBound + " <= chi <= " + upperBound;
+	}
+}
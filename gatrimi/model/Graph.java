@@ -1,14 +1,13 @@
 package gatrimi.model;
 
-import java.awt.Color;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Set;
 
 /**
- * Spcification d'un graphe utilisant des sommets et des arcs coloriables.
- * Le graphe peut tre colori (sommets et arcs).
+ * Spécification d'un graphe utilisant des sommets et des arcs coloriables.
+ * Le graphe peut être colorié (sommets et arcs).
  * @inv
  * 		for Vertex v in getVertexes():
  * 			getNodes().contains(v.getNodes()[0])
@@ -67,7 +66,7 @@ public interface Graph extends ObservableModel, Serializable {
 	
 	//REQUETES
 	/**
-	 * Retourne le fichier associ  ce graphe.
+	 * Retourne le fichier associé à ce graphe.
 	 */
 	File getFile();
 	
@@ -76,6 +75,12 @@ public interface Graph extends ObservableModel, Serializable {
 	 */
 	boolean isSynchronized();
 	
+	/**
+	 * Retourne le nombre de couleurs dont dispose le coloriage incrémental,
+	 * ou 0 s'il est désactivé.
+	 */
+	int getColorBudget();
+	
 	/**
 	 * Retourne l'ensemble des noeuds du graphe.
 	 */
@@ -87,7 +92,7 @@ public interface Graph extends ObservableModel, Serializable {
 	Set<Edge> getVertexes();
 	
 	/**
-	 * Retourne le nombre d'arc dont l'une des extrmits est le noeud n.
+	 * Retourne le nombre d'arc dont l'une des extrémités est le noeud n.
 	 * 
 	 * @pre
 	 * 		n != null
@@ -106,7 +111,7 @@ public interface Graph extends ObservableModel, Serializable {
 	int getNodesNb();
 	
 	/**
-	 * Retourne l'ensemble des arcs dont l'une des extrmits est le noeud n.
+	 * Retourne l'ensemble des arcs dont l'une des extrémités est le noeud n.
 	 * 
 	 * @pre
 	 * 		n != null
@@ -116,7 +121,7 @@ public interface Graph extends ObservableModel, Serializable {
 	
 	/**
 	 * Retourne true si les deux noeuds sont adjacents pour ce graphe (c'est
-	 *  dire s'ils sont lis par un arc).
+	 * à dire s'ils sont liés par un arc).
 	 * 
 	 * @pre
 	 * 		n1 != null
@@ -127,7 +132,7 @@ public interface Graph extends ObservableModel, Serializable {
 	boolean areAdjacent(PositionedNode n1, PositionedNode n2);
 	
 	/**
-	 * Retourne true si les deux arcs sont adjacents pour ce graphe (c'est 
+	 * Retourne true si les deux arcs sont adjacents pour ce graphe (c'est à
 	 * dire s'ils ont un noeud en commun).
 	 * 
 	 * @pre
@@ -139,7 +144,7 @@ public interface Graph extends ObservableModel, Serializable {
 	boolean areAdjacent(Edge v1, Edge v2);
 	
 	/**
-	 * Retourne l'ensemble des noeuds adjacents au noeud pass en paramtre.
+	 * Retourne l'ensemble des noeuds adjacents au noeud passé en paramètre.
 	 * 
 	 * @pre
 	 * 		n != null
@@ -148,7 +153,7 @@ public interface Graph extends ObservableModel, Serializable {
 	Set<PositionedNode> getAdjacents(PositionedNode n);
 	
 	/**
-	 * Retourne l'ensemble des arcs adjacents  l'arc pass en paramtre.
+	 * Retourne l'ensemble des arcs adjacents à l'arc passé en paramètre.
 	 * 
 	 * @pre
 	 * 		v != null
@@ -156,9 +161,69 @@ public interface Graph extends ObservableModel, Serializable {
 	 */
 	Set<Edge> getAdjacents(Edge v);
 	
+	/**
+	 * Retourne une vue de ce graphe par indices entiers : le noeud de numéro
+	 * k y porte l'indice k - 1. La vue reflète l'état courant du graphe, et
+	 * les arcs ajoutés par son intermédiaire le sont au graphe.
+	 */
+	IntGraph asIntGraph();
+	
+	/**
+	 * Retourne une copie figée de asIntGraph(), qui ne partage rien avec ce
+	 * graphe : elle peut être parcourue par un autre fil de calcul pendant
+	 * que le graphe est modifié.
+	 * 
+	 * @post
+	 * 		result.getNodesNb() == getNodesNb()
+	 * 		result.hasEdge(i, j) <==> asIntGraph().hasEdge(i, j)
+	 */
+	IntGraph snapshot();
+	
+	/**
+	 * Retourne une vue non modifiable de l'ensemble des noeuds du graphe.
+	 * Contrairement à getNodes(), l'ensemble n'est pas copié : il reflète
+	 * les modifications ultérieures du graphe, et ne doit pas être parcouru
+	 * pendant que des noeuds sont ajoutés ou supprimés.
+	 */
+	Set<PositionedNode> getNodesView();
+	
+	/**
+	 * Retourne une vue non modifiable de l'ensemble des arcs du graphe.
+	 * Contrairement à getVertexes(), l'ensemble n'est pas copié : il reflète
+	 * les modifications ultérieures du graphe, et ne doit pas être parcouru
+	 * pendant que des arcs sont ajoutés ou supprimés.
+	 */
+	Set<Edge> getVertexesView();
+	
+	/**
+	 * Applique v à chacun des noeuds du graphe, sans copie.
+	 * 
+	 * @pre
+	 * 		v != null
+	 */
+	void forEachNode(Visitor<? super PositionedNode> v);
+	
+	/**
+	 * Applique v à chacun des arcs du graphe, sans copie.
+	 * 
+	 * @pre
+	 * 		v != null
+	 */
+	void forEachEdge(Visitor<? super Edge> v);
+	
+	/**
+	 * Applique v à chacun des noeuds adjacents au noeud n, sans copie.
+	 * 
+	 * @pre
+	 * 		n != null
+	 * 		getNodes().contains(n)
+	 * 		v != null
+	 */
+	void forEachNeighbor(PositionedNode n, Visitor<? super PositionedNode> v);
+	
 	//COMMANDES
 	/**
-	 * Fixe le fichier associ a ce graphe a file.	
+	 * Fixe le fichier associé a ce graphe a file.	
 	 * @post 
 	 * 		!isSynchronized()
 	 * 		getFile == file
@@ -166,12 +231,37 @@ public interface Graph extends ObservableModel, Serializable {
 	void setFile(File file);
 	
 	/**
-	 * Cr un nouveau noeud et l'ajoute au graphe.
+	 * Active le coloriage incrémental des noeuds avec budget couleurs, ou le
+	 * désactive si budget vaut 0.
+	 * Lorsqu'il est actif, chaque nouveau noeud reçoit la première couleur,
+	 * et chaque arc ajouté dont les extrémités ont la même couleur (ou n'en
+	 * ont pas) est réparé localement : l'une d'elles prend une couleur du
+	 * budget absente de son voisinage, quitte à déplacer un unique voisin.
+	 * Le coût d'une modification est ainsi proportionnel aux degrés des
+	 * noeuds concernés. Ce n'est que si aucune couleur du budget ne convient
+	 * que tout le graphe est recolorié par colorizeNodes().
+	 * Les suppressions ne créent aucun conflit et ne recolorient rien.
+	 * La réparation suppose un coloriage de départ valide : à l'activation,
+	 * si les couleurs courantes ne forment pas un coloriage valide par les
+	 * budget premières couleurs, tout le graphe est recolorié par
+	 * colorizeNodes(), qui peut toutefois en utiliser davantage.
+	 * 
+	 * @pre
+	 * 		0 <= budget
+	 * @post
+	 * 		getColorBudget() == budget
+	 * 		budget > 0 ==> aucun arc ne relie deux noeuds distincts de même
+	 * 			couleur
+	 */
+	void setColorBudget(int budget);
+	
+	/**
+	 * Créé un nouveau noeud et l'ajoute au graphe.
 	 * 
 	 * @post
 	 * 		!isSynchronized()
 	 * 		getNodesNb() == old getNodesNb() + 1
-	 * 		Il existe n appartenant  getNodes() tel que 
+	 * 		Il existe n appartenant à getNodes() tel que 
 	 * 			n.getNumber() == getNodesNb(),
 	 * 			n.getX() == PositionedNode.X_DEFAULT,
 	 * 			n.getY() == PositionedNode.Y_DEFAULT
@@ -179,12 +269,12 @@ public interface Graph extends ObservableModel, Serializable {
 	void addNode();
 	
 	/**
-	 * Cre un nouveau noeud de coordonnes (x,y) et l'ajoute au graphe.
+	 * Crée un nouveau noeud de coordonnées (x,y) et l'ajoute au graphe.
 	 * 
 	 * @post
 	 * 		!isSynchronized()
 	 * 		getNodesNb() == oldgetNodesNb() + 1
-	 * 		Il existe n appartenant  getNodes() tel que 
+	 * 		Il existe n appartenant à getNodes() tel que 
 	 * 			n.getNumber() == getNodesNb(),
 	 * 			n.getX() == x,
 	 * 			n.getY() == y
@@ -207,6 +297,8 @@ public interface Graph extends ObservableModel, Serializable {
 	 * 			!nd.equals(n) ==> getNodes().contains(nd)
 	 * 		forall n : getNodes()
 	 * 			n.getNumber() <= getNodesNb()
+	 * 		Seul le noeud qui portait le plus grand numéro peut changer de
+	 * 		numéro : il prend celui de n.
 	 */
 	void removeNode(PositionedNode n);
 	
@@ -232,7 +324,7 @@ public interface Graph extends ObservableModel, Serializable {
 	void removeNodes(Set<PositionedNode> nodes);
 	
 	/**
-	 * Ajoute un arc dj initialis au graphe.
+	 * Ajoute un arc déjà initialisé au graphe.
 	 * @pre
 	 * 		v != null
 	 * 		getNodes().contains(v.getNodes())
@@ -278,6 +370,33 @@ public interface Graph extends ObservableModel, Serializable {
 	 */ 	
 	void removeVertexes(Set<Edge> vertexes);
 	
+	/**
+	 * Applique au graphe l'ensemble des modifications du lot delta : les
+	 * arcs sont d'abord supprimés, puis les noeuds, avant que les nouveaux
+	 * noeuds et les nouveaux arcs ne soient ajoutés. Le lot est validé en
+	 * entier avant toute modification ; s'il n'est pas valide, le graphe
+	 * reste inchangé.
+	 * 
+	 * @pre
+	 * 		delta != null
+	 * 		forall v : delta.getRemovedVertexes()
+	 * 			getVertexes().contains(v)
+	 * 		forall n : delta.getRemovedNodes()
+	 * 			getNodes().contains(n)
+	 * 		forall v : delta.getAddedVertexes()
+	 * 			forall n : v.getNodes()
+	 * 				getNodes().contains(n)
+	 * 				!delta.getRemovedNodes().contains(n)
+	 * @post
+	 * 		!isSynchronized()
+	 * 		getNodesNb() == old getNodesNb()
+	 * 				- delta.getRemovedNodes().size()
+	 * 				+ delta.getAddedNodes().size()
+	 * 		forall v : delta.getAddedVertexes()
+	 * 			getVertexes().contains(v)
+	 */
+	void apply(GraphDelta delta);
+	
 	/**
 	 * Colorie le PositionedNode n avec la couleur c.
 	 * 
@@ -285,39 +404,55 @@ public interface Graph extends ObservableModel, Serializable {
 	 *		!isSYnchronized()
 	 * 		n != null
 	 * 		getNodes().contains(n)
-	 * 		c != null
-	 * 		PositionedNode.COLORS.contains(c)
+	 * 		c >= PositionedNode.COLOR_DEFAULT
 	 */
-	void colorizeNode(PositionedNode n, Color c);
+	void colorizeNode(PositionedNode n, int c);
 	
 	/**
-	 * Colorie tous les arcs du graphes de manire  utiliser le moins de
+	 * Colorie tous les arcs du graphes de manière à utiliser le moins de
 	 * couleur possible tout en garantissant que deux arcs adjacents ont une
-	 * couleur diffrente.
-	 * @throws NotEnoughColorException 
+	 * couleur différente.
 	 * 
 	 * @post
 	 * 		!isSynchronized()
-	 * 		areAdjacent(v1, v2) ==> !v1.getColor().equals(v2.getColor())
+	 * 		areAdjacent(v1, v2) ==> v1.getColor() != v2.getColor()
 	 * 		forall(Vertex v : getVertexes()) :
-	 * 			v.getColor() != null
+	 * 			v.getColor() >= PositionedNode.INDEX_COLOR_INIT
 	 */
-	void colorizeVertexes() throws NotEnoughColorsException;
+	void colorizeVertexes();
 	
 	/**
-	 * Colorie tous les noeuds du graphes de manire  utiliser le moins de
+	 * Colorie tous les noeuds du graphes de manière à utiliser le moins de
 	 * couleur possible tout en garantissant que deux noeuds adjacents ont une
-	 * couleur diffrente.
-	 * @throws NotEnoughColorException 
+	 * couleur différente.
 	 * 
 	 *  @post
 	 *  	isSynchronized()
 	 *  	areAdjacent(Node n1, Node n2)
-	 *  		==> !n1.getColor().equals(n2.getColor())
+	 *  		==> n1.getColor() != n2.getColor()
+	 *  	forall(Node n : getNodes()) :
+	 *  		n.getColor() >= PositionedNode.INDEX_COLOR_INIT
+	 */
+	void colorizeNodes();
+	
+	/**
+	 * Applique en une fois aux noeuds le coloriage res, calculé hors du
+	 * modèle : le noeud d'indice i reçoit la couleur res.getColors()[i].
+	 * Les algorithmes de coloriage autres que colorizeNodes() ne sont pas
+	 * des méthodes du graphe : ils travaillent sur asIntGraph() ou
+	 * snapshot() (ColoringResult.compute, ColoringResult.minimize,
+	 * ExactColoring.solve), et leur résultat est appliqué par cette
+	 * méthode.
+	 * 
+	 *  @pre
+	 *  	res != null
+	 *  	res.isValidFor(asIntGraph())
+	 *  @post
+	 *  	!isSynchronized()
 	 *  	forall(Node n : getNodes()) :
-	 *  		n.getColor() != null
+	 *  		n.getColor() == res.getColors()[n.getNumber() - 1]
 	 */
-	void colorizeNodes() throws NotEnoughColorsException;
+	void applyColoring(ColoringResult res);
 	
 	/**
 	 * Sauvegarde dans un fichier sur le disque dur le graphe.
@@ -328,7 +463,10 @@ public interface Graph extends ObservableModel, Serializable {
 	void save() throws IOException;
 	
 	/**
-	 * Charge depuis un fichier le graphe.
+	 * Charge depuis un fichier le graphe, en lui appliquant le journal du
+	 * fichier (voir GraphJournal). Si ce journal contient des brouillons
+	 * d'une session interrompue, ils sont repris, et le graphe n'est pas
+	 * synchronisé.
 	 * @throws IOException 
 	 * @pre
 	 * 		getFile() != null
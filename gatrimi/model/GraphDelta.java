@@ -0,0 +1,149 @@
+package gatrimi.model;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Un lot de modifications destiné à être appliqué en une seule fois à un
+ * graphe par Graph.apply(GraphDelta) : ajouts et suppressions de noeuds et
+ * d'arcs. Le lot est validé en entier avant d'être appliqué, et ne donne
+ * lieu qu'à un seul changement du modèle.
+ * 
+ * @cons
+ * 		$ARGS$
+ * 		$PRE$
+ * 		$POST$
+ * 			isEmpty()
+ */
+public class GraphDelta {
+	
+	//ATTRIBUTS
+	
+	/**
+	 * Les positions des noeuds à créer.
+	 */
+	private List<Point> addedNodes;
+	
+	/**
+	 * Les noeuds à supprimer.
+	 */
+	private Set<PositionedNode> removedNodes;
+	
+	/**
+	 * Les arcs à ajouter. Les doublons éventuels sont éliminés lors de
+	 * l'application, par l'ensemble des arcs du graphe.
+	 */
+	private List<Edge> addedVertexes;
+	
+	/**
+	 * Les arcs à supprimer.
+	 */
+	private Set<Edge> removedVertexes;
+	
+	//CONSTRUCTEURS
+	
+	public GraphDelta() {
+		addedNodes = new ArrayList<Point>();
+		removedNodes = new LinkedHashSet<PositionedNode>();
+		addedVertexes = new ArrayList<Edge>();
+		removedVertexes = new LinkedHashSet<Edge>();
+	}
+	
+	//REQUETES
+	
+	/**
+	 * Retourne les positions des noeuds à créer, dans l'ordre d'ajout.
+	 */
+	public List<Point> getAddedNodes() {
+		return Collections.unmodifiableList(addedNodes);
+	}
+	
+	/**
+	 * Retourne les noeuds à supprimer.
+	 */
+	public Set<PositionedNode> getRemovedNodes() {
+		return Collections.unmodifiableSet(removedNodes);
+	}
+	
+	/**
+	 * Retourne les arcs à ajouter, dans l'ordre d'ajout.
+	 */
+	public List<Edge> getAddedVertexes() {
+		return Collections.unmodifiableList(addedVertexes);
+	}
+	
+	/**
+	 * Retourne les arcs à supprimer.
+	 */
+	public Set<Edge> getRemovedVertexes() {
+		return Collections.unmodifiableSet(removedVertexes);
+	}
+	
+	/**
+	 * Retourne true si le lot ne contient aucune modification.
+	 */
+	public boolean isEmpty() {
+		return addedNodes.isEmpty() && removedNodes.isEmpty()
+				&& addedVertexes.isEmpty() && removedVertexes.isEmpty();
+	}
+	
+	//COMMANDES
+	
+	/**
+	 * Demande la création d'un noeud de coordonnées (x, y).
+	 * 
+	 * @pre
+	 * 		x >= 0
+	 * 		y >= 0
+	 */
+	public void addNode(int x, int y) {
+		if (x < 0 || y < 0) {
+			throw new IllegalArgumentException();
+		}
+		addedNodes.add(new Point(x, y));
+	}
+	
+	/**
+	 * Demande la suppression du noeud n et de ses arcs.
+	 * 
+	 * @pre
+	 * 		n != null
+	 */
+	public void removeNode(PositionedNode n) {
+		if (n == null) {
+			throw new IllegalArgumentException();
+		}
+		removedNodes.add(n);
+	}
+	
+	/**
+	 * Demande l'ajout de l'arc v. Les extrémités de v doivent être des noeuds
+	 * du graphe qui ne sont pas supprimés par ce lot.
+	 * 
+	 * @pre
+	 * 		v != null
+	 */
+	public void addVertex(Edge v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		addedVertexes.add(v);
+	}
+	
+	/**
+	 * Demande la suppression de l'arc v.
+	 * 
+	 * @pre
+	 * 		v != null
+	 */
+	public void removeVertex(Edge v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		removedVertexes.add(v);
+	}
+}
@@ -0,0 +1,616 @@
+package gatrimi.model;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
+
+/**
+ * Le format binaire des fichiers de graphe, et sa lecture et son écriture.
+ * Toutes les valeurs de taille fixe sont rangées poids fort en tête.
+ * <pre>
+ * en-tête      MAGIC, VERSION, nombre de noeuds n, nombre d'arcs m (int)
+ * noeuds       x[n], y[n], couleur[n] (int), par indice de noeud
+ * adjacence    pour chaque noeud, par indice :
+ *                degré d (varint),
+ *                d voisins triés, le premier tel quel, les suivants par
+ *                différence avec le précédent (varint),
+ *                les d couleurs des arcs correspondants (varint)
+ * index        n + 1 positions (long) des listes d'adjacence, à partir du
+ *                début de l'adjacence, la dernière marquant sa fin
+ * </pre>
+ * Un varint range un entier positif par groupes de 7 bits, poids faible en
+ * tête, le bit de poids fort de chaque octet indiquant qu'un autre suit.
+ * Chaque arc figure dans les listes de ses deux extrémités, une boucle une
+ * seule fois. L'index, en fin de fichier, permet d'atteindre la liste d'un
+ * noeud sans décoder les précédentes : MappedGraph lit ainsi un fichier en
+ * place, sans le charger.
+ */
+public final class GraphFile {
+
+	//ATTRIBUTS
+
+	/**
+	 * Les quatre premiers octets d'un fichier de graphe : "GTRG".
+	 */
+	static final int MAGIC = 0x47545247;
+
+	/**
+	 * La version du format écrite par write.
+	 */
+	static final int VERSION = 1;
+
+	/**
+	 * La taille de l'en-tête, en octets.
+	 */
+	static final int HEADER_SIZE = 16;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	//CONSTRUCTEURS
+
+	private GraphFile() {
+		// rien
+	}
+
+	//COMMANDES
+
+	/**
+	 * Ecrit le graphe g sur out, qui n'est ni vidé ni fermé.
+	 *
+	 * @pre
+	 * 		g != null
+	 * 		out != null
+	 */
+	public static void write(Graph g, OutputStream out) throws IOException {
+		if (g == null || out == null) {
+			throw new IllegalArgumentException();
+		}
+		capture(g).write(out);
+	}
+
+	/**
+	 * Lit sur in un graphe écrit par write, et le retourne sous la forme
+	 * d'un ListGraph. in n'est pas fermé.
+	 *
+	 * @pre
+	 * 		in != null
+	 * @throws IOException si in ne contient pas un graphe de ce format
+	 */
+	public static ListGraph read(InputStream in) throws IOException {
+		if (in == null) {
+			throw new IllegalArgumentException();
+		}
+		ListGraph g = new ListGraph();
+		g.read(in);
+		return g;
+	}
+
+	/**
+	 * Lit sur in un graphe écrit par write, en transmettant à sink ses
+	 * noeuds puis ses arcs au fil de la lecture. sink.end() n'est appelée
+	 * que si le fichier entier est correct. in n'est pas fermé.
+	 *
+	 * @pre
+	 * 		in != null
+	 * 		sink != null
+	 * @throws IOException si in ne contient pas un graphe de ce format
+	 */
+	static void read(InputStream in, Sink sink) throws IOException {
+		if (in == null || sink == null) {
+			throw new IllegalArgumentException();
+		}
+		Input r = new Input(in);
+		int n = readHeader(r);
+		int m = r.readInt();
+		if (m < 0) {
+			throw new IOException("Fichier de graphe corrompu");
+		}
+		sink.begin(n, m);
+		int[] xs = r.readInts(n);
+		int[] ys = r.readInts(n);
+		int[] colors = r.readInts(n);
+		for (int i = 0; i < n; i++) {
+			checkColor(colors[i]);
+			sink.node(xs[i], ys[i], colors[i]);
+		}
+
+		int[] neighbors = new int[0];
+		int edgesNb = 0;
+		for (int i = 0; i < n; i++) {
+			int d = r.readVarInt();
+			if (d > 2 * m) {
+				throw new IOException("Fichier de graphe corrompu");
+			}
+			if (neighbors.length < d) {
+				neighbors = new int[d];
+			}
+			int j = 0;
+			for (int k = 0; k < d; k++) {
+				j += r.readVarInt();
+				if (j >= n) {
+					throw new IOException("Fichier de graphe corrompu");
+				}
+				neighbors[k] = j;
+			}
+			for (int k = 0; k < d; k++) {
+				int c = r.readVarInt();
+				checkColor(c);
+				if (neighbors[k] >= i) {
+					if (++edgesNb > m) {
+						throw new IOException("Fichier de graphe corrompu");
+					}
+					sink.edge(i, neighbors[k], c);
+				}
+			}
+		}
+		if (edgesNb != m) {
+			throw new IOException("Fichier de graphe corrompu");
+		}
+		sink.end();
+	}
+
+	//OUTILS
+
+	/**
+	 * Transmet à sink les noeuds puis les arcs de g, comme le ferait la
+	 * lecture d'un fichier où g aurait été enregistré. Les éléments de g
+	 * ne sont que lus : sink en construit ses propres copies.
+	 *
+	 * @pre
+	 * 		g != null
+	 * 		sink != null
+	 */
+	static void copy(Graph g, final Sink sink) {
+		if (g == null || sink == null) {
+			throw new IllegalArgumentException();
+		}
+		final PositionedNode[] byIndex = new PositionedNode[g.getNodesNb()];
+		g.forEachNode(new Visitor<PositionedNode>() {
+			@Override
+			public void visit(PositionedNode node) {
+				byIndex[node.getNumber() - 1] = node;
+			}
+		});
+		sink.begin(byIndex.length, g.getVertexesNb());
+		for (PositionedNode node : byIndex) {
+			sink.node(node.getX(), node.getY(), node.getColor());
+		}
+		g.forEachEdge(new Visitor<Edge>() {
+			@Override
+			public void visit(Edge v) {
+				PositionedNode[] nTab = v.getNodes();
+				int i = nTab[0].getNumber() - 1;
+				int j = nTab[1].getNumber() - 1;
+				sink.edge(Math.min(i, j), Math.max(i, j), v.getColor());
+			}
+		});
+		sink.end();
+	}
+
+	/**
+	 * Copie le contenu de g dans des tableaux, en O(n + m). La copie peut
+	 * être enregistrée dans un autre fil de calcul pendant que g continue
+	 * d'être modifié.
+	 *
+	 * @pre
+	 * 		g != null
+	 */
+	public static Content capture(Graph g) {
+		int n = g.getNodesNb();
+		final int[] xs = new int[n];
+		final int[] ys = new int[n];
+		final int[] colors = new int[n];
+		g.forEachNode(new Visitor<PositionedNode>() {
+			@Override
+			public void visit(PositionedNode node) {
+				int i = node.getNumber() - 1;
+				xs[i] = node.getX();
+				ys[i] = node.getY();
+				colors[i] = node.getColor();
+			}
+		});
+		final int m = g.getVertexesNb();
+		final int[] ends = new int[2 * m];
+		final int[] edgeColors = new int[m];
+		g.forEachEdge(new Visitor<Edge>() {
+			private int e;
+			@Override
+			public void visit(Edge v) {
+				PositionedNode[] nTab = v.getNodes();
+				ends[2 * e] = nTab[0].getNumber() - 1;
+				ends[2 * e + 1] = nTab[1].getNumber() - 1;
+				edgeColors[e] = v.getColor();
+				e++;
+			}
+		});
+		return new Content(xs, ys, colors, ends, edgeColors);
+	}
+
+	/**
+	 * Lit l'en-tête jusqu'au nombre de noeuds compris, et le retourne.
+	 */
+	static int readHeader(Input r) throws IOException {
+		int magic = r.readInt();
+		checkMagic(magic);
+		int version = r.readInt();
+		int n = r.readInt();
+		checkHeader(magic, version, n);
+		return n;
+	}
+
+	/**
+	 * Vérifie les trois premiers champs de l'en-tête.
+	 */
+	static void checkHeader(int magic, int version, int n)
+			throws IOException {
+		checkMagic(magic);
+		if (version != VERSION) {
+			throw new IOException("Version de fichier non prise en charge : "
+					+ version);
+		}
+		if (n < 0) {
+			throw new IOException("Fichier de graphe corrompu");
+		}
+	}
+
+	private static void checkMagic(int magic) throws IOException {
+		if (magic != MAGIC) {
+			throw new IOException("Ce fichier n'est pas un graphe");
+		}
+	}
+
+	private static void checkColor(int c) throws IOException {
+		if (c < PositionedNode.COLOR_DEFAULT) {
+			throw new IOException("Fichier de graphe corrompu");
+		}
+	}
+
+	//CLASSES INTERNES
+
+	/**
+	 * Une copie figée du contenu d'un graphe, prise par capture(g),
+	 * et son écriture. Elle ne partage rien avec le graphe, et peut être
+	 * enregistrée dans un autre fil de calcul pendant que celui-ci change.
+	 */
+	public static final class Content {
+		private final int[] xs;
+		private final int[] ys;
+		private final int[] colors;
+
+		/**
+		 * Les indices des extrémités de chaque arc, et sa couleur.
+		 */
+		private final int[] ends;
+		private final int[] edgeColors;
+
+		Content(int[] xs, int[] ys, int[] colors, int[] ends,
+				int[] edgeColors) {
+			this.xs = xs;
+			this.ys = ys;
+			this.colors = colors;
+			this.ends = ends;
+			this.edgeColors = edgeColors;
+		}
+
+		int getNodesNb() {
+			return xs.length;
+		}
+
+		int getX(int i) {
+			return xs[i];
+		}
+
+		int getY(int i) {
+			return ys[i];
+		}
+
+		int getColor(int i) {
+			return colors[i];
+		}
+
+		/**
+		 * Range chaque arc dans la liste de son extrémité de plus petit
+		 * indice : celle du noeud u occupe les cases starts[u] ..
+		 * starts[u + 1] - 1 du résultat, triée, chaque arc y figurant sous
+		 * la forme (autre extrémité << 32) | couleur.
+		 *
+		 * @pre
+		 * 		starts.length == getNodesNb() + 1
+		 */
+		long[] lowerLists(int[] starts) {
+			int n = xs.length;
+			int m = edgeColors.length;
+			Arrays.fill(starts, 0);
+			for (int e = 0; e < m; e++) {
+				starts[Math.min(ends[2 * e], ends[2 * e + 1]) + 1]++;
+			}
+			for (int i = 0; i < n; i++) {
+				starts[i + 1] += starts[i];
+			}
+			long[] res = new long[m];
+			int[] next = starts.clone();
+			for (int e = 0; e < m; e++) {
+				int u = Math.min(ends[2 * e], ends[2 * e + 1]);
+				int v = Math.max(ends[2 * e], ends[2 * e + 1]);
+				res[next[u]++] = ((long) v << 32) | edgeColors[e];
+			}
+			for (int i = 0; i < n; i++) {
+				Arrays.sort(res, starts[i], starts[i + 1]);
+			}
+			return res;
+		}
+
+		/**
+		 * Ecrit le contenu sur out, qui n'est ni vidé ni fermé.
+		 *
+		 * @pre
+		 * 		out != null
+		 */
+		public void write(OutputStream out) throws IOException {
+			if (out == null) {
+				throw new IllegalArgumentException();
+			}
+			//Les listes d'adjacence : (voisin, couleur) empaquetés dans un
+			//long, pour trier chaque liste par voisin
+			int n = xs.length;
+			int m = edgeColors.length;
+			int[] starts = new int[n + 1];
+			for (int e = 0; e < m; e++) {
+				starts[ends[2 * e] + 1]++;
+				if (ends[2 * e + 1] != ends[2 * e]) {
+					starts[ends[2 * e + 1] + 1]++;
+				}
+			}
+			for (int i = 0; i < n; i++) {
+				starts[i + 1] += starts[i];
+			}
+			long[] entries = new long[starts[n]];
+			int[] next = starts.clone();
+			for (int e = 0; e < m; e++) {
+				int u = ends[2 * e];
+				int v = ends[2 * e + 1];
+				entries[next[u]++] = ((long) v << 32) | edgeColors[e];
+				if (v != u) {
+					entries[next[v]++] = ((long) u << 32) | edgeColors[e];
+				}
+			}
+
+			Output o = new Output(out);
+			o.writeInt(MAGIC);
+			o.writeInt(VERSION);
+			o.writeInt(n);
+			o.writeInt(m);
+			for (int x : xs) {
+				o.writeInt(x);
+			}
+			for (int y : ys) {
+				o.writeInt(y);
+			}
+			for (int c : colors) {
+				o.writeInt(c);
+			}
+			long[] positions = new long[n + 1];
+			long adjacencyStart = o.getWritten();
+			for (int i = 0; i < n; i++) {
+				positions[i] = o.getWritten() - adjacencyStart;
+				Arrays.sort(entries, starts[i], starts[i + 1]);
+				o.writeVarInt(starts[i + 1] - starts[i]);
+				int previous = 0;
+				for (int k = starts[i]; k < starts[i + 1]; k++) {
+					int j = (int) (entries[k] >>> 32);
+					o.writeVarInt(j - previous);
+					previous = j;
+				}
+				for (int k = starts[i]; k < starts[i + 1]; k++) {
+					o.writeVarInt((int) entries[k]);
+				}
+			}
+			positions[n] = o.getWritten() - adjacencyStart;
+			for (long p : positions) {
+				o.writeLong(p);
+			}
+			o.flush();
+		}
+
+		/**
+		 * Remplace file par le contenu. Celui-ci est d'abord écrit dans un
+		 * fichier temporaire du même répertoire, forcé sur le disque, qui
+		 * est ensuite renommé en file : une interruption de l'écriture
+		 * laisse file intact.
+		 *
+		 * @pre
+		 * 		file != null
+		 */
+		public void save(File file) throws IOException {
+			if (file == null) {
+				throw new IllegalArgumentException();
+			}
+			save(file, new CRC32());
+		}
+
+		/**
+		 * Comme save(file), en calculant au passage dans checksum la somme
+		 * de contrôle du fichier écrit.
+		 */
+		void save(File file, Checksum checksum) throws IOException {
+			File dir = file.getAbsoluteFile().getParentFile();
+			File tmp = File.createTempFile("." + file.getName() + "-",
+					".tmp", dir);
+			boolean done = false;
+			try {
+				FileOutputStream output = new FileOutputStream(tmp);
+				try {
+					write(new CheckedOutputStream(output, checksum));
+					output.getFD().sync();
+				} finally {
+					output.close();
+				}
+				//Le renommage remplace file d'un coup sur les systèmes POSIX ;
+				//ailleurs, il faut d'abord supprimer file
+				if (!tmp.renameTo(file)
+						&& !(file.delete() && tmp.renameTo(file))) {
+					throw new IOException("Impossible de remplacer " + file);
+				}
+				done = true;
+			} finally {
+				if (!done) {
+					tmp.delete();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Le destinataire des éléments d'un graphe lus par read, qui construit
+	 * directement sa représentation, sans vérification élément par élément :
+	 * read garantit des indices de noeuds valides, et chaque arc n'est
+	 * transmis qu'une fois.
+	 */
+	interface Sink {
+		/**
+		 * Appelée en premier, avec les nombres de noeuds et d'arcs de
+		 * l'en-tête, afin de dimensionner la représentation.
+		 */
+		void begin(int nodesNb, int edgesNb);
+
+		/**
+		 * Le noeud suivant, par indice croissant.
+		 */
+		void node(int x, int y, int color);
+
+		/**
+		 * L'arc entre les noeuds d'indices i et j, i <= j, une fois tous les
+		 * noeuds transmis.
+		 */
+		void edge(int i, int j, int color);
+
+		/**
+		 * Appelée en dernier, si le fichier a été entièrement lu sans erreur.
+		 */
+		void end();
+	}
+
+	/**
+	 * L'écriture tamponnée des valeurs du format.
+	 */
+	static final class Output {
+		private final OutputStream out;
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private int pos;
+		private long flushed;
+
+		Output(OutputStream out) {
+			this.out = out;
+		}
+
+		/**
+		 * Le nombre d'octets écrits depuis la création.
+		 */
+		long getWritten() {
+			return flushed + pos;
+		}
+
+		void writeInt(int v) throws IOException {
+			ensure(4);
+			buffer[pos++] = (byte) (v >>> 24);
+			buffer[pos++] = (byte) (v >>> 16);
+			buffer[pos++] = (byte) (v >>> 8);
+			buffer[pos++] = (byte) v;
+		}
+
+		void writeLong(long v) throws IOException {
+			writeInt((int) (v >>> 32));
+			writeInt((int) v);
+		}
+
+		/**
+		 * @pre
+		 * 		v >= 0
+		 */
+		void writeVarInt(int v) throws IOException {
+			ensure(5);
+			while ((v & ~0x7F) != 0) {
+				buffer[pos++] = (byte) ((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			buffer[pos++] = (byte) v;
+		}
+
+		void flush() throws IOException {
+			out.write(buffer, 0, pos);
+			flushed += pos;
+			pos = 0;
+		}
+
+		private void ensure(int size) throws IOException {
+			if (pos + size > buffer.length) {
+				flush();
+			}
+		}
+	}
+
+	/**
+	 * La lecture tamponnée des valeurs du format.
+	 */
+	static final class Input {
+		private final InputStream in;
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private int pos;
+		private int limit;
+
+		Input(InputStream in) {
+			this.in = in;
+		}
+
+		int readByte() throws IOException {
+			if (pos == limit) {
+				limit = in.read(buffer);
+				pos = 0;
+				if (limit <= 0) {
+					limit = 0;
+					throw new EOFException();
+				}
+			}
+			return buffer[pos++] & 0xFF;
+		}
+
+		int readInt() throws IOException {
+			return (readByte() << 24) | (readByte() << 16)
+					| (readByte() << 8) | readByte();
+		}
+
+		long readLong() throws IOException {
+			return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+		}
+
+		int[] readInts(int count) throws IOException {
+			int[] res = new int[count];
+			for (int i = 0; i < count; i++) {
+				res[i] = readInt();
+			}
+			return res;
+		}
+
+		int readVarInt() throws IOException {
+			int v = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				int b = readByte();
+				v |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					if (v < 0) {
+						throw new IOException("Fichier de graphe corrompu");
+					}
+					return v;
+				}
+			}
+			throw new IOException("Fichier de graphe corrompu");
+		}
+	}
+}
@@ -0,0 +1,815 @@
+package gatrimi.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Le journal des sauvegardes d'un fichier de graphe, rangé à côté de lui
+ * sous le nom du fichier suivi de ".journal". Plutôt que de réécrire tout
+ * le fichier, une sauvegarde y ajoute la différence entre le contenu
+ * enregistré et le contenu courant : quelques octets pour une petite
+ * modification. Le journal est replié dans le fichier, réécrit en entier,
+ * quand il en dépasse le quart de la taille, et à sa fermeture.
+ * <pre>
+ * en-tête      MAGIC, VERSION (int), taille (long) et CRC32 (int) du
+ *                fichier auquel le journal s'applique
+ * lots         type (octet), taille t des données (int), t octets de
+ *                données, CRC32 du type, de la taille et des données (int)
+ * données      nombre d'enregistrements, puis les enregistrements, dont
+ *                tous les champs sont des varint :
+ *                NODES n         le graphe a désormais n noeuds
+ *                NODE i x y c    le noeud i est en (x, y), de couleur c
+ *                LINK i d c      l'arc (i, i + d) existe, de couleur c
+ *                UNLINK i d      l'arc (i, i + d) n'existe plus
+ * </pre>
+ * Un lot COMMIT est une sauvegarde. Un lot DRAFT est un brouillon, écrit
+ * régulièrement pendant l'édition : il permet de reprendre une session non
+ * enregistrée après un arrêt brutal. Un lot dont l'écriture a été
+ * interrompue, que son CRC trahit, est ignoré avec ceux qui le suivent ;
+ * un journal dont l'en-tête ne correspond plus au fichier, réécrit en
+ * entier depuis, est ignoré.
+ * Les différences sont calculées entre des copies prises par
+ * GraphFile.capture(g) : les noeuds se déplacent et changent de couleur sans en
+ * avertir leur graphe, qui ne peut donc pas consigner chaque modification
+ * au moment où elle se produit.
+ * Un GraphJournal ne doit être utilisé que par un fil de calcul à la fois.
+ */
+public final class GraphJournal {
+
+	//ATTRIBUTS
+
+	/**
+	 * Les quatre premiers octets d'un journal : "GTRJ".
+	 */
+	static final int MAGIC = 0x4754524A;
+
+	/**
+	 * La version du format de journal.
+	 */
+	static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 20;
+
+	/**
+	 * La taille d'un lot, données non comprises.
+	 */
+	private static final int BATCH_OVERHEAD = 9;
+
+	/**
+	 * Les types de lot.
+	 */
+	private static final int COMMIT = 1;
+	private static final int DRAFT = 2;
+
+	/**
+	 * Les types d'enregistrement.
+	 */
+	private static final int NODES = 0;
+	private static final int NODE = 1;
+	private static final int LINK = 2;
+	private static final int UNLINK = 3;
+
+	/**
+	 * Le journal est replié dans le fichier dès qu'il dépasse la taille de
+	 * celui-ci divisée par COMPACTION_RATIO.
+	 */
+	private static final int COMPACTION_RATIO = 4;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final File file;
+	private final File journal;
+
+	/**
+	 * Le contenu décrit par le fichier et le journal entier, ou null une
+	 * fois le journal fermé.
+	 */
+	private GraphFile.Content last;
+
+	/**
+	 * La taille et le CRC32 du fichier, baseLength valant -1 tant qu'ils
+	 * n'ont pas été calculés.
+	 */
+	private long baseLength;
+	private int baseCrc;
+
+	/**
+	 * La taille de la partie valide du journal, 0 s'il n'existe pas.
+	 */
+	private long length;
+
+	/**
+	 * La fin du dernier lot COMMIT, ou de l'en-tête s'il n'y en a pas.
+	 */
+	private long committed;
+
+	//CONSTRUCTEURS
+
+	/**
+	 * Reprend le journal de file, dont le contenu, journal compris, est
+	 * content : typiquement le graphe que Graph.load() vient d'y lire. Un
+	 * journal qui ne s'applique plus à file est supprimé.
+	 *
+	 * @pre
+	 * 		file != null
+	 * 		content != null
+	 */
+	public GraphJournal(File file, GraphFile.Content content)
+			throws IOException {
+		this(file);
+		if (content == null) {
+			throw new IllegalArgumentException();
+		}
+		last = content;
+		Log log = Log.read(journal);
+		if (log != null) {
+			long size = file.length();
+			int crc = checksum(file);
+			if (log.appliesTo(size, crc)) {
+				baseLength = size;
+				baseCrc = crc;
+				length = log.end;
+				committed = log.committed;
+			} else {
+				journal.delete();
+			}
+		}
+	}
+
+	private GraphJournal(File file) {
+		if (file == null) {
+			throw new IllegalArgumentException();
+		}
+		this.file = file;
+		journal = fileOf(file);
+		baseLength = -1;
+	}
+
+	//REQUETES
+
+	/**
+	 * Le fichier de graphe dont c'est le journal.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Le journal du fichier de graphe file.
+	 *
+	 * @pre
+	 * 		file != null
+	 */
+	public static File fileOf(File file) {
+		if (file == null) {
+			throw new IllegalArgumentException();
+		}
+		return new File(file.getPath() + ".journal");
+	}
+
+	/**
+	 * Retourne true si file a un journal non vide qui s'applique à lui : le
+	 * fichier seul ne contient alors pas le graphe enregistré.
+	 */
+	static boolean isPending(File file) throws IOException {
+		Log log = Log.read(fileOf(file));
+		return log != null && log.end > HEADER_SIZE
+				&& log.appliesTo(file.length(), checksum(file));
+	}
+
+	//COMMANDES
+
+	/**
+	 * Remplace file par content, écrit en entier, et retourne un journal
+	 * vide pour les sauvegardes suivantes.
+	 *
+	 * @pre
+	 * 		file != null
+	 * 		content != null
+	 */
+	public static GraphJournal create(File file, GraphFile.Content content)
+			throws IOException {
+		if (content == null) {
+			throw new IllegalArgumentException();
+		}
+		GraphJournal res = new GraphJournal(file);
+		res.rebase(content);
+		res.last = content;
+		return res;
+	}
+
+	/**
+	 * Enregistre content, qui devient le contenu du fichier : seule sa
+	 * différence avec le contenu précédent est ajoutée au journal, à moins
+	 * que celui-ci ne devienne trop long, auquel cas il est replié dans le
+	 * fichier.
+	 *
+	 * @pre
+	 * 		content != null
+	 * 		le journal n'est pas fermé
+	 */
+	public void commit(GraphFile.Content content) throws IOException {
+		byte[] batch = batch(COMMIT, content);
+		if (batch == null) {
+			return;
+		}
+		long limit = HEADER_SIZE + file.length() / COMPACTION_RATIO;
+		if (Math.max(length, HEADER_SIZE) + batch.length > limit) {
+			rebase(content);
+			last = content;
+		} else {
+			append(batch, content);
+			committed = length;
+		}
+	}
+
+	/**
+	 * Ajoute au journal un brouillon de content, que Graph.load() reprendra
+	 * si le journal n'est ni fermé ni complété par une sauvegarde.
+	 *
+	 * @pre
+	 * 		content != null
+	 * 		le journal n'est pas fermé
+	 */
+	public void draft(GraphFile.Content content) throws IOException {
+		byte[] batch = batch(DRAFT, content);
+		if (batch != null) {
+			append(batch, content);
+		}
+	}
+
+	/**
+	 * Ferme le journal en le repliant dans le fichier : les sauvegardes y
+	 * sont reportées, les brouillons abandonnés. Le journal ne peut plus
+	 * servir ensuite.
+	 */
+	public void close() throws IOException {
+		if (last == null) {
+			return;
+		}
+		GraphFile.Content content = last;
+		last = null;
+		if (length == 0) {
+			return;
+		}
+		if (committed == HEADER_SIZE) {
+			//Le fichier contient déjà le contenu enregistré
+			journal.delete();
+			return;
+		}
+		if (length > committed) {
+			//Le contenu enregistré n'est que sur le disque
+			CRC32 crc = new CRC32();
+			GraphFile.Content base = readBase(file, crc);
+			Log log = Log.read(journal);
+			if (log == null || !log.appliesTo(file.length(),
+					(int) crc.getValue())) {
+				throw new IOException("Journal de graphe corrompu");
+			}
+			content = log.replay(base, log.committed);
+		}
+		rebase(content);
+	}
+
+	/**
+	 * Abandonne les brouillons du journal de file : Graph.load() relira le
+	 * contenu enregistré.
+	 *
+	 * @pre
+	 * 		file != null
+	 */
+	public static void discardDrafts(File file) throws IOException {
+		Log log = Log.read(fileOf(file));
+		if (log == null || log.end == log.committed) {
+			return;
+		}
+		RandomAccessFile raf = new RandomAccessFile(fileOf(file), "rw");
+		try {
+			raf.setLength(log.committed);
+			raf.getFD().sync();
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Lit le graphe enregistré dans file en lui appliquant son journal,
+	 * brouillons compris, et transmet ses éléments à sink. Retourne true si
+	 * des brouillons ont été repris : le graphe lu diffère alors du dernier
+	 * contenu enregistré.
+	 *
+	 * @pre
+	 * 		file != null
+	 * 		sink != null
+	 * @throws IOException si file ne contient pas un graphe
+	 */
+	static boolean read(File file, GraphFile.Sink sink) throws IOException {
+		if (file == null || sink == null) {
+			throw new IllegalArgumentException();
+		}
+		if (!fileOf(file).exists()) {
+			InputStream input = new FileInputStream(file);
+			try {
+				GraphFile.read(input, sink);
+			} finally {
+				input.close();
+			}
+			return false;
+		}
+		CRC32 crc = new CRC32();
+		GraphFile.Content base = readBase(file, crc);
+		Log log = Log.read(fileOf(file));
+		if (log == null
+				|| !log.appliesTo(file.length(), (int) crc.getValue())) {
+			feed(base, sink);
+			return false;
+		}
+		feed(log.replay(base, log.end), sink);
+		return log.end > log.committed;
+	}
+
+	//OUTILS
+
+	/**
+	 * Vérifie que le journal est ouvert, puis retourne le lot de type kind
+	 * qui mène de last à content, ou null s'il n'y a rien à écrire.
+	 */
+	private byte[] batch(int kind, GraphFile.Content content)
+			throws IOException {
+		if (content == null) {
+			throw new IllegalArgumentException();
+		}
+		if (last == null) {
+			throw new IllegalStateException();
+		}
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		GraphFile.Output out = new GraphFile.Output(records);
+		int count = diff(last, content, out);
+		out.flush();
+		//Une sauvegarde sans changement marque encore les brouillons
+		if (count == 0 && (kind == DRAFT || length == committed)) {
+			return null;
+		}
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		out = new GraphFile.Output(data);
+		out.writeVarInt(count);
+		out.flush();
+		records.writeTo(data);
+
+		int size = data.size();
+		byte[] res = new byte[BATCH_OVERHEAD + size];
+		res[0] = (byte) kind;
+		putInt(res, 1, size);
+		System.arraycopy(data.toByteArray(), 0, res, 5, size);
+		CRC32 crc = new CRC32();
+		crc.update(res, 0, 5 + size);
+		putInt(res, 5 + size, (int) crc.getValue());
+		return res;
+	}
+
+	/**
+	 * Ajoute batch au journal, créé au besoin, et le force sur le disque.
+	 * Une éventuelle fin interrompue est écrasée.
+	 */
+	private void append(byte[] batch, GraphFile.Content content)
+			throws IOException {
+		long start = length;
+		byte[] header = null;
+		if (start == 0) {
+			if (baseLength < 0) {
+				baseLength = file.length();
+				baseCrc = checksum(file);
+			}
+			header = new byte[HEADER_SIZE];
+			putInt(header, 0, MAGIC);
+			putInt(header, 4, VERSION);
+			putInt(header, 8, (int) (baseLength >>> 32));
+			putInt(header, 12, (int) baseLength);
+			putInt(header, 16, baseCrc);
+		}
+		RandomAccessFile raf = new RandomAccessFile(journal, "rw");
+		try {
+			if (header != null) {
+				raf.write(header);
+				start = HEADER_SIZE;
+				committed = HEADER_SIZE;
+			}
+			raf.seek(start);
+			raf.write(batch);
+			raf.setLength(start + batch.length);
+			raf.getFD().sync();
+		} finally {
+			raf.close();
+		}
+		length = start + batch.length;
+		last = content;
+	}
+
+	/**
+	 * Réécrit le fichier en entier avec content, et supprime le journal.
+	 * Si l'écriture est interrompue avant la suppression, le journal ne
+	 * s'applique plus au nouveau fichier et sera ignoré.
+	 */
+	private void rebase(GraphFile.Content content) throws IOException {
+		CRC32 crc = new CRC32();
+		content.save(file, crc);
+		baseLength = file.length();
+		baseCrc = (int) crc.getValue();
+		length = 0;
+		committed = 0;
+		journal.delete();
+	}
+
+	/**
+	 * Ecrit sur out les enregistrements qui mènent de from à to, et
+	 * retourne leur nombre. Le nombre de noeuds change avant les autres
+	 * enregistrements s'il augmente, et après eux s'il diminue : chacun ne
+	 * désigne ainsi que des noeuds existants lorsqu'il est rejoué.
+	 */
+	private static int diff(GraphFile.Content from, GraphFile.Content to,
+			GraphFile.Output out) throws IOException {
+		int count = 0;
+		int n0 = from.getNodesNb();
+		int n1 = to.getNodesNb();
+		if (n1 > n0) {
+			out.writeVarInt(NODES);
+			out.writeVarInt(n1);
+			count++;
+		}
+		for (int i = 0; i < n1; i++) {
+			if (i >= n0 || from.getX(i) != to.getX(i)
+					|| from.getY(i) != to.getY(i)
+					|| from.getColor(i) != to.getColor(i)) {
+				out.writeVarInt(NODE);
+				out.writeVarInt(i);
+				out.writeVarInt(to.getX(i));
+				out.writeVarInt(to.getY(i));
+				out.writeVarInt(to.getColor(i));
+				count++;
+			}
+		}
+
+		int[] starts0 = new int[n0 + 1];
+		long[] lists0 = from.lowerLists(starts0);
+		int[] starts1 = new int[n1 + 1];
+		long[] lists1 = to.lowerLists(starts1);
+		for (int u = 0; u < Math.max(n0, n1); u++) {
+			int k0 = u < n0 ? starts0[u] : 0;
+			int end0 = u < n0 ? starts0[u + 1] : 0;
+			int k1 = u < n1 ? starts1[u] : 0;
+			int end1 = u < n1 ? starts1[u + 1] : 0;
+			while (k0 < end0 || k1 < end1) {
+				long v0 = k0 < end0 ? lists0[k0] >>> 32 : Long.MAX_VALUE;
+				long v1 = k1 < end1 ? lists1[k1] >>> 32 : Long.MAX_VALUE;
+				if (v0 < v1) {
+					out.writeVarInt(UNLINK);
+					out.writeVarInt(u);
+					out.writeVarInt((int) v0 - u);
+					count++;
+					k0++;
+				} else {
+					int c = (int) lists1[k1];
+					if (v0 != v1 || (int) lists0[k0] != c) {
+						out.writeVarInt(LINK);
+						out.writeVarInt(u);
+						out.writeVarInt((int) v1 - u);
+						out.writeVarInt(c);
+						count++;
+					}
+					if (v0 == v1) {
+						k0++;
+					}
+					k1++;
+				}
+			}
+		}
+		if (n1 < n0) {
+			out.writeVarInt(NODES);
+			out.writeVarInt(n1);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Transmet à sink les noeuds puis les arcs de content.
+	 */
+	private static void feed(GraphFile.Content content, GraphFile.Sink sink) {
+		int n = content.getNodesNb();
+		int[] starts = new int[n + 1];
+		long[] lists = content.lowerLists(starts);
+		sink.begin(n, lists.length);
+		for (int i = 0; i < n; i++) {
+			sink.node(content.getX(i), content.getY(i), content.getColor(i));
+		}
+		for (int u = 0; u < n; u++) {
+			for (int k = starts[u]; k < starts[u + 1]; k++) {
+				sink.edge(u, (int) (lists[k] >>> 32), (int) lists[k]);
+			}
+		}
+		sink.end();
+	}
+
+	/**
+	 * Lit le fichier de graphe file en entier, en calculant son CRC32 dans
+	 * crc.
+	 */
+	private static GraphFile.Content readBase(File file, CRC32 crc)
+			throws IOException {
+		InputStream input = new CheckedInputStream(new FileInputStream(file),
+				crc);
+		try {
+			Collector collector = new Collector();
+			GraphFile.read(input, collector);
+			//L'index de fin de fichier compte aussi dans le CRC
+			byte[] buffer = new byte[BUFFER_SIZE];
+			while (input.read(buffer) >= 0) {
+				// rien
+			}
+			return collector.content();
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Le CRC32 du fichier file.
+	 */
+	private static int checksum(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		InputStream input = new CheckedInputStream(new FileInputStream(file),
+				crc);
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			while (input.read(buffer) >= 0) {
+				// rien
+			}
+		} finally {
+			input.close();
+		}
+		return (int) crc.getValue();
+	}
+
+	private static void putInt(byte[] b, int pos, int v) {
+		b[pos] = (byte) (v >>> 24);
+		b[pos + 1] = (byte) (v >>> 16);
+		b[pos + 2] = (byte) (v >>> 8);
+		b[pos + 3] = (byte) v;
+	}
+
+	private static int intAt(byte[] b, int pos) {
+		return ((b[pos] & 0xFF) << 24) | ((b[pos + 1] & 0xFF) << 16)
+				| ((b[pos + 2] & 0xFF) << 8) | (b[pos + 3] & 0xFF);
+	}
+
+	//CLASSES INTERNES
+
+	/**
+	 * Un journal lu en entier, jusqu'à son premier lot incomplet.
+	 */
+	private static final class Log {
+		private final byte[] data;
+
+		/**
+		 * La fin du dernier lot complet.
+		 */
+		private int end;
+
+		/**
+		 * La fin du dernier lot COMMIT, ou de l'en-tête.
+		 */
+		private int committed;
+
+		private Log(byte[] data) throws IOException {
+			this.data = data;
+			if (intAt(data, 0) != MAGIC) {
+				throw new IOException("Ce fichier n'est pas un journal de "
+						+ "graphe");
+			}
+			if (intAt(data, 4) != VERSION) {
+				throw new IOException("Version de journal non prise en "
+						+ "charge : " + intAt(data, 4));
+			}
+			int pos = HEADER_SIZE;
+			end = pos;
+			committed = pos;
+			while (data.length - pos >= BATCH_OVERHEAD) {
+				int kind = data[pos];
+				int size = intAt(data, pos + 1);
+				if ((kind != COMMIT && kind != DRAFT) || size < 0
+						|| size > data.length - pos - BATCH_OVERHEAD) {
+					break;
+				}
+				CRC32 crc = new CRC32();
+				crc.update(data, pos, 5 + size);
+				if (intAt(data, pos + 5 + size) != (int) crc.getValue()) {
+					break;
+				}
+				pos += BATCH_OVERHEAD + size;
+				end = pos;
+				if (kind == COMMIT) {
+					committed = pos;
+				}
+			}
+		}
+
+		/**
+		 * Lit le journal f, ou retourne null s'il n'existe pas ou si son
+		 * en-tête n'a pas été écrit en entier.
+		 */
+		static Log read(File f) throws IOException {
+			if (!f.exists()) {
+				return null;
+			}
+			long size = f.length();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Journal de graphe trop long");
+			}
+			if (size < HEADER_SIZE) {
+				return null;
+			}
+			byte[] data = new byte[(int) size];
+			RandomAccessFile raf = new RandomAccessFile(f, "r");
+			try {
+				raf.readFully(data);
+			} finally {
+				raf.close();
+			}
+			return new Log(data);
+		}
+
+		/**
+		 * Retourne true si le journal a été écrit pour un fichier de taille
+		 * size et de CRC32 crc.
+		 */
+		boolean appliesTo(long size, int crc) {
+			long baseLength = ((long) intAt(data, 8) << 32)
+					| (intAt(data, 12) & 0xFFFFFFFFL);
+			return baseLength == size && intAt(data, 16) == crc;
+		}
+
+		/**
+		 * Applique à base les lots qui précèdent la position stop.
+		 */
+		GraphFile.Content replay(GraphFile.Content base, int stop)
+				throws IOException {
+			int n0 = base.getNodesNb();
+			int n = n0;
+			int[] xs = new int[n];
+			int[] ys = new int[n];
+			int[] colors = new int[n];
+			for (int i = 0; i < n; i++) {
+				xs[i] = base.getX(i);
+				ys[i] = base.getY(i);
+				colors[i] = base.getColor(i);
+			}
+			//Les arcs modifiés, par (u << 32) | v, u <= v : leur couleur,
+			//ou -1 s'ils ont été retirés
+			TreeMap<Long, Integer> changes = new TreeMap<Long, Integer>();
+			for (int pos = HEADER_SIZE; pos < stop;) {
+				int size = intAt(data, pos + 1);
+				GraphFile.Input in = new GraphFile.Input(
+						new ByteArrayInputStream(data, pos + 5, size));
+				for (int count = in.readVarInt(); count > 0; count--) {
+					int op = in.readVarInt();
+					if (op == NODES) {
+						n = in.readVarInt();
+						xs = Arrays.copyOf(xs, n);
+						ys = Arrays.copyOf(ys, n);
+						colors = Arrays.copyOf(colors, n);
+					} else if (op == NODE) {
+						int i = checkIndex(in.readVarInt(), n);
+						xs[i] = in.readVarInt();
+						ys[i] = in.readVarInt();
+						colors[i] = in.readVarInt();
+					} else if (op == LINK || op == UNLINK) {
+						int u = checkIndex(in.readVarInt(), n);
+						long v = (long) u + in.readVarInt();
+						Long key = Long.valueOf(((long) u << 32) | v);
+						if (op == LINK) {
+							checkIndex(v, n);
+							changes.put(key, in.readVarInt());
+						} else {
+							changes.put(key, -1);
+						}
+					} else {
+						throw new IOException("Journal de graphe corrompu");
+					}
+				}
+				pos += BATCH_OVERHEAD + size;
+			}
+
+			//Fusion des listes de base, triées, et des changements
+			int[] starts = new int[n0 + 1];
+			long[] lists = base.lowerLists(starts);
+			int capacity = lists.length + changes.size();
+			int[] ends = new int[2 * capacity];
+			int[] edgeColors = new int[capacity];
+			int m = 0;
+			Iterator<Map.Entry<Long, Integer>> it
+					= changes.entrySet().iterator();
+			Map.Entry<Long, Integer> change = it.hasNext() ? it.next() : null;
+			for (int u = 0; u < n0 || change != null; u++) {
+				int k = u < n0 ? starts[u] : 0;
+				int kEnd = u < n0 ? starts[u + 1] : 0;
+				long first = (long) u << 32;
+				while (k < kEnd || (change != null
+						&& change.getKey() >>> 32 == u)) {
+					long baseKey = k < kEnd ? first | (lists[k] >>> 32)
+							: Long.MAX_VALUE;
+					long changeKey = change != null
+							&& change.getKey() >>> 32 == u
+							? change.getKey() : Long.MAX_VALUE;
+					long key;
+					int c;
+					if (changeKey <= baseKey) {
+						key = changeKey;
+						c = change.getValue();
+						change = it.hasNext() ? it.next() : null;
+						if (changeKey == baseKey) {
+							k++;
+						}
+					} else {
+						key = baseKey;
+						c = (int) lists[k];
+						k++;
+					}
+					if (c >= 0) {
+						checkIndex(key & 0xFFFFFFFFL, n);
+						ends[2 * m] = u;
+						ends[2 * m + 1] = (int) key;
+						edgeColors[m] = c;
+						m++;
+					}
+				}
+			}
+			return new GraphFile.Content(xs, ys, colors,
+					Arrays.copyOf(ends, 2 * m), Arrays.copyOf(edgeColors, m));
+		}
+
+		private static int checkIndex(long i, int n) throws IOException {
+			if (i >= n) {
+				throw new IOException("Journal de graphe corrompu");
+			}
+			return (int) i;
+		}
+	}
+
+	/**
+	 * Recueille dans des tableaux le graphe lu par GraphFile.read.
+	 */
+	private static final class Collector implements GraphFile.Sink {
+		private int[] xs;
+		private int[] ys;
+		private int[] colors;
+		private int[] ends;
+		private int[] edgeColors;
+		private int i;
+		private int e;
+
+		@Override
+		public void begin(int nodesNb, int edgesNb) {
+			xs = new int[nodesNb];
+			ys = new int[nodesNb];
+			colors = new int[nodesNb];
+			ends = new int[2 * edgesNb];
+			edgeColors = new int[edgesNb];
+		}
+
+		@Override
+		public void node(int x, int y, int color) {
+			xs[i] = x;
+			ys[i] = y;
+			colors[i] = color;
+			i++;
+		}
+
+		@Override
+		public void edge(int u, int v, int color) {
+			ends[2 * e] = u;
+			ends[2 * e + 1] = v;
+			edgeColors[e] = color;
+			e++;
+		}
+
+		@Override
+		public void end() {
+			// rien
+		}
+
+		GraphFile.Content content() {
+			return new GraphFile.Content(xs, ys, colors, ends, edgeColors);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package gatrimi.model;
+
+/**
+ * Spécification d'un graphe dont les noeuds sont désignés par des indices
+ * entiers denses, de 0 à getNodesNb() - 1. Les requêtes ne manipulent que
+ * des types primitifs, ce qui permet aux algorithmes (coloriage notamment)
+ * de travailler sans allocation ni table de hachage.
+ * 
+ * @inv
+ * 		getNodesNb() >= 0
+ * 		forall i, j : 0 <= i, j < getNodesNb()
+ * 			hasEdge(i, j) <==> hasEdge(j, i)
+ * 			degree(i) == nombre d'entiers énumérés par neighbors(i)
+ */
+public interface IntGraph {
+	
+	//REQUETES
+	
+	/**
+	 * Retourne le nombre de noeuds du graphe.
+	 */
+	int getNodesNb();
+	
+	/**
+	 * Retourne le nombre de voisins du noeud i.
+	 * 
+	 * @pre
+	 * 		0 <= i < getNodesNb()
+	 */
+	int degree(int i);
+	
+	/**
+	 * Retourne un itérateur sur les indices des voisins du noeud i.
+	 * 
+	 * @pre
+	 * 		0 <= i < getNodesNb()
+	 */
+	IntIterator neighbors(int i);
+	
+	/**
+	 * Retourne true si les noeuds i et j sont reliés par un arc.
+	 * 
+	 * @pre
+	 * 		0 <= i < getNodesNb()
+	 * 		0 <= j < getNodesNb()
+	 */
+	boolean hasEdge(int i, int j);
+	
+	//COMMANDES
+	
+	/**
+	 * Relie les noeuds i et j par un arc.
+	 * 
+	 * @pre
+	 * 		0 <= i < getNodesNb()
+	 * 		0 <= j < getNodesNb()
+	 * @post
+	 * 		hasEdge(i, j)
+	 */
+	void addEdge(int i, int j);
+}
@@ -0,0 +1,91 @@
+package gatrimi.model;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Une copie figée de la vue par indices d'un graphe, rangée en deux
+ * tableaux à la manière de CsrGraph : les voisins du noeud i, triés,
+ * occupent targets[offsets[i]] .. targets[offsets[i + 1] - 1].
+ * La copie ne partage rien avec le graphe d'origine, qui peut être modifié
+ * pendant qu'un autre fil de calcul la parcourt.
+ */
+final class IntGraphSnapshot implements IntGraph {
+
+	//ATTRIBUTS
+
+	private final int[] offsets;
+	private final int[] targets;
+
+	//CONSTRUCTEURS
+
+	/**
+	 * Copie la structure de g, en O(n + m).
+	 */
+	IntGraphSnapshot(IntGraph g) {
+		if (g == null) {
+			throw new IllegalArgumentException();
+		}
+		int n = g.getNodesNb();
+		offsets = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			offsets[i + 1] = offsets[i] + g.degree(i);
+		}
+		targets = new int[offsets[n]];
+		for (int i = 0; i < n; i++) {
+			int k = offsets[i];
+			for (IntIterator it = g.neighbors(i); it.hasNext();) {
+				targets[k++] = it.next();
+			}
+			Arrays.sort(targets, offsets[i], offsets[i + 1]);
+		}
+	}
+
+	//REQUETES
+
+	@Override
+	public int getNodesNb() {
+		return offsets.length - 1;
+	}
+
+	@Override
+	public int degree(int i) {
+		return offsets[i + 1] - offsets[i];
+	}
+
+	@Override
+	public IntIterator neighbors(final int i) {
+		return new IntIterator() {
+			private int k = offsets[i];
+
+			@Override
+			public boolean hasNext() {
+				return k < offsets[i + 1];
+			}
+
+			@Override
+			public int next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return targets[k++];
+			}
+		};
+	}
+
+	@Override
+	public boolean hasEdge(int i, int j) {
+		return Arrays.binarySearch(targets, offsets[i], offsets[i + 1], j)
+				>= 0;
+	}
+
+	//COMMANDES
+
+	/**
+	 * Une copie figée ne peut pas être modifiée.
+	 */
+	@Override
+	public void addEdge(int i, int j) {
+		throw new UnsupportedOperationException();
+	}
+}
@@ -0,0 +1,25 @@
+package gatrimi.model;
+
+/**
+ * Un itérateur sur des entiers primitifs, qui évite l'emballage dans des
+ * Integer.
+ */
+public interface IntIterator {
+	
+	//REQUETES
+	
+	/**
+	 * Retourne true s'il reste des entiers à parcourir.
+	 */
+	boolean hasNext();
+	
+	//COMMANDES
+	
+	/**
+	 * Retourne l'entier suivant.
+	 * 
+	 * @pre
+	 * 		hasNext()
+	 */
+	int next();
+}
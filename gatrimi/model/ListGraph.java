@@ -1,43 +1,52 @@
 package gatrimi.model;
 
-import java.awt.Color;
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.InputStream;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Implémente un graphe par listes d'adjacence. La liste d'un noeud associe
+ * chacun de ses voisins à l'indice de la couleur de l'arc qui les relie :
+ * c'est l'unique représentation des arcs, présents dans la liste de
+ * chacune de leurs extrémités.
+ */
 public class ListGraph extends AbstractGraph implements Graph {
 	
 	//ATTRIBUTS
-	private Map<PositionedNode, Set<PositionedNode>> lists;
+	private Map<PositionedNode, Map<PositionedNode, Integer>> lists;
+	
+	/**
+	 * Les noeuds rangés par numéro : le noeud de numéro k est à l'indice k - 1.
+	 */
+	private List<PositionedNode> numbered;
 	
 	//CONSTRUCTEURS
 	
 	public ListGraph() {
 		super();
-		lists = new HashMap<PositionedNode, Set<PositionedNode>>();
+		lists = new HashMap<PositionedNode, Map<PositionedNode, Integer>>();
+		numbered = new ArrayList<PositionedNode>();
 		setFile(null);
 		setChanged();
 	}
 	
+	/**
+	 * Construit une copie de g. Ses noeuds sont de nouveaux
+	 * StdPositionedNode, de mêmes numéros, positions et couleurs : elle ne
+	 * partage aucun élément avec g, qui peut être en lecture seule.
+	 */
 	public ListGraph(Graph g) {
 		super(g);
-		lists = new HashMap<PositionedNode, Set<PositionedNode>>();
-		for (Edge v : getVertexes()) {
-			PositionedNode[] n = v.getNodes();
-			addNode(n[0]);
-			addNode(n[1]);
-		}
-		for (PositionedNode n : g.getNodes()) {
-			addNode(n);
-		}
+		GraphFile.copy(g, new Loader());
 		setSynchronized(g.isSynchronized());
 		setChanged();
 	}
@@ -50,6 +59,11 @@ public class ListGraph extends AbstractGraph implements Graph {
 		return set;
 	}
 
+	@Override
+	public Set<PositionedNode> getNodesView() {
+		return Collections.unmodifiableSet(lists.keySet());
+	}
+
 	@Override
 	public int getNodesNb() {
 		return lists.keySet().size();
@@ -58,27 +72,44 @@ public class ListGraph extends AbstractGraph implements Graph {
 	@Override
 	public boolean areAdjacent(PositionedNode n1, PositionedNode n2) {
 		if (n1 == null || n2 == null 
-				|| !getNodes().contains(n1) || !getNodes().contains(n2)) {
+				|| !hasNode(n1) || !hasNode(n2)) {
 			throw new IllegalArgumentException();
 		}
-		Set<PositionedNode> list = lists.get(n1);
-		return list.contains(n2);
+		return lists.get(n1).containsKey(n2);
 	}
 
 	@Override
 	public Set<PositionedNode> getAdjacents(PositionedNode n) {
-		if (n == null || !getNodes().contains(n)) {
+		if (n == null || !hasNode(n)) {
+			throw new IllegalArgumentException();
+		}
+		return new HashSet<PositionedNode>(lists.get(n).keySet());
+	}
+	
+	@Override
+	public void forEachNeighbor(PositionedNode n,
+			Visitor<? super PositionedNode> v) {
+		if (n == null || !hasNode(n) || v == null) {
 			throw new IllegalArgumentException();
 		}
-		Set<PositionedNode> list = lists.get(n);
-		return new HashSet<PositionedNode>(list);
+		for (PositionedNode n2 : lists.get(n).keySet()) {
+			v.visit(n2);
+		}
+	}
+	
+	@Override
+	public IntGraph asIntGraph() {
+		return new IntView();
 	}
+	
 	//COMMANDES
 	
 	@Override
 	public void addNode() {
 		PositionedNode n = new StdPositionedNode(getNodesNb() + 1);
-		lists.put(n, new HashSet<PositionedNode>());
+		lists.put(n, new HashMap<PositionedNode, Integer>());
+		numbered.add(n);
+		colorNewNode(n);
 		setSynchronized(false);
 		setChanged();
 		MemoryMXBean mb = ManagementFactory.getMemoryMXBean();
@@ -89,40 +120,34 @@ public class ListGraph extends AbstractGraph implements Graph {
 	@Override
 	public void addNode(int x, int y) {
 		PositionedNode n = new StdPositionedNode(x, y, getNodesNb() + 1);
-		lists.put(n, new HashSet<PositionedNode>());
+		lists.put(n, new HashMap<PositionedNode, Integer>());
+		numbered.add(n);
+		colorNewNode(n);
 		setSynchronized(false);
 		setChanged();
 	}
 
 	@Override
 	public void removeNode(PositionedNode n) {
-		if (n == null || !getNodes().contains(n)) {
+		if (n == null || !hasNode(n)) {
 			throw new IllegalArgumentException();
 		}
 		
-		/*----------------VERSION 1------------------*/
-		
-		//on retire les arcs lis a n
-		removeVertexes(getVertexes(n));
+		//on retire les arcs liés a n
+		if (getVertexesNb(n) > 0) {
+			removeVertexes(getVertexes(n));
+		}
 			
 		//on retire n de l'ensemble des noeuds		
-		lists.keySet().remove(n);
+		lists.remove(n);
 		
-		//On reconstruit la map en changeant le numero des noeuds
-		Map<PositionedNode, Set<PositionedNode>> newLists = 
-				new HashMap<PositionedNode, Set<PositionedNode>>();
-		for (PositionedNode n2 : lists.keySet()) {
-			if (n2.getNumber() > n.getNumber()) {
-				n2.setNumber(n2.getNumber() - 1);
-			}
-			newLists.put(n2, new HashSet<PositionedNode>());
-		}
-		for (Edge v : getVertexes()) {
-			PositionedNode[] nTab = v.getNodes();
-			newLists.get(nTab[0]).add(nTab[1]);
-			newLists.get(nTab[1]).add(nTab[0]);
+		//Le dernier noeud prend le numéro de n, les autres sont inchangés
+		PositionedNode last = numbered.remove(numbered.size() - 1);
+		if (last != n) {
+			numbered.set(n.getNumber() - 1, last);
+			last.setNumber(n.getNumber());
 		}
-		lists = newLists;	
+		setSynchronized(false);
 		setChanged();
 	}
 
@@ -132,7 +157,7 @@ public class ListGraph extends AbstractGraph implements Graph {
 			throw new IllegalArgumentException();
 		}
 		for (PositionedNode n : nodes) {
-			if (n == null || !getNodes().contains(n)) {
+			if (n == null || !hasNode(n)) {
 				throw new IllegalArgumentException();
 			}
 		}
@@ -144,98 +169,177 @@ public class ListGraph extends AbstractGraph implements Graph {
 	}
 	
 	@Override
-	public void colorizeNode(PositionedNode n, Color c) {
-		if (n == null || !getNodes().contains(n)
-				|| c == null || !StdPositionedNode.isRightColor(c)) {
+	public void colorizeNode(PositionedNode n, int c) {
+		if (n == null || !hasNode(n) || !StdPositionedNode.isRightColor(c)) {
 			throw new IllegalArgumentException();
 		}
 		
-		for (PositionedNode n2 : lists.keySet()) {
-			if (n2.equals(n)) {
-				n2.setColor(c);
-				return;
-			}
-		}
+		nodeAt(n.getNumber() - 1).setColor(c);
 		setSynchronized(false);
 		setChanged();
 	}
 	
-	public void addVertex(Edge v) {
-		super.addVertex(v);
-		PositionedNode[] nTab = v.getNodes();
-		lists.get(nTab[0]).add(nTab[1]);
-		lists.get(nTab[1]).add(nTab[0]);
-		setSynchronized(false);
+	@Override
+	public void load() throws IOException {
+		if (getFile() == null || !getFile().exists()) {
+			throw new IllegalArgumentException();
+		}
+		
+		setSynchronized(!GraphJournal.read(getFile(), new Loader()));
 		setChanged();
 	}
 	
-	public void removeVertex(Edge v) {
-		super.removeVertex(v);
-		PositionedNode[] nTab = v.getNodes();
-		lists.get(nTab[0]).remove(nTab[1]);
-		lists.get(nTab[1]).remove(nTab[0]);
-		setSynchronized(false);
-		setChanged();
+	//OUTILS
+	
+	@Override
+	protected boolean hasNode(PositionedNode n) {
+		return lists.containsKey(n);
+	}
+	
+	@Override
+	protected int getAdjacentsNb(PositionedNode n) {
+		return lists.get(n).size();
+	}
+	
+	@Override
+	protected int getVertexColor(PositionedNode n1, PositionedNode n2) {
+		Integer c = lists.get(n1).get(n2);
+		return c == null ? -1 : c;
 	}
 	
-	public void removeVertexes(Set<Edge> v) {
-		for (Edge vert : v) {
-			removeVertex(vert);
+	@Override
+	protected void setVertexColor(PositionedNode n1, PositionedNode n2,
+			int color) {
+		lists.get(n1).put(n2, color);
+		lists.get(n2).put(n1, color);
+	}
+	
+	@Override
+	protected boolean link(PositionedNode n1, PositionedNode n2, int color) {
+		Map<PositionedNode, Integer> list = lists.get(n1);
+		if (list.containsKey(n2)) {
+			return false;
 		}
-		setSynchronized(false);
-		setChanged();
+		list.put(n2, color);
+		lists.get(n2).put(n1, color);
+		return true;
 	}
+	
 	@Override
-	public void load() throws IOException {
-		if (getFile() == null || !getFile().exists()) {
-			throw new IllegalArgumentException();
+	protected boolean unlink(PositionedNode n1, PositionedNode n2) {
+		if (lists.get(n1).remove(n2) == null) {
+			return false;
 		}
+		lists.get(n2).remove(n1);
+		return true;
+	}
+	
+	@Override
+	protected PositionedNode nodeAt(int i) {
+		return numbered.get(i);
+	}
+	
+	/**
+	 * Remplace le contenu de ce graphe par le graphe lu sur in, au format
+	 * de GraphFile. Le contenu n'est remplacé que si la lecture réussit.
+	 */
+	void read(InputStream in) throws IOException {
+		GraphFile.read(in, new Loader());
+	}
+	
+	//CLASSES INTERNES
+	
+	/**
+	 * La construction des listes au fil de la lecture d'un fichier, ou de
+	 * la copie d'un graphe, dans des tables dimensionnées d'après son
+	 * en-tête, qui ne remplacent celles du graphe qu'en fin de lecture.
+	 */
+	private class Loader implements GraphFile.Sink {
+		private Map<PositionedNode, Map<PositionedNode, Integer>> newLists;
+		private List<PositionedNode> newNumbered;
 		
-		ObjectInputStream input;
-		try {
-			input = new ObjectInputStream(
-						new BufferedInputStream(
-								new FileInputStream(getFile())));
-		} catch (FileNotFoundException e) {
-			throw new InternalError("Fichier non trouv"); //Impossible
+		/**
+		 * La liste de chaque noeud, par indice.
+		 */
+		private List<Map<PositionedNode, Integer>> rows;
+		private int edgesNb;
+		
+		@Override
+		public void begin(int nodesNb, int edgesNb) {
+			newLists = new HashMap<PositionedNode,
+					Map<PositionedNode, Integer>>(capacityFor(nodesNb));
+			newNumbered = new ArrayList<PositionedNode>(nodesNb);
+			rows = new ArrayList<Map<PositionedNode, Integer>>(nodesNb);
+			this.edgesNb = edgesNb;
 		}
 		
-		Graph result;
-		try {
-			result = (Graph) input.readObject();
-		} catch (ClassNotFoundException e) {
-			throw new InternalError("Classe srialisable non trouve");
-		} finally {
-			input.close();
-		}
-		this.clear();
-		for (PositionedNode n : result.getNodes()) {
-			this.addNode(n);
-		}
-		for (Edge v : result.getVertexes()) {
-			this.addVertex(v);
-		}
-		setSynchronized(true);
-		setChanged();
+		@Override
+		public void node(int x, int y, int color) {
+			PositionedNode n = new StdPositionedNode(x, y,
+					newNumbered.size() + 1);
+			n.setColor(color);
+			Map<PositionedNode, Integer> row =
+					new HashMap<PositionedNode, Integer>();
+			newLists.put(n, row);
+			newNumbered.add(n);
+			rows.add(row);
+		}
+		
+		@Override
+		public void edge(int i, int j, int color) {
+			Integer c = color;
+			rows.get(i).put(newNumbered.get(j), c);
+			rows.get(j).put(newNumbered.get(i), c);
+		}
+		
+		@Override
+		public void end() {
+			lists = newLists;
+			numbered = newNumbered;
+			setVertexesNb(edgesNb);
+		}
 	}
 	
-	//OUTILS
-	/*
-	 * Mthode utilise uniquement dans le cas de l'appel au constructeur 
-	 * un paramtre.
-	 * Dans ce cas, on assure que en sortie du constructeur l'invariant est tout
-	 * de mme respect.
+	/**
+	 * La vue par indices de ce graphe : l'indice d'un noeud est son numéro
+	 * moins un.
 	 */
-	private void addNode(PositionedNode n) {
-		lists.put(n, new HashSet<PositionedNode>());
-		setSynchronized(false);
-		setChanged();
-	}
-	
-	private void clear() {
-		lists = new HashMap<PositionedNode, Set<PositionedNode>>();
-		setVertexesSet(new HashSet<Edge>());
-		setSynchronized(false);
-		setChanged();
+	private class IntView implements IntGraph {
+		@Override
+		public int getNodesNb() {
+			return numbered.size();
+		}
+		
+		@Override
+		public int degree(int i) {
+			return lists.get(numbered.get(i)).size();
+		}
+		
+		@Override
+		public IntIterator neighbors(int i) {
+			final Iterator<PositionedNode> it =
+					lists.get(numbered.get(i)).keySet().iterator();
+			return new IntIterator() {
+				@Override
+				public boolean hasNext() {
+					return it.hasNext();
+				}
+				
+				@Override
+				public int next() {
+					return it.next().getNumber() - 1;
+				}
+			};
+		}
+		
+		@Override
+		public boolean hasEdge(int i, int j) {
+			return lists.get(numbered.get(i)).containsKey(numbered.get(j));
+		}
+		
+		@Override
+		public void addEdge(int i, int j) {
+			addVertex(new StdEdge(numbered.get(i), numbered.get(j)));
+		}
 	}
 }
@@ -0,0 +1,833 @@
+package gatrimi.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Observable;
+import java.util.Set;
+
+/**
+ * Implémente un graphe en lecture seule, lu en place dans un fichier au
+ * format de GraphFile projeté en mémoire par FileChannel.map.
+ * L'ouverture ne lit que l'en-tête : la position, la couleur et les voisins
+ * d'un noeud sont décodés à la demande, si bien que seules les pages du
+ * fichier effectivement parcourues sont chargées par le système.
+ * Ni la structure ni les couleurs ne peuvent être modifiées ; un graphe
+ * modifiable s'obtient par copie, new ListGraph(g) ou new MatrixGraph(g),
+ * dont les noeuds sont de nouveaux StdPositionedNode.
+ * Les PositionedNode et les Edge rendus sont, comme pour OffHeapGraph, des
+ * vues légères créées à la demande : deux vues d'un même élément sont
+ * égales.
+ * Ce graphe est sa propre vue par indices, et sa propre copie figée.
+ */
+public class MappedGraph extends Observable implements Graph, IntGraph {
+
+	//ATTRIBUTS
+
+	/**
+	 * Le fichier est projeté par tranches de 2^CHUNK_SHIFT octets, chacune
+	 * débordant de OVERLAP octets sur la suivante : une valeur d'au plus
+	 * OVERLAP octets commençant dans une tranche y est entièrement lisible.
+	 */
+	private static final int CHUNK_SHIFT = 30;
+	private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+	private static final int OVERLAP = 16;
+
+	/**
+	 * Absence d'arc.
+	 */
+	private static final int NONE = -1;
+
+	/**
+	 * Les tranches projetées du fichier.
+	 */
+	private MappedByteBuffer[] chunks;
+
+	private int nodesNb;
+	private int edgesNb;
+
+	/**
+	 * La position dans le fichier des abscisses, des ordonnées, des
+	 * couleurs des noeuds, des listes d'adjacence et de leur index.
+	 */
+	private long xs;
+	private long ys;
+	private long colors;
+	private long adjacency;
+	private long index;
+
+	/**
+	 * Le fichier projeté.
+	 */
+	private File source;
+
+	private File file;
+	private boolean isSynchronized;
+
+	/**
+	 * Le nombre de couleurs du coloriage incrémental, 0 s'il est désactivé.
+	 */
+	private int colorBudget;
+
+	//CONSTRUCTEURS
+
+	/**
+	 * Ouvre le fichier de graphe file, sans le lire.
+	 *
+	 * @pre
+	 * 		file != null
+	 * 		file.exists()
+	 * @throws IOException si file n'est pas un fichier de graphe
+	 */
+	public MappedGraph(File file) throws IOException {
+		if (file == null || !file.exists()) {
+			throw new IllegalArgumentException();
+		}
+		map(file);
+		setChanged();
+	}
+
+	//REQUETES
+
+	@Override
+	public File getFile() {
+		return file;
+	}
+
+	@Override
+	public boolean isSynchronized() {
+		return isSynchronized;
+	}
+
+	@Override
+	public int getColorBudget() {
+		return colorBudget;
+	}
+
+	@Override
+	public Set<PositionedNode> getNodes() {
+		return new HashSet<PositionedNode>(getNodesView());
+	}
+
+	@Override
+	public Set<Edge> getVertexes() {
+		return new HashSet<Edge>(getVertexesView());
+	}
+
+	@Override
+	public Set<PositionedNode> getNodesView() {
+		return new NodesView();
+	}
+
+	@Override
+	public Set<Edge> getVertexesView() {
+		return new EdgesView();
+	}
+
+	@Override
+	public void forEachNode(Visitor<? super PositionedNode> v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		for (int i = 0; i < nodesNb; i++) {
+			v.visit(new NodeView(i));
+		}
+	}
+
+	@Override
+	public void forEachEdge(Visitor<? super Edge> v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		for (int i = 0; i < nodesNb; i++) {
+			for (IntIterator it = neighbors(i); it.hasNext();) {
+				int j = it.next();
+				if (j >= i) {
+					v.visit(new EdgeView(i, j));
+				}
+			}
+		}
+	}
+
+	@Override
+	public void forEachNeighbor(PositionedNode n,
+			Visitor<? super PositionedNode> v) {
+		int i = indexOf(n);
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		for (IntIterator it = neighbors(i); it.hasNext();) {
+			v.visit(new NodeView(it.next()));
+		}
+	}
+
+	@Override
+	public int getVertexesNb(PositionedNode n) {
+		return degree(indexOf(n));
+	}
+
+	@Override
+	public int getVertexesNb() {
+		return edgesNb;
+	}
+
+	@Override
+	public int getNodesNb() {
+		return nodesNb;
+	}
+
+	@Override
+	public Set<Edge> getVertexes(PositionedNode n) {
+		int i = indexOf(n);
+		Set<Edge> res = new HashSet<Edge>();
+		for (IntIterator it = neighbors(i); it.hasNext();) {
+			res.add(new EdgeView(i, it.next()));
+		}
+		return res;
+	}
+
+	@Override
+	public boolean areAdjacent(PositionedNode n1, PositionedNode n2) {
+		return hasEdge(indexOf(n1), indexOf(n2));
+	}
+
+	@Override
+	public boolean areAdjacent(Edge v1, Edge v2) {
+		int[] ends1 = endsOf(v1);
+		int[] ends2 = endsOf(v2);
+		return ends1[0] == ends2[0] || ends1[0] == ends2[1]
+				|| ends1[1] == ends2[0] || ends1[1] == ends2[1];
+	}
+
+	@Override
+	public Set<PositionedNode> getAdjacents(PositionedNode n) {
+		int i = indexOf(n);
+		Set<PositionedNode> res = new HashSet<PositionedNode>();
+		for (IntIterator it = neighbors(i); it.hasNext();) {
+			res.add(new NodeView(it.next()));
+		}
+		return res;
+	}
+
+	@Override
+	public Set<Edge> getAdjacents(Edge v) {
+		Set<Edge> res = new HashSet<Edge>();
+		for (int i : endsOf(v)) {
+			for (IntIterator it = neighbors(i); it.hasNext();) {
+				res.add(new EdgeView(i, it.next()));
+			}
+		}
+		return res;
+	}
+
+	@Override
+	public IntGraph asIntGraph() {
+		return this;
+	}
+
+	/**
+	 * Un MappedGraph ne change jamais : il est sa propre copie figée.
+	 */
+	@Override
+	public IntGraph snapshot() {
+		return this;
+	}
+
+	@Override
+	public int degree(int i) {
+		checkIndex(i);
+		return new Cursor(listOf(i)).next();
+	}
+
+	@Override
+	public IntIterator neighbors(int i) {
+		checkIndex(i);
+		final Cursor c = new Cursor(listOf(i));
+		final int d = c.next();
+		return new IntIterator() {
+			private int k = 0;
+			private int j = 0;
+
+			@Override
+			public boolean hasNext() {
+				return k < d;
+			}
+
+			@Override
+			public int next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				j += c.next();
+				k++;
+				return j;
+			}
+		};
+	}
+
+	@Override
+	public boolean hasEdge(int i, int j) {
+		checkIndex(i);
+		checkIndex(j);
+		return edgeColor(i, j) != NONE;
+	}
+
+	//COMMANDES
+
+	@Override
+	public void setFile(File file) {
+		this.file = file;
+		isSynchronized = source.equals(file);
+		setChanged();
+	}
+
+	/**
+	 * Le budget est retenu, mais le graphe ne change jamais : aucun
+	 * coloriage n'est à réparer.
+	 */
+	@Override
+	public void setColorBudget(int budget) {
+		if (budget < 0) {
+			throw new IllegalArgumentException();
+		}
+		colorBudget = budget;
+	}
+
+	@Override
+	public void addNode() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void addNode(int x, int y) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeNode(PositionedNode n) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeNodes(Set<PositionedNode> nodes) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void addVertex(Edge v) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeVertex(Edge v) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void removeVertexes(Set<Edge> vertexes) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void apply(GraphDelta delta) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void addEdge(int i, int j) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void colorizeNode(PositionedNode n, int c) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void colorizeVertexes() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Les couleurs du fichier ne peuvent pas être modifiées : un coloriage
+	 * se calcule sans rien modifier par ColoringResult.compute(g, s).
+	 */
+	@Override
+	public void colorizeNodes() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void applyColoring(ColoringResult res) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Le graphe est enregistré au format de GraphFile. Le fichier projeté
+	 * n'est jamais réécrit : il contient déjà le graphe.
+	 */
+	@Override
+	public void save() throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException();
+		}
+		if (!source.equals(file)) {
+			GraphFile.capture(this).save(file);
+		}
+		isSynchronized = true;
+		setChanged();
+	}
+
+	/**
+	 * Projette à nouveau getFile(), qui peut avoir changé sur le disque.
+	 */
+	@Override
+	public void load() throws IOException {
+		if (file == null || !file.exists()) {
+			throw new IllegalArgumentException();
+		}
+		map(file);
+		setChanged();
+	}
+
+	//OUTILS
+
+	/**
+	 * Projette le fichier f et vérifie la cohérence de son en-tête et de
+	 * sa taille, sans lire les noeuds ni les arcs. En cas d'erreur, la
+	 * projection précédente est conservée.
+	 */
+	private void map(File f) throws IOException {
+		//Le journal ne peut pas être appliqué à un fichier lu en place
+		if (GraphJournal.isPending(f)) {
+			throw new IOException("Le journal de ce fichier doit d'abord y "
+					+ "être replié");
+		}
+		MappedByteBuffer[] oldChunks = chunks;
+		RandomAccessFile raf = new RandomAccessFile(f, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long size = channel.size();
+			if (size < GraphFile.HEADER_SIZE) {
+				throw new IOException("Ce fichier n'est pas un graphe");
+			}
+			chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK)
+					>>> CHUNK_SHIFT)];
+			for (int k = 0; k < chunks.length; k++) {
+				long start = (long) k << CHUNK_SHIFT;
+				long length = Math.min(size - start, CHUNK_MASK + 1 + OVERLAP);
+				chunks[k] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+						length);
+			}
+			int n = intAt(8);
+			GraphFile.checkHeader(intAt(0), intAt(4), n);
+			int m = intAt(12);
+			long nodesEnd = GraphFile.HEADER_SIZE + 12L * n;
+			long indexSize = 8L * (n + 1);
+			if (m < 0 || nodesEnd + indexSize > size) {
+				throw new IOException("Fichier de graphe corrompu");
+			}
+			long adjacencyStart = nodesEnd;
+			long indexStart = size - indexSize;
+			if (adjacencyStart + longAt(indexStart + 8L * n) != indexStart) {
+				throw new IOException("Fichier de graphe corrompu");
+			}
+			nodesNb = n;
+			edgesNb = m;
+			xs = GraphFile.HEADER_SIZE;
+			ys = xs + 4L * n;
+			colors = ys + 4L * n;
+			adjacency = adjacencyStart;
+			index = indexStart;
+		} catch (IOException e) {
+			chunks = oldChunks;
+			throw e;
+		} finally {
+			raf.close();
+		}
+		source = f;
+		file = f;
+		isSynchronized = true;
+	}
+
+	private byte byteAt(long pos) {
+		return chunks[(int) (pos >>> CHUNK_SHIFT)]
+				.get((int) (pos & CHUNK_MASK));
+	}
+
+	private int intAt(long pos) {
+		return chunks[(int) (pos >>> CHUNK_SHIFT)]
+				.getInt((int) (pos & CHUNK_MASK));
+	}
+
+	private long longAt(long pos) {
+		return chunks[(int) (pos >>> CHUNK_SHIFT)]
+				.getLong((int) (pos & CHUNK_MASK));
+	}
+
+	/**
+	 * La position dans le fichier de la liste d'adjacence du noeud i.
+	 */
+	private long listOf(int i) {
+		return adjacency + longAt(index + 8L * i);
+	}
+
+	/**
+	 * La couleur de l'arc entre i et j, ou NONE s'ils ne sont pas
+	 * adjacents. La liste décodée est celle de l'extrémité de plus petit
+	 * degré.
+	 */
+	private int edgeColor(int i, int j) {
+		Cursor c = new Cursor(listOf(i));
+		int d = c.next();
+		Cursor c2 = new Cursor(listOf(j));
+		int d2 = c2.next();
+		if (d2 < d) {
+			c = c2;
+			d = d2;
+			j = i;
+		}
+		int slot = NONE;
+		int neighbor = 0;
+		for (int k = 0; k < d; k++) {
+			neighbor += c.next();
+			if (neighbor == j) {
+				slot = k;
+			}
+		}
+		if (slot == NONE) {
+			return NONE;
+		}
+		for (int k = 0; k < slot; k++) {
+			c.next();
+		}
+		return c.next();
+	}
+
+	private void checkIndex(int i) {
+		if (i < 0 || i >= nodesNb) {
+			throw new IllegalArgumentException();
+		}
+	}
+
+	/**
+	 * Retourne l'indice du noeud n.
+	 *
+	 * @pre
+	 * 		n est un noeud de ce graphe
+	 */
+	private int indexOf(PositionedNode n) {
+		if (!(n instanceof NodeView) || ((NodeView) n).owner() != this) {
+			throw new IllegalArgumentException();
+		}
+		return ((NodeView) n).index;
+	}
+
+	/**
+	 * Retourne les indices des extrémités de l'arc v.
+	 *
+	 * @pre
+	 * 		v est un arc de ce graphe
+	 */
+	private int[] endsOf(Edge v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		PositionedNode[] nTab = v.getNodes();
+		int[] ends = new int[] {indexOf(nTab[0]), indexOf(nTab[1])};
+		if (!hasEdge(ends[0], ends[1])) {
+			throw new IllegalArgumentException();
+		}
+		return ends;
+	}
+
+	/**
+	 * Les projections ne sont pas sérialisables : un MappedGraph est
+	 * sérialisé sous la forme d'un ListGraph.
+	 */
+	private Object writeReplace() {
+		return new ListGraph(this);
+	}
+
+	//CLASSES INTERNES
+
+	/**
+	 * La lecture des varint successifs d'une liste d'adjacence.
+	 */
+	private final class Cursor {
+		private long pos;
+
+		Cursor(long pos) {
+			this.pos = pos;
+		}
+
+		int next() {
+			int v = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = byteAt(pos++);
+				v |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			return v;
+		}
+	}
+
+	/**
+	 * Un noeud de ce graphe, désigné par son indice.
+	 */
+	private class NodeView extends Observable implements PositionedNode {
+		private final int index;
+
+		NodeView(int index) {
+			this.index = index;
+		}
+
+		MappedGraph owner() {
+			return MappedGraph.this;
+		}
+
+		public String toString() {
+			return "n" + getNumber();
+		}
+
+		@Override
+		public int getColor() {
+			return intAt(colors + 4L * index);
+		}
+
+		@Override
+		public int getX() {
+			return intAt(xs + 4L * index);
+		}
+
+		@Override
+		public int getY() {
+			return intAt(ys + 4L * index);
+		}
+
+		@Override
+		public int getNumber() {
+			return index + 1;
+		}
+
+		@Override
+		public int getId() {
+			return index;
+		}
+
+		@Override
+		public void setColor(int c) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setPosition(int x, int y) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setNumber(int n) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if ((o != null) && (o.getClass() == this.getClass())) {
+				NodeView obj = (NodeView) o;
+				return this.owner() == obj.owner() && this.index == obj.index;
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return index;
+		}
+
+		@Override
+		public int compareTo(PositionedNode node) {
+			if (this.getNumber() != node.getNumber()) {
+				return this.getNumber() - node.getNumber();
+			}
+			return this.getId() - node.getId();
+		}
+	}
+
+	/**
+	 * Un arc de ce graphe, désigné par les indices de ses extrémités.
+	 */
+	private class EdgeView extends Observable implements Edge {
+		private final int u;
+		private final int v;
+
+		EdgeView(int u, int v) {
+			this.u = u;
+			this.v = v;
+		}
+
+		public String toString() {
+			return "[" + new NodeView(u) + " - " + new NodeView(v) + "]";
+		}
+
+		@Override
+		public int getColor() {
+			return edgeColor(u, v);
+		}
+
+		@Override
+		public PositionedNode[] getNodes() {
+			return new PositionedNode[] {new NodeView(u), new NodeView(v)};
+		}
+
+		@Override
+		public boolean containsNode(PositionedNode n) {
+			return new NodeView(u).equals(n) || new NodeView(v).equals(n);
+		}
+
+		@Override
+		public void setColor(int c) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if ((o != null) && (o.getClass() == this.getClass())) {
+				EdgeView e = (EdgeView) o;
+				return e.owner() == owner()
+						&& ((u == e.u && v == e.v) || (u == e.v && v == e.u));
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return StdEdge.hash(u, v);
+		}
+
+		private MappedGraph owner() {
+			return MappedGraph.this;
+		}
+	}
+
+	/**
+	 * La vue non modifiable de l'ensemble des noeuds.
+	 */
+	private class NodesView extends AbstractSet<PositionedNode> {
+		@Override
+		public Iterator<PositionedNode> iterator() {
+			return new Iterator<PositionedNode>() {
+				private int i = 0;
+
+				@Override
+				public boolean hasNext() {
+					return i < nodesNb;
+				}
+
+				@Override
+				public PositionedNode next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return new NodeView(i++);
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return nodesNb;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof NodeView
+					&& ((NodeView) o).owner() == MappedGraph.this;
+		}
+	}
+
+	/**
+	 * La vue non modifiable de l'ensemble des arcs, parcourant les listes
+	 * d'adjacence dans l'ordre des indices. Chaque arc est rendu depuis son
+	 * extrémité de plus petit indice.
+	 */
+	private class EdgesView extends AbstractSet<Edge> {
+		@Override
+		public Iterator<Edge> iterator() {
+			return new Iterator<Edge>() {
+				private int i = -1;
+				private IntIterator it = null;
+				private int j = NONE;
+
+				{
+					advance();
+				}
+
+				/**
+				 * Place j sur le prochain voisin d'indice au moins i.
+				 */
+				private void advance() {
+					j = NONE;
+					while (j == NONE && i < nodesNb) {
+						if (it != null && it.hasNext()) {
+							int k = it.next();
+							if (k >= i) {
+								j = k;
+							}
+						} else if (++i < nodesNb) {
+							it = neighbors(i);
+						}
+					}
+				}
+
+				@Override
+				public boolean hasNext() {
+					return j != NONE;
+				}
+
+				@Override
+				public Edge next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					Edge res = new EdgeView(i, j);
+					advance();
+					return res;
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return edgesNb;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Edge)) {
+				return false;
+			}
+			PositionedNode[] nTab = ((Edge) o).getNodes();
+			NodesView nodesView = new NodesView();
+			return nodesView.contains(nTab[0]) && nodesView.contains(nTab[1])
+					&& hasEdge(indexOf(nTab[0]), indexOf(nTab[1]));
+		}
+	}
+}
@@ -1,64 +1,100 @@
 package gatrimi.model;
 
-import java.awt.Color;
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
- * Implmente un graphe par matrice d'adjacence.
+ * Implémente un graphe par matrice d'adjacence.
+ * La matrice est stockée bit à bit : chaque ligne occupe rowWords mots de
+ * 64 bits, et la capacité (nombre de lignes et de colonnes allouées) double
+ * lorsqu'elle est atteinte. Les modifications d'arcs se font en place.
+ * Seuls les arcs d'une autre couleur que Edge.COLOR_DEFAULT occupent une
+ * place en plus de leurs deux bits.
  */
 public class MatrixGraph extends AbstractGraph implements Graph {
 	
 	// Attributs.
 	
 	/*
-	 * La matrice d'adjacence (lignes; colonnes);
+	 * La matrice d'adjacence (lignes; colonnes), une ligne après l'autre :
+	 * le bit (i, j) est le bit j % 64 du mot matrix[i * rowWords + j / 64].
 	 */
-	private int[][] matrix;
+	private long[] matrix;
+	
+	/*
+	 * Le nombre de lignes (et de colonnes) allouées dans la matrice.
+	 */
+	private int capacity;
+	
+	/*
+	 * Le nombre de mots de 64 bits d'une ligne.
+	 */
+	private int rowWords;
 	
 	private Set<PositionedNode> nodes;
 	
+	/*
+	 * Les noeuds rangés par numéro : le noeud de numéro k est à l'indice
+	 * k - 1, qui est aussi sa ligne dans la matrice.
+	 */
+	private List<PositionedNode> numbered;
+	
+	/*
+	 * La couleur des arcs qui n'ont pas la couleur par défaut, par paire
+	 * d'identifiants de leurs extrémités. Un arc absent de cette table a la
+	 * couleur Edge.COLOR_DEFAULT.
+	 */
+	private EdgeStore colors;
+	
+	/*
+	 * La capacité initiale de la matrice.
+	 */
+	private static final int INITIAL_CAPACITY = 64;
+	
 	
 	// Constructeurs.
 	
 	public MatrixGraph() {
 		super();
 		nodes = new HashSet<PositionedNode>();
+		numbered = new ArrayList<PositionedNode>();
+		colors = new EdgeStore();
 		makeMatrix();
 		setChanged();
 	}
 	
+	/**
+	 * Construit une copie de g. Ses noeuds sont de nouveaux
+	 * StdPositionedNode, de mêmes numéros, positions et couleurs : elle ne
+	 * partage aucun élément avec g, qui peut être en lecture seule.
+	 */
 	public MatrixGraph(Graph g) {
 		super(g);
-		
-		if (g == null) {
-			throw new IllegalArgumentException();
-		}
-		
-		nodes = new HashSet<PositionedNode>();
-		for (PositionedNode n : g.getNodes()) {
-			addNode(n);
-		}
-		makeMatrix();
+		GraphFile.copy(g, new Loader());
 		setSynchronized(g.isSynchronized());
 		setChanged();
 	}
 
 	
-	// Requtes
+	// Requêtes
 	
 	@Override
 	public Set<PositionedNode> getNodes() {
 		return new HashSet<PositionedNode>(nodes);
 	}
 
+	@Override
+	public Set<PositionedNode> getNodesView() {
+		return Collections.unmodifiableSet(nodes);
+	}
+
 	@Override
 	public int getNodesNb() {
 		return nodes.size();
@@ -71,7 +107,7 @@ public class MatrixGraph extends AbstractGraph implements Graph {
 			throw new IllegalArgumentException();
 		}
 		
-		return matrix[n1.getNumber() - 1][n2.getNumber() - 1] == 1;
+		return isSet(n1.getNumber() - 1, n2.getNumber() - 1);
 	}
 
 	@Override
@@ -81,22 +117,51 @@ public class MatrixGraph extends AbstractGraph implements Graph {
 		}
 		Set<PositionedNode> res = new HashSet<PositionedNode>();
 		
-		for (int j = 0; j < getNodesNb(); j++) {
-			if (matrix[n.getNumber() - 1][j] == 1) {
+		int base = (n.getNumber() - 1) * rowWords;
+		for (int w = 0; w < rowWords; w++) {
+			long word = matrix[base + w];
+			while (word != 0) {
+				int j = (w << 6) + Long.numberOfTrailingZeros(word);
 				res.add(getNode(j + 1));
+				word &= word - 1;
 			}
 		}
 		
 		return res;
 	}
+	
+	@Override
+	public void forEachNeighbor(PositionedNode n,
+			Visitor<? super PositionedNode> v) {
+		if (n == null || !nodes.contains(n) || v == null) {
+			throw new IllegalArgumentException();
+		}
+		int base = (n.getNumber() - 1) * rowWords;
+		for (int w = 0; w < rowWords; w++) {
+			long word = matrix[base + w];
+			while (word != 0) {
+				v.visit(numbered.get((w << 6)
+						+ Long.numberOfTrailingZeros(word)));
+				word &= word - 1;
+			}
+		}
+	}
+	
+	@Override
+	public IntGraph asIntGraph() {
+		return new IntView();
+	}
 
 	
 	// Commandes
 
 	@Override
 	public void addNode() {
-		nodes.add(new StdPositionedNode(getNodesNb() + 1));
-		makeMatrix();
+		PositionedNode n = new StdPositionedNode(getNodesNb() + 1);
+		nodes.add(n);
+		numbered.add(n);
+		colorNewNode(n);
+		ensureCapacity(getNodesNb());
 		setSynchronized(false);
 		setChanged();
 		MemoryMXBean mb = ManagementFactory.getMemoryMXBean();
@@ -106,8 +171,11 @@ public class MatrixGraph extends AbstractGraph implements Graph {
 	
 	@Override
 	public void addNode(int x, int y) {
-		nodes.add(new StdPositionedNode(x, y, getNodesNb() + 1));
-		makeMatrix();
+		PositionedNode n = new StdPositionedNode(x, y, getNodesNb() + 1);
+		nodes.add(n);
+		numbered.add(n);
+		colorNewNode(n);
+		ensureCapacity(getNodesNb());
 		setSynchronized(false);
 		setChanged();
 		MemoryMXBean mb = ManagementFactory.getMemoryMXBean();
@@ -117,28 +185,24 @@ public class MatrixGraph extends AbstractGraph implements Graph {
 
 	@Override
 	public void removeNode(PositionedNode n) {
-		if (n == null || !getNodes().contains(n)) {
+		if (n == null || !nodes.contains(n)) {
 			throw new IllegalArgumentException();
 		}
 		
-		/*----------------VERSION 1------------------*/
-
 		if (getVertexesNb(n) > 0) {
 			removeVertexes(getVertexes(n));
 		}
 		nodes.remove(n);
-		for (PositionedNode n2 : getNodes()) {
-			if (n2.getNumber() > n.getNumber()) {
-				n2.setNumber(n2.getNumber() - 1);
-			}
+		
+		//Le dernier noeud prend le numéro de n, et donc sa ligne et sa colonne
+		PositionedNode last = numbered.remove(numbered.size() - 1);
+		if (last != n) {
+			numbered.set(n.getNumber() - 1, last);
+			moveRowAndColumn(last.getNumber() - 1, n.getNumber() - 1);
+			last.setNumber(n.getNumber());
 		}
-		makeMatrix();
 		setSynchronized(false);
 		setChanged();
-		
-		/*------------VERSION 2-------------*/
-
-		
 	}
 
 	@Override
@@ -154,140 +218,313 @@ public class MatrixGraph extends AbstractGraph implements Graph {
 		for (PositionedNode n : nodes) {
 			removeNode(n);
 		}
-		makeMatrix();
 		setSynchronized(false);
 		setChanged();
 	}
 	
 	@Override
-	public void addVertex(Edge v) {
-		super.addVertex(v);
-		makeMatrix();
+	public void colorizeNode(PositionedNode n, int c) {
+		if (n == null || !nodes.contains(n)
+				|| !StdPositionedNode.isRightColor(c)) {
+			throw new IllegalArgumentException();
+		}
+		
+		nodeAt(n.getNumber() - 1).setColor(c);
 		setSynchronized(false);
 		setChanged();
-		MemoryMXBean mb = ManagementFactory.getMemoryMXBean();
-		System.out.println(mb.getHeapMemoryUsage());
 	}
 	
 	@Override
-	public void removeVertex(Edge v) {
-		super.removeVertex(v);
-		makeMatrix();
-		setSynchronized(false);
+	public void load() throws IOException {
+		if (getFile() == null || !getFile().exists()) {
+			throw new IllegalArgumentException();
+		}
+		
+		setSynchronized(!GraphJournal.read(getFile(), new Loader()));
 		setChanged();
 	}
 	
+	//METHODES OUTILS
+	
 	@Override
-	public void removeVertexes(Set<Edge> vertexes) {
-		super.removeVertexes(vertexes);
-		makeMatrix();
-		setSynchronized(false);
-		setChanged();
+	protected boolean hasNode(PositionedNode n) {
+		return nodes.contains(n);
 	}
-
+	
 	@Override
-	public void colorizeNode(PositionedNode n, Color c) {
-		if (n == null || !getNodes().contains(n)
-				|| c == null || !StdPositionedNode.isRightColor(c)) {
-			throw new IllegalArgumentException();
-		}
-		
-		for (PositionedNode n2 : nodes) {
-			if (n.equals(n2)) {
-				n2.setColor(c);
-				return;
-			}
+	protected int getAdjacentsNb(PositionedNode n) {
+		return rowBitCount(n.getNumber() - 1);
+	}
+	
+	@Override
+	protected int getVertexColor(PositionedNode n1, PositionedNode n2) {
+		if (!isSet(n1.getNumber() - 1, n2.getNumber() - 1)) {
+			return -1;
 		}
-		setSynchronized(false);
-		setChanged();
+		int c = colors.getColor(n1.getId(), n2.getId());
+		return c < 0 ? Edge.COLOR_DEFAULT : c;
 	}
 	
 	@Override
-	public void load() throws IOException {
-		if (getFile() == null || !getFile().exists()) {
-			throw new IllegalArgumentException();
+	protected void setVertexColor(PositionedNode n1, PositionedNode n2,
+			int color) {
+		storeColor(n1.getId(), n2.getId(), color);
+	}
+	
+	@Override
+	protected boolean link(PositionedNode n1, PositionedNode n2, int color) {
+		if (isSet(n1.getNumber() - 1, n2.getNumber() - 1)) {
+			return false;
 		}
-		
-		ObjectInputStream input;
-		try {
-			input = new ObjectInputStream(
-						new BufferedInputStream(
-								new FileInputStream(getFile())));
-		} catch (FileNotFoundException e) {
-			throw new InternalError("Fichier non trouv"); //Impossible
+		setEdge(n1, n2, true);
+		storeColor(n1.getId(), n2.getId(), color);
+		return true;
+	}
+	
+	@Override
+	protected boolean unlink(PositionedNode n1, PositionedNode n2) {
+		if (!isSet(n1.getNumber() - 1, n2.getNumber() - 1)) {
+			return false;
 		}
-		
-		Graph result;
-		try {
-			result = (Graph) input.readObject();
-		} catch (ClassNotFoundException e) {
-			throw new InternalError("Classe srialisable non trouve");
-		} finally {
-			input.close();
-		}
-		this.clear();
-		for (PositionedNode n : result.getNodes()) {
-			this.addNode(n);
-		}
-		for (Edge v : result.getVertexes()) {
-			this.addVertex(v);
-		}
-		setSynchronized(true);
-		setChanged();
+		setEdge(n1, n2, false);
+		colors.remove(n1.getId(), n2.getId());
+		return true;
 	}
 	
-	//METHODES OUTILS
+	@Override
+	protected PositionedNode nodeAt(int i) {
+		return numbered.get(i);
+	}
+	
+	/**
+	 * Range la couleur color de l'arc d'extrémités d'identifiants a et b,
+	 * la couleur par défaut n'étant pas stockée.
+	 */
+	private void storeColor(int a, int b, int color) {
+		if (color == Edge.COLOR_DEFAULT) {
+			colors.remove(a, b);
+		} else if (!colors.add(a, b, color)) {
+			colors.setColor(a, b, color);
+		}
+	}
 	
 	private PositionedNode getNode(int num) {
 		if (num <= 0 || num > getNodesNb()) {
 			throw new IllegalArgumentException();
 		}
-		PositionedNode res = null;
+		return numbered.get(num - 1);
+	}
+	
+	/**
+	 * Alloue une matrice vide, à la taille de l'ensemble des noeuds.
+	 */
+	private void makeMatrix() {
+		if (nodes == null) {
+			throw new IllegalStateException("makeMatrix : Set à null");
+		}
 		
-		for (PositionedNode n : getNodes()) {
-			if (n.getNumber() == num) {
-				res = n;
-				break;
+		capacity = 0;
+		rowWords = 0;
+		matrix = new long[0];
+		ensureCapacity(getNodesNb());
+	}
+	
+	/**
+	 * Agrandit la matrice (en doublant sa capacité) afin qu'elle puisse
+	 * contenir au moins size lignes et colonnes. Les bits existants sont
+	 * conservés.
+	 */
+	private void ensureCapacity(int size) {
+		if (size <= capacity) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, INITIAL_CAPACITY);
+		while (newCapacity < size) {
+			newCapacity *= 2;
+		}
+		resize(newCapacity);
+	}
+	
+	/**
+	 * Réalloue la matrice à exactement newCapacity lignes et colonnes, pour
+	 * les constructions d'un bloc dont le nombre de noeuds est connu. Les
+	 * bits existants sont conservés.
+	 *
+	 * @pre
+	 * 		newCapacity >= capacity
+	 */
+	private void resize(int newCapacity) {
+		int newRowWords = (newCapacity + 63) >>> 6;
+		long[] newMatrix = new long[newCapacity * newRowWords];
+		for (int i = 0; i < capacity; i++) {
+			System.arraycopy(matrix, i * rowWords,
+					newMatrix, i * newRowWords, rowWords);
+		}
+		matrix = newMatrix;
+		capacity = newCapacity;
+		rowWords = newRowWords;
+	}
+	
+	/**
+	 * Le nombre de bits à 1 de la ligne i.
+	 */
+	private int rowBitCount(int i) {
+		int count = 0;
+		int base = i * rowWords;
+		for (int w = 0; w < rowWords; w++) {
+			count += Long.bitCount(matrix[base + w]);
+		}
+		return count;
+	}
+	
+	private boolean isSet(int i, int j) {
+		return (matrix[i * rowWords + (j >>> 6)] & (1L << j)) != 0;
+	}
+	
+	private void setBit(int i, int j, boolean value) {
+		int w = i * rowWords + (j >>> 6);
+		if (value) {
+			matrix[w] |= 1L << j;
+		} else {
+			matrix[w] &= ~(1L << j);
+		}
+	}
+	
+	/**
+	 * Positionne les deux bits symétriques correspondant à l'arc (n1, n2).
+	 */
+	private void setEdge(PositionedNode n1, PositionedNode n2,
+			boolean value) {
+		int i = n1.getNumber() - 1;
+		int j = n2.getNumber() - 1;
+		setBit(i, j, value);
+		setBit(j, i, value);
+	}
+	
+	/**
+	 * Déplace la ligne et la colonne from vers la ligne et la colonne to,
+	 * qui doivent être vides, puis vide from. La matrice étant symétrique,
+	 * seules les lignes des voisins de from ont un bit dans sa colonne.
+	 */
+	private void moveRowAndColumn(int from, int to) {
+		int fromBase = from * rowWords;
+		System.arraycopy(matrix, fromBase, matrix, to * rowWords, rowWords);
+		for (int w = 0; w < rowWords; w++) {
+			long word = matrix[fromBase + w];
+			matrix[fromBase + w] = 0;
+			while (word != 0) {
+				int j = (w << 6) + Long.numberOfTrailingZeros(word);
+				//Une boucle sur from devient une boucle sur to
+				int row = (j == from) ? to : j;
+				setBit(row, from, false);
+				setBit(row, to, true);
+				word &= word - 1;
 			}
 		}
-		
-		return res;
 	}
 	
-	private void makeMatrix() {
-		if (getNodes() == null || getVertexes() == null) {
-			throw new IllegalStateException("makeMatrix : Set  null");
+	//CLASSES INTERNES
+	
+	/**
+	 * La construction de la matrice au fil de la lecture d'un fichier, ou
+	 * de la copie d'un graphe, dans un graphe vide allouant d'emblée la
+	 * matrice et la table des couleurs à la taille de l'en-tête. Son
+	 * contenu ne remplace celui de ce graphe qu'en fin de lecture.
+	 */
+	private class Loader implements GraphFile.Sink {
+		private final MatrixGraph res = new MatrixGraph();
+		private PositionedNode[] byIndex;
+		private int edgesNb;
+		
+		@Override
+		public void begin(int nodesNb, int edgesNb) {
+			res.nodes = new HashSet<PositionedNode>(capacityFor(nodesNb));
+			res.numbered = new ArrayList<PositionedNode>(nodesNb);
+			res.colors = new EdgeStore();
+			res.resize(nodesNb);
+			byIndex = new PositionedNode[nodesNb];
+			this.edgesNb = edgesNb;
 		}
 		
-		int mSize = getNodesNb();
-		matrix = new int[mSize][mSize];
+		@Override
+		public void node(int x, int y, int color) {
+			int i = res.numbered.size();
+			PositionedNode n = new StdPositionedNode(x, y, i + 1);
+			n.setColor(color);
+			res.nodes.add(n);
+			res.numbered.add(n);
+			byIndex[i] = n;
+		}
 		
-		for (int i = 0; i < mSize; i++) {
-			for (int j = 0; j < mSize; j++) {
-				matrix[i][j] = 0;
-			}
+		@Override
+		public void edge(int i, int j, int color) {
+			res.setBit(i, j, true);
+			res.setBit(j, i, true);
+			res.storeColor(byIndex[i].getId(), byIndex[j].getId(), color);
 		}
 		
-		for (Edge v : getVertexes()) {
-			PositionedNode[] nodeTab = v.getNodes();
-			int n0 = nodeTab[0].getNumber() - 1;
-			int n1 = nodeTab[1].getNumber() - 1;
-			matrix[n0][n1] = 1;
-			matrix[n1][n0] = 1;
+		@Override
+		public void end() {
+			matrix = res.matrix;
+			capacity = res.capacity;
+			rowWords = res.rowWords;
+			nodes = res.nodes;
+			numbered = res.numbered;
+			colors = res.colors;
+			setVertexesNb(edgesNb);
 		}
 	}
 	
-	private void addNode(PositionedNode n) {
-		nodes.add(n);
-		setSynchronized(false);
-		setChanged();
-	}
-	
-	private void clear() {
-		nodes = new HashSet<PositionedNode>();
-		matrix = new int[][] {};
-		setVertexesSet(new HashSet<Edge>());
-		setSynchronized(false);
-		setChanged();
+	/**
+	 * La vue par indices de ce graphe : l'indice d'un noeud est sa ligne dans
+	 * la matrice. Les requêtes lisent directement les bits.
+	 */
+	private class IntView implements IntGraph {
+		@Override
+		public int getNodesNb() {
+			return numbered.size();
+		}
+		
+		@Override
+		public int degree(int i) {
+			return rowBitCount(i);
+		}
+		
+		@Override
+		public IntIterator neighbors(final int i) {
+			return new IntIterator() {
+				private int w = 0;
+				private long word = rowWords == 0 ? 0 : matrix[i * rowWords];
+				
+				@Override
+				public boolean hasNext() {
+					while (word == 0 && w < rowWords - 1) {
+						w++;
+						word = matrix[i * rowWords + w];
+					}
+					return word != 0;
+				}
+				
+				@Override
+				public int next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					int j = (w << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+					return j;
+				}
+			};
+		}
+		
+		@Override
+		public boolean hasEdge(int i, int j) {
+			return isSet(i, j);
+		}
+		
+		@Override
+		public void addEdge(int i, int j) {
+			addVertex(new StdEdge(numbered.get(i), numbered.get(j)));
+		}
 	}
 }
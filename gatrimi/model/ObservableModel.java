@@ -8,7 +8,7 @@ package gatrimi.model;
 import java.util.Observer;
 
 /**
- * Une interface pour pallier au manque de spcification sur ce sujet dans
+ * Une interface pour pallier au manque de spécification sur ce sujet dans
  *  l'API.
  * @inv <pre>
  *     countObservers() >= 0 </pre>
@@ -18,56 +18,56 @@ public interface ObservableModel {
     // REQUETES
     
     /**
-     * Le nombre d'observateurs enregistrs auprs de ce modle.
+     * Le nombre d'observateurs enregistrés auprès de ce modèle.
      */
     int countObservers();
 
     // COMMANDES
     
     /**
-     * Enregistre un observateur sur ce modle s'il n'y est pas dj.
+     * Enregistre un observateur sur ce modèle s'il n'y est pas déjà.
      * @pre <pre>
      *     o != null </pre>
      * @post <pre>
-     *     o est enregistr auprs du modle
-     *     si o n'tait pas dj enregistr alors
+     *     o est enregistré auprès du modèle
+     *     si o n'était pas déjà enregistré alors
      *         countObservers() == old countObservers() + 1
      *     sinon
-     *         rien n'a chang </pre>
+     *         rien n'a changé </pre>
      * @throws NullPointerException si o est null
      */
     void addObserver(Observer o);
     /**
-     * Dsinscrit un observateur de ce modle.
-     * Si o vaut null, cette mthode n'a pas d'effet.
+     * Désinscrit un observateur de ce modèle.
+     * Si o vaut null, cette méthode n'a pas d'effet.
      * @post <pre>
-     *     o n'est pas enregistr auprs du modle
-     *     si o tait enregistr alors
+     *     o n'est pas enregistré auprès du modèle
+     *     si o était enregistré alors
      *         countObservers() == old countObservers() - 1
      *     sinon
-     *         rien n'a chang </pre>
+     *         rien n'a changé </pre>
      */
     void deleteObserver(Observer o);
     /**
-     * Dsinscrit tous les observateurs de ce modle.
+     * Désinscrit tous les observateurs de ce modèle.
      * @post <pre>
      *     countObservers() == 0 </pre>
      */
     void deleteObservers();
     /**
-     * Notifie tous les observateurs de ce modle si ncessaire, c'est--dire
-     *  s'il n'y a pas eu de notification depuis la dernire modification
-     *  du modle.
-     * Chaque observateur enregistr excute en squence sa mthode update
-     *  avec pour arguments ce modle et null.
+     * Notifie tous les observateurs de ce modèle si nécessaire, c'est-à-dire
+     *  s'il n'y a pas eu de notification depuis la dernière modification
+     *  du modèle.
+     * Chaque observateur enregistré exécute en séquence sa méthode update
+     *  avec pour arguments ce modèle et null.
      */
     void notifyObservers();
     /**
-     * Notifie tous les observateurs de ce modle si ncessaire, c'est--dire
-     *  s'il n'y a pas eu de notification depuis la dernire modification
-     *  du modle.
-     * Chaque observateur enregistr excute en squence sa mthode update
-     *  avec pour arguments ce modle et arg.
+     * Notifie tous les observateurs de ce modèle si nécessaire, c'est-à-dire
+     *  s'il n'y a pas eu de notification depuis la dernière modification
+     *  du modèle.
+     * Chaque observateur enregistré exécute en séquence sa méthode update
+     *  avec pour arguments ce modèle et arg.
      */
     void notifyObservers(Object arg);
 }
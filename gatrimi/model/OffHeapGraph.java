@@ -0,0 +1,1301 @@
+package gatrimi.model;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Observable;
+import java.util.Set;
+
+/**
+ * Implémente un graphe dont les noeuds et les arcs sont stockés hors du tas
+ * Java, dans des tampons alloués par ByteBuffer.allocateDirect.
+ * Chaque noeud est un enregistrement de NODE_SIZE entiers (position,
+ * couleur, identifiant, degré, premier arc incident, estampille) rangé à
+ * l'indice number - 1 ; chaque arc est un enregistrement de EDGE_SIZE entiers
+ * (extrémités, suivants dans les listes d'incidence des extrémités,
+ * couleur). Les listes d'incidence sont simplement chaînées à travers les
+ * enregistrements des arcs, et les emplacements des arcs retirés sont
+ * réutilisés. La taille de ces tampons est bornée par l'option
+ * -XX:MaxDirectMemorySize de la JVM, et non par celle du tas, et chacun
+ * compte au plus MAX_CAPACITY entiers.
+ * Les PositionedNode et les Edge manipulés par les clients sont des vues
+ * légères créées à la demande sur ces enregistrements : deux vues d'un même
+ * élément sont égales, mais les observateurs ajoutés à une vue ne sont
+ * notifiés qu'au travers de cette vue.
+ * Ce graphe est sa propre vue par indices : l'indice d'un noeud est son
+ * numéro moins un.
+ */
+public class OffHeapGraph extends Observable implements Graph, IntGraph {
+
+	//ATTRIBUTS
+
+	/**
+	 * Les champs d'un enregistrement de noeud.
+	 */
+	private static final int NODE_X = 0;
+	private static final int NODE_Y = 1;
+	private static final int NODE_COLOR = 2;
+	private static final int NODE_ID = 3;
+	private static final int NODE_DEGREE = 4;
+	private static final int NODE_HEAD = 5;
+	private static final int NODE_STAMP = 6;
+	private static final int NODE_SIZE = 7;
+
+	/**
+	 * Les champs d'un enregistrement d'arc. Un emplacement libre a NONE pour
+	 * première extrémité, et EDGE_NEXT_U y chaîne la liste des emplacements
+	 * libres.
+	 */
+	private static final int EDGE_U = 0;
+	private static final int EDGE_V = 1;
+	private static final int EDGE_NEXT_U = 2;
+	private static final int EDGE_NEXT_V = 3;
+	private static final int EDGE_COLOR = 4;
+	private static final int EDGE_SIZE = 5;
+
+	/**
+	 * Absence d'arc ou de noeud.
+	 */
+	private static final int NONE = -1;
+
+	/**
+	 * Le nombre d'enregistrements alloués initialement.
+	 */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * Le nombre maximal d'entiers d'un tampon, dont la taille en octets
+	 * doit tenir dans un int.
+	 */
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE / 4;
+
+	/**
+	 * Les enregistrements des noeuds, le noeud d'indice i occupant les
+	 * entiers i * NODE_SIZE .. (i + 1) * NODE_SIZE - 1.
+	 */
+	private IntBuffer nodes;
+	private int nodesNb;
+
+	/**
+	 * L'indice de chaque noeud, par identifiant. Les identifiants des noeuds
+	 * retirés sont réutilisés : l'emplacement d'un identifiant libre vaut
+	 * -2 - l'identifiant libre suivant, soit NONE pour le dernier.
+	 */
+	private IntBuffer slots;
+	private int nextId;
+	private int freeId;
+
+	/**
+	 * L'estampille du prochain noeud créé. Elle n'est jamais remise à zéro,
+	 * pas même au chargement d'un fichier, et distingue un noeud de ceux qui
+	 * ont occupé son identifiant avant lui.
+	 */
+	private int nextStamp;
+
+	/**
+	 * Les enregistrements des arcs.
+	 */
+	private IntBuffer edges;
+
+	/**
+	 * Le nombre d'emplacements d'arcs déjà utilisés, libres ou non.
+	 */
+	private int edgesEnd;
+	private int edgesNb;
+
+	/**
+	 * Le premier emplacement d'arc libre.
+	 */
+	private int freeEdge;
+
+	private File file;
+	private boolean isSynchronized;
+
+	/**
+	 * Le nombre de couleurs du coloriage incrémental, 0 s'il est désactivé.
+	 */
+	private int colorBudget;
+
+	//CONSTRUCTEURS
+
+	public OffHeapGraph() {
+		clear();
+		file = null;
+		isSynchronized = false;
+		setChanged();
+	}
+
+	/**
+	 * Recopie le graphe g hors du tas.
+	 */
+	public OffHeapGraph(Graph g) {
+		if (g == null) {
+			throw new IllegalArgumentException();
+		}
+		copy(g);
+		file = g.getFile();
+		isSynchronized = g.isSynchronized();
+		setChanged();
+	}
+
+	//REQUETES
+
+	@Override
+	public File getFile() {
+		return file;
+	}
+
+	@Override
+	public boolean isSynchronized() {
+		return isSynchronized;
+	}
+
+	@Override
+	public int getColorBudget() {
+		return colorBudget;
+	}
+
+	@Override
+	public Set<PositionedNode> getNodes() {
+		return new HashSet<PositionedNode>(getNodesView());
+	}
+
+	@Override
+	public Set<Edge> getVertexes() {
+		return new HashSet<Edge>(getVertexesView());
+	}
+
+	@Override
+	public Set<PositionedNode> getNodesView() {
+		return new NodesView();
+	}
+
+	@Override
+	public Set<Edge> getVertexesView() {
+		return new EdgesView();
+	}
+
+	@Override
+	public void forEachNode(Visitor<? super PositionedNode> v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		for (int i = 0; i < nodesNb; i++) {
+			v.visit(nodeView(i));
+		}
+	}
+
+	@Override
+	public void forEachEdge(Visitor<? super Edge> v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		for (int e = 0; e < edgesEnd; e++) {
+			if (edge(e, EDGE_U) != NONE) {
+				v.visit(edgeView(e));
+			}
+		}
+	}
+
+	@Override
+	public void forEachNeighbor(PositionedNode n,
+			Visitor<? super PositionedNode> v) {
+		int i = slotOf(n);
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		for (int e = node(i, NODE_HEAD); e != NONE; e = nextEdge(e, i)) {
+			v.visit(nodeView(otherEnd(e, i)));
+		}
+	}
+
+	@Override
+	public int getVertexesNb(PositionedNode n) {
+		return node(slotOf(n), NODE_DEGREE);
+	}
+
+	@Override
+	public int getVertexesNb() {
+		return edgesNb;
+	}
+
+	@Override
+	public int getNodesNb() {
+		return nodesNb;
+	}
+
+	@Override
+	public Set<Edge> getVertexes(PositionedNode n) {
+		int i = slotOf(n);
+		Set<Edge> res = new HashSet<Edge>();
+		for (int e = node(i, NODE_HEAD); e != NONE; e = nextEdge(e, i)) {
+			res.add(edgeView(e));
+		}
+		return res;
+	}
+
+	@Override
+	public boolean areAdjacent(PositionedNode n1, PositionedNode n2) {
+		return find(slotOf(n1), slotOf(n2)) != NONE;
+	}
+
+	@Override
+	public boolean areAdjacent(Edge v1, Edge v2) {
+		int e1 = edgeOf(v1);
+		int e2 = edgeOf(v2);
+		int u = edge(e1, EDGE_U);
+		int v = edge(e1, EDGE_V);
+		return u == edge(e2, EDGE_U) || u == edge(e2, EDGE_V)
+				|| v == edge(e2, EDGE_U) || v == edge(e2, EDGE_V);
+	}
+
+	@Override
+	public Set<PositionedNode> getAdjacents(PositionedNode n) {
+		int i = slotOf(n);
+		Set<PositionedNode> res = new HashSet<PositionedNode>();
+		for (int e = node(i, NODE_HEAD); e != NONE; e = nextEdge(e, i)) {
+			res.add(nodeView(otherEnd(e, i)));
+		}
+		return res;
+	}
+
+	@Override
+	public Set<Edge> getAdjacents(Edge v) {
+		int e = edgeOf(v);
+		Set<Edge> res = new HashSet<Edge>();
+		for (int i : new int[] {edge(e, EDGE_U), edge(e, EDGE_V)}) {
+			for (int f = node(i, NODE_HEAD); f != NONE; f = nextEdge(f, i)) {
+				res.add(edgeView(f));
+			}
+		}
+		return res;
+	}
+
+	@Override
+	public IntGraph asIntGraph() {
+		return this;
+	}
+
+	@Override
+	public IntGraph snapshot() {
+		return new IntGraphSnapshot(this);
+	}
+
+	@Override
+	public int degree(int i) {
+		checkSlot(i);
+		return node(i, NODE_DEGREE);
+	}
+
+	@Override
+	public IntIterator neighbors(final int i) {
+		checkSlot(i);
+		return new IntIterator() {
+			private int e = node(i, NODE_HEAD);
+
+			@Override
+			public boolean hasNext() {
+				return e != NONE;
+			}
+
+			@Override
+			public int next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				int j = otherEnd(e, i);
+				e = nextEdge(e, i);
+				return j;
+			}
+		};
+	}
+
+	@Override
+	public boolean hasEdge(int i, int j) {
+		checkSlot(i);
+		checkSlot(j);
+		return find(i, j) != NONE;
+	}
+
+	//COMMANDES
+
+	@Override
+	public void setFile(File file) {
+		this.file = file;
+		setChanged();
+	}
+
+	@Override
+	public void setColorBudget(int budget) {
+		if (budget < 0) {
+			throw new IllegalArgumentException();
+		}
+		colorBudget = budget;
+		if (budget > 0 && !Colorings.fits(this, nodeColors(), budget)) {
+			colorizeNodes();
+		}
+	}
+
+	@Override
+	public void addNode() {
+		addNode(PositionedNode.X_DEFAULT, PositionedNode.Y_DEFAULT);
+	}
+
+	@Override
+	public void addNode(int x, int y) {
+		if (x < 0 || y < 0) {
+			throw new IllegalArgumentException();
+		}
+		newNode(x, y, newNodeColor());
+		isSynchronized = false;
+		setChanged();
+	}
+
+	@Override
+	public void removeNode(PositionedNode n) {
+		int i = slotOf(n);
+
+		//on retire les arcs liés à n
+		while (node(i, NODE_HEAD) != NONE) {
+			unlink(node(i, NODE_HEAD));
+		}
+		int id = node(i, NODE_ID);
+		slots.put(id, -2 - freeId);
+		freeId = id;
+
+		//Le dernier noeud prend la place, et donc le numéro, de n
+		int last = nodesNb - 1;
+		if (i != last) {
+			for (int f = 0; f < NODE_SIZE; f++) {
+				setNode(i, f, node(last, f));
+			}
+			slots.put(node(i, NODE_ID), i);
+			int e = node(i, NODE_HEAD);
+			while (e != NONE) {
+				int next = nextEdge(e, last);
+				if (edge(e, EDGE_U) == last) {
+					setEdge(e, EDGE_U, i);
+				}
+				if (edge(e, EDGE_V) == last) {
+					setEdge(e, EDGE_V, i);
+				}
+				e = next;
+			}
+		}
+		nodesNb--;
+		isSynchronized = false;
+		setChanged();
+	}
+
+	@Override
+	public void removeNodes(Set<PositionedNode> nodes) {
+		if (nodes == null) {
+			throw new IllegalArgumentException();
+		}
+		for (PositionedNode n : nodes) {
+			slotOf(n);
+		}
+		for (PositionedNode n : nodes) {
+			removeNode(n);
+		}
+		isSynchronized = false;
+		setChanged();
+	}
+
+	@Override
+	public void addVertex(Edge v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		PositionedNode[] nTab = v.getNodes();
+		int i = slotOf(nTab[0]);
+		int j = slotOf(nTab[1]);
+		if (find(i, j) == NONE) {
+			link(i, j, v.getColor());
+		}
+		repairColors(i, j);
+		isSynchronized = false;
+		setChanged();
+	}
+
+	@Override
+	public void removeVertex(Edge v) {
+		unlink(edgeOf(v));
+		isSynchronized = false;
+		setChanged();
+	}
+
+	@Override
+	public void removeVertexes(Set<Edge> vertexes) {
+		if (vertexes == null || vertexes.size() == 0) {
+			throw new IllegalArgumentException();
+		}
+		for (Edge v : vertexes) {
+			edgeOf(v);
+		}
+		for (Edge v : vertexes) {
+			unlink(edgeOf(v));
+		}
+		isSynchronized = false;
+		setChanged();
+	}
+
+	@Override
+	public void apply(GraphDelta delta) {
+		if (delta == null) {
+			throw new IllegalArgumentException();
+		}
+
+		//Validation du lot entier, avant toute modification
+		Set<PositionedNode> removedNodes = delta.getRemovedNodes();
+		for (Edge v : delta.getRemovedVertexes()) {
+			edgeOf(v);
+		}
+		for (PositionedNode n : removedNodes) {
+			slotOf(n);
+		}
+		for (Edge v : delta.getAddedVertexes()) {
+			PositionedNode[] nTab = v.getNodes();
+			slotOf(nTab[0]);
+			slotOf(nTab[1]);
+			if (removedNodes.contains(nTab[0])
+					|| removedNodes.contains(nTab[1])) {
+				throw new IllegalArgumentException();
+			}
+		}
+
+		//Application, sans nouvelle validation
+		for (Edge v : delta.getRemovedVertexes()) {
+			PositionedNode[] nTab = v.getNodes();
+			int e = find(slotOf(nTab[0]), slotOf(nTab[1]));
+			if (e != NONE) {
+				unlink(e);
+			}
+		}
+		for (PositionedNode n : removedNodes) {
+			removeNode(n);
+		}
+		for (Point p : delta.getAddedNodes()) {
+			newNode(p.x, p.y, newNodeColor());
+		}
+		for (Edge v : delta.getAddedVertexes()) {
+			PositionedNode[] nTab = v.getNodes();
+			int i = slotOf(nTab[0]);
+			int j = slotOf(nTab[1]);
+			if (find(i, j) == NONE) {
+				link(i, j, v.getColor());
+			}
+		}
+		for (Edge v : delta.getAddedVertexes()) {
+			PositionedNode[] nTab = v.getNodes();
+			repairColors(slotOf(nTab[0]), slotOf(nTab[1]));
+		}
+		isSynchronized = false;
+		setChanged();
+	}
+
+	@Override
+	public void addEdge(int i, int j) {
+		checkSlot(i);
+		checkSlot(j);
+		if (find(i, j) == NONE) {
+			link(i, j, 0);
+		}
+		repairColors(i, j);
+		isSynchronized = false;
+		setChanged();
+	}
+
+	@Override
+	public void colorizeNode(PositionedNode n, int c) {
+		int i = slotOf(n);
+		if (!StdPositionedNode.isRightColor(c)) {
+			throw new IllegalArgumentException();
+		}
+		setNode(i, NODE_COLOR, c);
+		isSynchronized = false;
+		setChanged();
+	}
+
+	/**
+	 * Coloriage des arêtes selon l'algorithme de Misra et Gries, sur les
+	 * indices des extrémités de chaque arc. L'algorithme a besoin de
+	 * quelques tableaux de la taille du nombre d'arcs, alloués dans le tas
+	 * le temps du coloriage.
+	 */
+	@Override
+	public void colorizeVertexes() {
+		int[] edgeSlots = new int[edgesNb];
+		int[] ends = new int[2 * edgesNb];
+		int m = 0;
+		for (int e = 0; e < edgesEnd; e++) {
+			if (edge(e, EDGE_U) != NONE) {
+				edgeSlots[m] = e;
+				ends[2 * m] = edge(e, EDGE_U);
+				ends[2 * m + 1] = edge(e, EDGE_V);
+				m++;
+			}
+		}
+		int[] colors = Colorings.misraGries(nodesNb, ends);
+		for (int i = 0; i < m; i++) {
+			setEdge(edgeSlots[i], EDGE_COLOR, colors[i]);
+		}
+		isSynchronized = false;
+		setChanged();
+	}
+
+	/**
+	 * Coloration du graphe selon l'algorithme DSATUR, sur la vue par
+	 * indices.
+	 */
+	@Override
+	public void colorizeNodes() {
+		setNodesColors(ColoringResult.compute(this, ColoringStrategies.DSATUR)
+				.colors());
+	}
+
+	@Override
+	public void applyColoring(ColoringResult res) {
+		if (res == null || !res.isValidFor(this)) {
+			throw new IllegalArgumentException();
+		}
+		setNodesColors(res.colors());
+	}
+
+	/**
+	 * Le graphe est enregistré au format de GraphFile, comme par les
+	 * autres implémentations.
+	 */
+	@Override
+	public void save() throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException();
+		}
+		GraphFile.capture(this).save(file);
+		isSynchronized = true;
+		setChanged();
+	}
+
+	@Override
+	public void load() throws IOException {
+		if (file == null || !file.exists()) {
+			throw new IllegalArgumentException();
+		}
+
+		isSynchronized = !GraphJournal.read(file, new Loader());
+		setChanged();
+	}
+
+	//OUTILS
+
+	/**
+	 * Alloue un tampon hors du tas de size entiers, size ne dépassant pas
+	 * MAX_CAPACITY.
+	 */
+	private static IntBuffer allocate(int size) {
+		return ByteBuffer.allocateDirect(size * 4)
+				.order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+
+	/**
+	 * Retourne un tampon d'au moins size entiers contenant b, en doublant sa
+	 * capacité si besoin, dans la limite de MAX_CAPACITY.
+	 * @throws OutOfMemoryError si size dépasse MAX_CAPACITY
+	 */
+	private static IntBuffer ensureCapacity(IntBuffer b, long size) {
+		if (size <= b.capacity()) {
+			return b;
+		}
+		if (size > MAX_CAPACITY) {
+			throw new OutOfMemoryError("Tampon hors du tas de " + size
+					+ " entiers");
+		}
+		IntBuffer res = allocate((int) Math.min(MAX_CAPACITY,
+				Math.max(size, 2L * b.capacity())));
+		IntBuffer old = b.duplicate();
+		old.clear();
+		res.put(old);
+		res.clear();
+		return res;
+	}
+
+	/**
+	 * La couleur d'un nouveau noeud : la première si le coloriage
+	 * incrémental est actif.
+	 */
+	private int newNodeColor() {
+		return (colorBudget > 0) ? PositionedNode.INDEX_COLOR_INIT
+				: PositionedNode.COLOR_DEFAULT;
+	}
+
+	/**
+	 * Les couleurs des noeuds, par indice.
+	 */
+	private Colorings.NodeColors nodeColors() {
+		return new Colorings.NodeColors() {
+			@Override
+			public int getColor(int i) {
+				return node(i, NODE_COLOR);
+			}
+
+			@Override
+			public void setColor(int i, int c) {
+				setNode(i, NODE_COLOR, c);
+			}
+		};
+	}
+
+	/**
+	 * Répare le coloriage incrémental après l'ajout de l'arc (i, j), en
+	 * dernier recours en recoloriant tout le graphe.
+	 */
+	private void repairColors(int i, int j) {
+		if (colorBudget == 0) {
+			return;
+		}
+		if (!Colorings.repair(this, nodeColors(), i, j, colorBudget)) {
+			colorizeNodes();
+		}
+	}
+
+	/**
+	 * Donne au noeud d'indice i la couleur colors[i].
+	 */
+	private void setNodesColors(int[] colors) {
+		for (int i = 0; i < nodesNb; i++) {
+			setNode(i, NODE_COLOR, colors[i]);
+		}
+		isSynchronized = false;
+		setChanged();
+	}
+
+	private int node(int i, int field) {
+		return nodes.get(i * NODE_SIZE + field);
+	}
+
+	private void setNode(int i, int field, int value) {
+		nodes.put(i * NODE_SIZE + field, value);
+	}
+
+	private int edge(int e, int field) {
+		return edges.get(e * EDGE_SIZE + field);
+	}
+
+	private void setEdge(int e, int field, int value) {
+		edges.put(e * EDGE_SIZE + field, value);
+	}
+
+	private void checkSlot(int i) {
+		if (i < 0 || i >= nodesNb) {
+			throw new IllegalArgumentException();
+		}
+	}
+
+	/**
+	 * Retourne l'indice du noeud n.
+	 *
+	 * @pre
+	 * 		n est un noeud de ce graphe
+	 */
+	private int slotOf(PositionedNode n) {
+		if (!(n instanceof NodeView) || ((NodeView) n).owner() != this) {
+			throw new IllegalArgumentException();
+		}
+		int i = ((NodeView) n).slot();
+		if (i == NONE) {
+			throw new IllegalArgumentException();
+		}
+		return i;
+	}
+
+	/**
+	 * Retourne l'emplacement de l'arc v.
+	 *
+	 * @pre
+	 * 		v est un arc de ce graphe
+	 */
+	private int edgeOf(Edge v) {
+		if (v == null) {
+			throw new IllegalArgumentException();
+		}
+		PositionedNode[] nTab = v.getNodes();
+		int e = find(slotOf(nTab[0]), slotOf(nTab[1]));
+		if (e == NONE) {
+			throw new IllegalArgumentException();
+		}
+		return e;
+	}
+
+	/**
+	 * Retourne l'emplacement de l'arc entre i et j, ou NONE. La liste
+	 * parcourue est celle de l'extrémité de plus petit degré.
+	 */
+	private int find(int i, int j) {
+		if (node(i, NODE_DEGREE) > node(j, NODE_DEGREE)) {
+			int k = i;
+			i = j;
+			j = k;
+		}
+		for (int e = node(i, NODE_HEAD); e != NONE; e = nextEdge(e, i)) {
+			if (otherEnd(e, i) == j) {
+				return e;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * Le suivant de l'arc e dans la liste d'incidence de son extrémité i.
+	 */
+	private int nextEdge(int e, int i) {
+		return edge(e, EDGE_U) == i
+				? edge(e, EDGE_NEXT_U) : edge(e, EDGE_NEXT_V);
+	}
+
+	private void setNextEdge(int e, int i, int next) {
+		setEdge(e, edge(e, EDGE_U) == i ? EDGE_NEXT_U : EDGE_NEXT_V, next);
+	}
+
+	/**
+	 * L'extrémité de l'arc e autre que i.
+	 */
+	private int otherEnd(int e, int i) {
+		int u = edge(e, EDGE_U);
+		return u == i ? edge(e, EDGE_V) : u;
+	}
+
+	/**
+	 * Ajoute un noeud en dernière position, et retourne son indice. Il
+	 * reprend le dernier identifiant libéré s'il y en a un.
+	 */
+	private int newNode(int x, int y, int color) {
+		int i = nodesNb;
+		nodes = ensureCapacity(nodes, (i + 1L) * NODE_SIZE);
+		int id;
+		if (freeId != NONE) {
+			id = freeId;
+			freeId = -2 - slots.get(id);
+		} else {
+			slots = ensureCapacity(slots, nextId + 1L);
+			id = nextId;
+			nextId++;
+		}
+		setNode(i, NODE_X, x);
+		setNode(i, NODE_Y, y);
+		setNode(i, NODE_COLOR, color);
+		setNode(i, NODE_ID, id);
+		setNode(i, NODE_DEGREE, 0);
+		setNode(i, NODE_HEAD, NONE);
+		setNode(i, NODE_STAMP, nextStamp);
+		slots.put(id, i);
+		nextStamp++;
+		nodesNb++;
+		return i;
+	}
+
+	/**
+	 * Crée l'arc entre i et j en tête de leurs listes d'incidence. Une
+	 * boucle n'est chaînée qu'une fois.
+	 */
+	private void link(int i, int j, int color) {
+		int e;
+		if (freeEdge != NONE) {
+			e = freeEdge;
+			freeEdge = edge(e, EDGE_NEXT_U);
+		} else {
+			edges = ensureCapacity(edges, (edgesEnd + 1L) * EDGE_SIZE);
+			e = edgesEnd;
+			edgesEnd++;
+		}
+		setEdge(e, EDGE_U, i);
+		setEdge(e, EDGE_V, j);
+		setEdge(e, EDGE_COLOR, color);
+		setEdge(e, EDGE_NEXT_U, node(i, NODE_HEAD));
+		setNode(i, NODE_HEAD, e);
+		setNode(i, NODE_DEGREE, node(i, NODE_DEGREE) + 1);
+		if (i != j) {
+			setEdge(e, EDGE_NEXT_V, node(j, NODE_HEAD));
+			setNode(j, NODE_HEAD, e);
+			setNode(j, NODE_DEGREE, node(j, NODE_DEGREE) + 1);
+		} else {
+			setEdge(e, EDGE_NEXT_V, NONE);
+		}
+		edgesNb++;
+	}
+
+	/**
+	 * Retire l'arc e des listes d'incidence de ses extrémités et libère son
+	 * emplacement.
+	 */
+	private void unlink(int e) {
+		int u = edge(e, EDGE_U);
+		int v = edge(e, EDGE_V);
+		detach(e, u);
+		if (u != v) {
+			detach(e, v);
+		}
+		setEdge(e, EDGE_U, NONE);
+		setEdge(e, EDGE_V, NONE);
+		setEdge(e, EDGE_NEXT_U, freeEdge);
+		freeEdge = e;
+		edgesNb--;
+	}
+
+	/**
+	 * Retire l'arc e de la liste d'incidence de i.
+	 */
+	private void detach(int e, int i) {
+		int prev = NONE;
+		int cur = node(i, NODE_HEAD);
+		while (cur != e) {
+			prev = cur;
+			cur = nextEdge(cur, i);
+		}
+		if (prev == NONE) {
+			setNode(i, NODE_HEAD, nextEdge(e, i));
+		} else {
+			setNextEdge(prev, i, nextEdge(e, i));
+		}
+		setNode(i, NODE_DEGREE, node(i, NODE_DEGREE) - 1);
+	}
+
+	/**
+	 * Vide le graphe, en réallouant des tampons de taille initiale. Les
+	 * estampilles continuent de croître.
+	 */
+	private void clear() {
+		nodes = allocate(INITIAL_CAPACITY * NODE_SIZE);
+		slots = allocate(INITIAL_CAPACITY);
+		edges = allocate(INITIAL_CAPACITY * EDGE_SIZE);
+		nodesNb = 0;
+		nextId = 0;
+		freeId = NONE;
+		edgesEnd = 0;
+		edgesNb = 0;
+		freeEdge = NONE;
+	}
+
+	/**
+	 * Remplace le contenu de ce graphe par une copie de g. Les numéros des
+	 * noeuds de g sont conservés.
+	 */
+	private void copy(Graph g) {
+		clear();
+		PositionedNode[] gNodes = g.getNodesView().toArray(
+				new PositionedNode[g.getNodesNb()]);
+		Arrays.sort(gNodes);
+		nodes = ensureCapacity(nodes, (long) gNodes.length * NODE_SIZE);
+		slots = ensureCapacity(slots, gNodes.length);
+		for (PositionedNode n : gNodes) {
+			newNode(n.getX(), n.getY(), n.getColor());
+		}
+		edges = ensureCapacity(edges, (long) g.getVertexesNb() * EDGE_SIZE);
+		for (Edge v : g.getVertexesView()) {
+			PositionedNode[] nTab = v.getNodes();
+			link(Arrays.binarySearch(gNodes, nTab[0]),
+					Arrays.binarySearch(gNodes, nTab[1]), v.getColor());
+		}
+	}
+
+	/**
+	 * Retourne une copie de ce graphe dans le tas, sous la forme d'un
+	 * ListGraph.
+	 */
+	private ListGraph toListGraph() {
+		ListGraph res = new ListGraph();
+		for (int i = 0; i < nodesNb; i++) {
+			res.addNode(node(i, NODE_X), node(i, NODE_Y));
+		}
+		PositionedNode[] byNumber = new PositionedNode[nodesNb];
+		for (PositionedNode n : res.getNodesView()) {
+			byNumber[n.getNumber() - 1] = n;
+		}
+		for (int i = 0; i < nodesNb; i++) {
+			byNumber[i].setColor(node(i, NODE_COLOR));
+		}
+		for (int e = 0; e < edgesEnd; e++) {
+			if (edge(e, EDGE_U) != NONE) {
+				Edge v = new StdEdge(byNumber[edge(e, EDGE_U)],
+									 byNumber[edge(e, EDGE_V)]);
+				v.setColor(edge(e, EDGE_COLOR));
+				res.addVertex(v);
+			}
+		}
+		res.setFile(file);
+		return res;
+	}
+
+	/**
+	 * Les tampons ne sont pas sérialisables : un OffHeapGraph est sérialisé
+	 * sous la forme d'un ListGraph.
+	 */
+	private Object writeReplace() {
+		return toListGraph();
+	}
+
+	private NodeView nodeView(int i) {
+		return new NodeView(node(i, NODE_ID), node(i, NODE_STAMP));
+	}
+
+	private Edge edgeView(int e) {
+		return new EdgeView(nodeView(edge(e, EDGE_U)),
+							nodeView(edge(e, EDGE_V)), e);
+	}
+
+	//CLASSES INTERNES
+
+	/**
+	 * La construction des enregistrements au fil de la lecture d'un
+	 * fichier, dans un graphe vide dont les tampons sont alloués d'emblée à
+	 * la taille de l'en-tête. Ses tampons ne remplacent ceux de ce graphe
+	 * qu'en fin de lecture. Les estampilles y poursuivent celles de ce
+	 * graphe, pour que les vues des noeuds remplacés restent invalides.
+	 */
+	private class Loader implements GraphFile.Sink {
+		private final OffHeapGraph res = new OffHeapGraph();
+
+		@Override
+		public void begin(int nodesNb, int edgesNb) {
+			res.nodes = ensureCapacity(res.nodes, (long) nodesNb * NODE_SIZE);
+			res.slots = ensureCapacity(res.slots, nodesNb);
+			res.edges = ensureCapacity(res.edges, (long) edgesNb * EDGE_SIZE);
+			res.nextStamp = nextStamp;
+		}
+
+		@Override
+		public void node(int x, int y, int color) {
+			res.newNode(x, y, color);
+		}
+
+		@Override
+		public void edge(int i, int j, int color) {
+			res.link(i, j, color);
+		}
+
+		@Override
+		public void end() {
+			nodes = res.nodes;
+			nodesNb = res.nodesNb;
+			slots = res.slots;
+			nextId = res.nextId;
+			freeId = res.freeId;
+			nextStamp = res.nextStamp;
+			edges = res.edges;
+			edgesEnd = res.edgesEnd;
+			edgesNb = res.edgesNb;
+			freeEdge = res.freeEdge;
+		}
+	}
+
+	/**
+	 * Un noeud de ce graphe, désigné par son identifiant et son estampille.
+	 * La vue devient invalide quand le noeud est retiré, même si son
+	 * identifiant est repris par un nouveau noeud.
+	 */
+	private class NodeView extends Observable implements PositionedNode {
+		private final int id;
+		private final int stamp;
+
+		NodeView(int id, int stamp) {
+			this.id = id;
+			this.stamp = stamp;
+		}
+
+		OffHeapGraph owner() {
+			return OffHeapGraph.this;
+		}
+
+		/**
+		 * L'indice courant de ce noeud, ou NONE s'il a été retiré.
+		 */
+		int slot() {
+			int i = id < nextId ? slots.get(id) : NONE;
+			return i >= 0 && node(i, NODE_STAMP) == stamp ? i : NONE;
+		}
+
+		private int checkedSlot() {
+			int i = slot();
+			if (i == NONE) {
+				throw new IllegalStateException();
+			}
+			return i;
+		}
+
+		public String toString() {
+			return "n" + getNumber();
+		}
+
+		@Override
+		public int getColor() {
+			return node(checkedSlot(), NODE_COLOR);
+		}
+
+		@Override
+		public int getX() {
+			return node(checkedSlot(), NODE_X);
+		}
+
+		@Override
+		public int getY() {
+			return node(checkedSlot(), NODE_Y);
+		}
+
+		@Override
+		public int getNumber() {
+			return checkedSlot() + 1;
+		}
+
+		@Override
+		public int getId() {
+			return stamp;
+		}
+
+		@Override
+		public void setColor(int c) {
+			if (!StdPositionedNode.isRightColor(c)) {
+				throw new IllegalArgumentException();
+			}
+			setNode(checkedSlot(), NODE_COLOR, c);
+			isSynchronized = false;
+			setChanged();
+		}
+
+		@Override
+		public void setPosition(int x, int y) {
+			if (x < 0 || y < 0) {
+				throw new IllegalArgumentException();
+			}
+			int i = checkedSlot();
+			setNode(i, NODE_X, x);
+			setNode(i, NODE_Y, y);
+			isSynchronized = false;
+			setChanged();
+		}
+
+		/**
+		 * Le numéro d'un noeud est sa place dans le graphe, que seul le
+		 * graphe modifie.
+		 */
+		@Override
+		public void setNumber(int n) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if ((o != null) && (o.getClass() == this.getClass())) {
+				NodeView obj = (NodeView) o;
+				return this.owner() == obj.owner() && this.id == obj.id
+						&& this.stamp == obj.stamp;
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return stamp;
+		}
+
+		@Override
+		public int compareTo(PositionedNode node) {
+			if (this.getNumber() != node.getNumber()) {
+				return this.getNumber() - node.getNumber();
+			}
+			return this.getId() - node.getId();
+		}
+	}
+
+	/**
+	 * Un arc de ce graphe, désigné par ses extrémités. L'emplacement de
+	 * l'arc est retenu, et revérifié à chaque accès.
+	 */
+	private class EdgeView extends Observable implements Edge {
+		private final NodeView u;
+		private final NodeView v;
+		private int cached;
+
+		EdgeView(NodeView u, NodeView v, int e) {
+			this.u = u;
+			this.v = v;
+			cached = e;
+		}
+
+		private int slot() {
+			int i = u.slot();
+			int j = v.slot();
+			if (i == NONE || j == NONE) {
+				throw new IllegalStateException();
+			}
+			if (cached < edgesEnd
+					&& ((edge(cached, EDGE_U) == i && edge(cached, EDGE_V) == j)
+					|| (edge(cached, EDGE_U) == j
+							&& edge(cached, EDGE_V) == i))) {
+				return cached;
+			}
+			cached = find(i, j);
+			if (cached == NONE) {
+				throw new IllegalStateException();
+			}
+			return cached;
+		}
+
+		public String toString() {
+			return "[" + u + " - " + v + "]";
+		}
+
+		@Override
+		public int getColor() {
+			return edge(slot(), EDGE_COLOR);
+		}
+
+		@Override
+		public PositionedNode[] getNodes() {
+			return new PositionedNode[] {u, v};
+		}
+
+		@Override
+		public boolean containsNode(PositionedNode n) {
+			return u.equals(n) || v.equals(n);
+		}
+
+		@Override
+		public void setColor(int c) {
+			if (c < COLOR_DEFAULT) {
+				throw new IllegalArgumentException();
+			}
+			setEdge(slot(), EDGE_COLOR, c);
+			isSynchronized = false;
+			setChanged();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if ((o != null) && (o.getClass() == this.getClass())) {
+				EdgeView e = (EdgeView) o;
+				return e.owner() == owner()
+						&& ((u.equals(e.u) && v.equals(e.v))
+								|| (u.equals(e.v) && v.equals(e.u)));
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return StdEdge.hash(u.stamp, v.stamp);
+		}
+
+		private OffHeapGraph owner() {
+			return OffHeapGraph.this;
+		}
+	}
+
+	/**
+	 * La vue non modifiable de l'ensemble des noeuds.
+	 */
+	private class NodesView extends AbstractSet<PositionedNode> {
+		@Override
+		public Iterator<PositionedNode> iterator() {
+			return new Iterator<PositionedNode>() {
+				private int i = 0;
+
+				@Override
+				public boolean hasNext() {
+					return i < nodesNb;
+				}
+
+				@Override
+				public PositionedNode next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return nodeView(i++);
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return nodesNb;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof NodeView && ((NodeView) o).owner() == owner()
+					&& ((NodeView) o).slot() != NONE;
+		}
+
+		private OffHeapGraph owner() {
+			return OffHeapGraph.this;
+		}
+	}
+
+	/**
+	 * La vue non modifiable de l'ensemble des arcs, parcourant les
+	 * emplacements occupés. Elle contient tout arc reliant deux noeuds
+	 * adjacents de ce graphe, quelle que soit sa classe.
+	 */
+	private class EdgesView extends AbstractSet<Edge> {
+		@Override
+		public Iterator<Edge> iterator() {
+			return new Iterator<Edge>() {
+				private int e = skipFree(0);
+
+				@Override
+				public boolean hasNext() {
+					return e < edgesEnd;
+				}
+
+				@Override
+				public Edge next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					Edge res = edgeView(e);
+					e = skipFree(e + 1);
+					return res;
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		private int skipFree(int e) {
+			while (e < edgesEnd && edge(e, EDGE_U) == NONE) {
+				e++;
+			}
+			return e;
+		}
+
+		@Override
+		public int size() {
+			return edgesNb;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Edge)) {
+				return false;
+			}
+			PositionedNode[] nTab = ((Edge) o).getNodes();
+			NodesView nodesView = new NodesView();
+			return nodesView.contains(nTab[0]) && nodesView.contains(nTab[1])
+					&& find(slotOf(nTab[0]), slotOf(nTab[1])) != NONE;
+		}
+	}
+}
@@ -1,19 +1,18 @@
 package gatrimi.model;
 
-import java.awt.Color;
 import java.io.Serializable;
 
 /**
- * Classe spcifiant un sommet de graphe repr par une position dans le plan.
- * Toute classe implmentant PositionedNode doit aussi implmenter Cloneable et
- * redfinir la mthode clone() afin de pouvoir cloner un PositionedNode.
+ * Classe spécifiant un sommet de graphe repéré par une position dans le plan.
+ * Toute classe implémentant PositionedNode doit aussi implémenter Cloneable et
+ * redéfinir la méthode clone() afin de pouvoir cloner un PositionedNode.
  * 
  * @inv
  * 		getX() >= 0
  * 		getY() >= 0
  * 		getNumber() > 0
- * 		COLORS.contains(getColor())
- * 		n1.equals(n2) <==> n1.getNumber() == n2.getNumber()
+ * 		getColor() >= COLOR_DEFAULT
+ * 		n1.equals(n2) <==> n1.getId() == n2.getId()
  * 
  * @cons
  * $ARGS$
@@ -28,7 +27,7 @@ import java.io.Serializable;
  * 		getX() == x
  * 		getY() == y
  * 		getNumber == number
- * 		getColor.equals(COLOR_DEFAULT)
+ * 		getColor() == COLOR_DEFAULT
  * 
  * @cons
  * $ARGS$
@@ -39,7 +38,7 @@ import java.io.Serializable;
  * 		getNumber == number
  * 		getX() == X_DEFAULT
  * 		getY() == Y_DEFAULT
- * 		getColor().equals(COLOR_DEFAULT)
+ * 		getColor() == COLOR_DEFAULT
  */
 public interface PositionedNode extends ObservableModel,
 										Comparable<PositionedNode>,
@@ -53,35 +52,27 @@ public interface PositionedNode extends ObservableModel,
 	int X_DEFAULT = 0;
 	
 	/**
-	 * La position par defaut de l'ordone.
+	 * La position par defaut de l'ordonée.
 	 */
 	int Y_DEFAULT = 0;
 	
 	/**
-	 * Le tableau de toutes les couleurs pouvant tre prisent par un sommet.
+	 * La couleur par defaut du sommet, qui n'est pas colorié.
 	 */
-    Color[] COLORS = {
-        Color.BLACK, Color.BLUE, Color.ORANGE, Color.DARK_GRAY,
-        Color.GREEN, Color.LIGHT_GRAY, Color.MAGENTA, Color.CYAN,
-        Color.PINK, Color.RED, Color.WHITE, Color.YELLOW
-    };
-    
-	/**
-	 * La couleur par defaut du sommet.
-	 */
-	Color COLOR_DEFAULT = COLORS[0];
+	int COLOR_DEFAULT = 0;
 	
 	/**
-	 * La premire couleur qui n'est pas celle par dfaut.
+	 * La première couleur qui n'est pas celle par défaut.
 	 */
 	int INDEX_COLOR_INIT = 1;
 	
 	//REQUETES
 	
 	/**
-	 * Retourne la couleur du sommet.
+	 * Retourne la couleur du sommet : c'est le numéro d'une classe de
+	 * couleur, sans limite supérieure, et non une couleur d'affichage.
 	 */
-	Color getColor();
+	int getColor();
 	
 	/**
 	 * Retourne l'abscisse du sommet.
@@ -89,30 +80,36 @@ public interface PositionedNode extends ObservableModel,
 	int getX();
 	
 	/**
-	 * Retourne l'ordone du sommet.
+	 * Retourne l'ordonée du sommet.
 	 */
 	int getY();
 	
 	/**
-	 * Retourne le numero du sommet.
+	 * Retourne le numero du sommet. Ce numéro n'est qu'une étiquette : il peut
+	 * changer lorsque d'autres sommets sont supprimés du graphe.
 	 */
 	int getNumber();
 	
+	/**
+	 * Retourne l'identifiant interne du sommet. Il est unique, ne change
+	 * jamais, et fonde l'égalité entre sommets.
+	 */
+	int getId();
+	
 	//COMMANDES
 	
 	/**
 	 * Donne la couleur c au sommet.
 	 * 
 	 * @pre
-	 * 		c != null
-	 * 		COLORS.contains(c)
+	 * 		c >= COLOR_DEFAULT
 	 * @post
-	 * 		getColor().equals(c)
+	 * 		getColor() == c
 	 */
-	void setColor(Color c);
+	void setColor(int c);
 	
 	/**
-	 * Donne la position x,y au sommet (x pour abscisse et y pour ordone).
+	 * Donne la position x,y au sommet (x pour abscisse et y pour ordonée).
 	 * 
 	 * @pre
 	 * 		x >= 0
@@ -1,6 +1,5 @@
 package gatrimi.model;
 
-import java.awt.Color;
 import java.util.Observable;
 
 public class StdEdge extends Observable implements Edge {
@@ -9,7 +8,7 @@ public class StdEdge extends Observable implements Edge {
 	/**
 	 * La couleur de l'arc.
 	 */
-	private Color color;
+	private int color;
 	
 	/**
 	 * Le tableau des deux PositionedNode en relation par cet arc.
@@ -28,7 +27,7 @@ public class StdEdge extends Observable implements Edge {
 		color = COLOR_DEFAULT;
 	}
 	
-	//REQUTES
+	//REQUÊTES
 	
 	public String toString() {
 		return "[" + getNodes()[0].toString() 
@@ -36,13 +35,13 @@ public class StdEdge extends Observable implements Edge {
 	}
 	
 	@Override
-	public Color getColor() {
+	public int getColor() {
 		return color;
 	}
 
 	@Override
 	public PositionedNode[] getNodes() {
-		//Instanciation d'un nouveau tableau pour protger la variable interne
+		//Instanciation d'un nouveau tableau pour protéger la variable interne
 		PositionedNode[] res = new PositionedNode[2];
 		res[0] = nodes[0];
 		res[1] = nodes[1];
@@ -62,8 +61,7 @@ public class StdEdge extends Observable implements Edge {
 	
 	@Override
 	public int hashCode() {
-		return (nodes[0].hashCode() + nodes[1].hashCode())
-						% Integer.MAX_VALUE;
+		return hash(nodes[0].hashCode(), nodes[1].hashCode());
 	}
 	
 	@Override
@@ -74,8 +72,8 @@ public class StdEdge extends Observable implements Edge {
 	//COMMANDES
 	
 	@Override
-	public void setColor(Color c) {
-		if (c == null || !isValidColor(c)) {
+	public void setColor(int c) {
+		if (!isValidColor(c)) {
 			throw new IllegalArgumentException();
 		}
 		color = c;
@@ -85,17 +83,20 @@ public class StdEdge extends Observable implements Edge {
 	//METHODES OUTILS
 	
 	/**
-	 * Renvoie true si la couleur peut-tre utilise, false sinon.
+	 * Le code de hachage d'un arc dont les extrémités ont pour codes h0 et
+	 * h1. La combinaison est symétrique, l'arc (n1, n2) étant égal à l'arc
+	 * (n2, n1) ; une simple somme donnerait la même valeur à tous les arcs
+	 * dont les codes des extrémités ont la même somme. Les vues d'arcs des
+	 * autres représentations l'emploient aussi.
 	 */
-	private boolean isValidColor(Color c) {
-		if (c == null) {
-			throw new IllegalArgumentException();
-		}
-		for (Color col : COLORS) {
-			if (col.equals(c)) {
-				return true;
-			}
-		}
-		return false;
+	static int hash(int h0, int h1) {
+		return Math.min(h0, h1) * 16777619 ^ Math.max(h0, h1);
+	}
+	
+	/**
+	 * Renvoie true si la couleur peut-être utilisée, false sinon.
+	 */
+	private boolean isValidColor(int c) {
+		return c >= COLOR_DEFAULT;
 	}
 }
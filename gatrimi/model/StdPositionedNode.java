@@ -1,6 +1,7 @@
 package gatrimi.model;
 
-import java.awt.Color;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.Observable;
 
 public class StdPositionedNode extends Observable
@@ -14,25 +15,38 @@ public class StdPositionedNode extends Observable
 	private int x;
 	
 	/**
-	 * L'ordonne du noeud.
+	 * L'ordonnée du noeud.
 	 */
 	private int y;
 	
 	/**
 	 * La couleur de ce sommet.
 	 */
-	private Color color;
+	private int color;
 	
 	/**
-	 * Le numro de ce sommet.
+	 * Le numéro de ce sommet.
 	 */
 	private int number;
 	
+	/**
+	 * L'identifiant interne de ce sommet.
+	 */
+	private final int id;
+	
+	//ATTRIBUTS STATIQUES
+	
+	/**
+	 * Le prochain identifiant à attribuer.
+	 */
+	private static int nextId = 1;
+	
 	//CONSTRUCTEUR
 	public StdPositionedNode(int x, int y, int number) {
 		if (x < 0 || y < 0 || number < 0) {
 			throw new IllegalArgumentException();
 		}
+		id = newId();
 		this.x = x;
 		this.y = y;
 		this.number = number;
@@ -43,6 +57,7 @@ public class StdPositionedNode extends Observable
 		if (number < 0) {
 			throw new IllegalArgumentException();
 		}
+		id = newId();
 		x = X_DEFAULT;
 		y = Y_DEFAULT;
 		this.number = number;
@@ -57,7 +72,7 @@ public class StdPositionedNode extends Observable
 	}
 	
 	@Override
-	public Color getColor() {
+	public int getColor() {
 		return color;
 	}
 
@@ -76,10 +91,15 @@ public class StdPositionedNode extends Observable
 		return number;
 	}
 	
+	@Override
+	public int getId() {
+		return id;
+	}
+	
 	//COMMANDES
 	
 	@Override
-	public void setColor(Color c) {
+	public void setColor(int c) {
 		if (!isRightColor(c)) {
 			throw new IllegalArgumentException();
 		}
@@ -112,30 +132,42 @@ public class StdPositionedNode extends Observable
 	public boolean equals(Object o) {
 		if ((o != null) && (o.getClass() == this.getClass())) {
 			StdPositionedNode obj = (StdPositionedNode) o;
-			return this.number == obj.number;
+			return this.id == obj.id;
 		}
 		return false;
 	}
 	
 	@Override
 	public int hashCode() {
-		return super.hashCode();
+		return id;
 	}
 	
 	public int compareTo(PositionedNode node) {
-		return this.getNumber() - node.getNumber();
+		if (this.getNumber() != node.getNumber()) {
+			return this.getNumber() - node.getNumber();
+		}
+		return this.getId() - node.getId();
 	}
 	
-	static boolean isRightColor(Color c) {
-		if (c == null) {
-			return false;
-		} else {
-			for (Color c2 : COLORS) {
-				if (c.equals(c2)) {
-					return true;
-				}
+	private static synchronized int newId() {
+		return nextId++;
+	}
+	
+	/**
+	 * Un sommet relu depuis un fichier garde son identifiant : on s'assure
+	 * qu'il ne sera pas attribué de nouveau.
+	 */
+	private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		synchronized (StdPositionedNode.class) {
+			if (id >= nextId) {
+				nextId = id + 1;
 			}
 		}
-		return false;
+	}
+	
+	static boolean isRightColor(int c) {
+		return c >= COLOR_DEFAULT;
 	}
 }
@@ -0,0 +1,458 @@
+package gatrimi.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Réduction du nombre de couleurs d'un coloriage des noeuds par recherche
+ * tabou (TabuCol, Hertz et de Werra).
+ * Partant du meilleur coloriage à k + 1 couleurs, on retire la dernière
+ * couleur : ses noeuds prennent la couleur la moins représentée dans leur
+ * voisinage, ce qui crée des conflits. A chaque itération, un noeud en
+ * conflit change alors de couleur, en choisissant le déplacement qui
+ * diminue le plus le nombre de conflits ; le retour d'un noeud à la couleur
+ * qu'il vient de quitter reste interdit (tabou) quelques itérations, sauf
+ * s'il mène à un nombre de conflits jamais atteint. Si les conflits
+ * disparaissent, on a un coloriage à k couleurs, et l'on recommence avec
+ * k - 1 ; sinon la tentative est abandonnée après un nombre d'itérations
+ * sans progrès, et reprise avec d'autres choix aléatoires.
+ * Chaque fil de calcul mène ses propres tentatives, avec sa propre graine ;
+ * le meilleur coloriage est partagé, et une tentative devenue inutile parce
+ * qu'un autre fil a fait mieux est abandonnée. La recherche s'arrête à
+ * l'expiration du délai, ou lorsque le nombre de couleurs ne peut plus
+ * baisser.
+ * Les tableaux de la recherche sont alloués une fois par fil : un
+ * déplacement n'alloue rien.
+ */
+final class TabuCol {
+
+	//ATTRIBUTS
+
+	/**
+	 * La graine du premier fil de calcul ; le fil w utilise SEED + w.
+	 */
+	private static final long SEED = 42L;
+
+	/**
+	 * Le nombre d'itérations entre deux lectures de l'horloge.
+	 */
+	private static final int CLOCK_PERIOD = 1024;
+
+	/**
+	 * Une tentative est abandonnée après max(MIN_STALL, STALL_PER_NODE * n)
+	 * itérations sans diminution du nombre de conflits.
+	 */
+	private static final int MIN_STALL = 10000;
+	private static final int STALL_PER_NODE = 10;
+
+	/**
+	 * La durée tabou d'un déplacement :
+	 * TABU_FACTOR * (noeuds en conflit) + un tirage dans [0, TABU_RANDOM[.
+	 */
+	private static final double TABU_FACTOR = 0.6;
+	private static final int TABU_RANDOM = 10;
+
+	/**
+	 * Les itérations sont numérotées par des int : une tentative s'arrête
+	 * avant de déborder.
+	 */
+	private static final int MAX_ITERATIONS = Integer.MAX_VALUE / 2;
+
+	/**
+	 * Les voisins du noeud i, boucles exclues, sont
+	 * targets[offsets[i]] .. targets[offsets[i + 1] - 1].
+	 */
+	private final int[] offsets;
+	private final int[] targets;
+	private final int nodesNb;
+	private final long deadline;
+	private final int stallLimit;
+
+	/**
+	 * Le nombre de couleurs en deçà duquel aucun coloriage n'existe : 2 dès
+	 * qu'il y a un arc.
+	 */
+	private final int lowerBound;
+
+	/**
+	 * Le meilleur coloriage trouvé, à partir de 0, et son nombre de
+	 * couleurs.
+	 */
+	private int[] best;
+	private volatile int bestNb;
+
+	//CONSTRUCTEURS
+
+	private TabuCol(IntGraph g, long timeBudget) {
+		nodesNb = g.getNodesNb();
+		offsets = new int[nodesNb + 1];
+		int[] row = new int[0];
+		List<int[]> rows = new ArrayList<int[]>(nodesNb);
+		for (int i = 0; i < nodesNb; i++) {
+			if (row.length < g.degree(i)) {
+				row = new int[g.degree(i)];
+			}
+			int k = 0;
+			for (IntIterator it = g.neighbors(i); it.hasNext();) {
+				int j = it.next();
+				if (j != i) {
+					row[k++] = j;
+				}
+			}
+			rows.add(Arrays.copyOf(row, k));
+			offsets[i + 1] = offsets[i] + k;
+		}
+		targets = new int[offsets[nodesNb]];
+		for (int i = 0; i < nodesNb; i++) {
+			System.arraycopy(rows.get(i), 0, targets, offsets[i],
+					offsets[i + 1] - offsets[i]);
+		}
+		lowerBound = targets.length > 0 ? 2 : Math.min(nodesNb, 1);
+		stallLimit = Math.max(MIN_STALL, STALL_PER_NODE * nodesNb);
+		deadline = System.nanoTime() + timeBudget * 1000000L;
+	}
+
+	//OUTILS
+
+	/**
+	 * Réduit, en au plus timeBudget millisecondes sur threads fils de
+	 * calcul, le nombre de couleurs du coloriage start des noeuds de g, ou
+	 * de celui de DSATUR s'il utilise moins de couleurs ou si start n'est
+	 * pas un coloriage valide de g (start peut valoir null).
+	 * Les couleurs du résultat commencent à PositionedNode.INDEX_COLOR_INIT.
+	 */
+	static ColoringResult solve(IntGraph g, int[] start, long timeBudget,
+			int threads) {
+		if (g == null || timeBudget < 0 || threads <= 0) {
+			throw new IllegalArgumentException();
+		}
+		long begin = System.nanoTime();
+		TabuCol t = new TabuCol(g, timeBudget);
+		int[] initial = ColoringStrategies.DSATUR.colorize(g);
+		if (start != null && start.length == t.nodesNb
+				&& ColoringResult.isProper(g, start)
+				&& ColoringResult.countColors(start)
+					< ColoringResult.countColors(initial)) {
+			initial = start.clone();
+		}
+		t.bestNb = compact(initial);
+		t.best = initial;
+		t.run(threads);
+		int[] colors = t.best.clone();
+		for (int i = 0; i < colors.length; i++) {
+			colors[i] += PositionedNode.INDEX_COLOR_INIT;
+		}
+		return new ColoringResult(colors,
+				(System.nanoTime() - begin) / 1000000L);
+	}
+
+	/**
+	 * Renumérote les couleurs de colors de 0 au nombre de couleurs moins
+	 * un, dans l'ordre de leur valeur, et retourne ce nombre.
+	 */
+	private static int compact(int[] colors) {
+		int max = -1;
+		for (int c : colors) {
+			max = Math.max(max, c);
+		}
+		int[] renumbered = new int[max + 1];
+		Arrays.fill(renumbered, -1);
+		for (int c : colors) {
+			renumbered[c] = 0;
+		}
+		int nb = 0;
+		for (int c = 0; c <= max; c++) {
+			if (renumbered[c] == 0) {
+				renumbered[c] = nb++;
+			}
+		}
+		for (int i = 0; i < colors.length; i++) {
+			colors[i] = renumbered[colors[i]];
+		}
+		return nb;
+	}
+
+	private void run(int threads) {
+		if (bestNb <= lowerBound) {
+			return;
+		}
+		if (threads == 1) {
+			new Worker(0).call();
+			return;
+		}
+		List<Worker> tasks = new ArrayList<Worker>(threads);
+		for (int w = 0; w < threads; w++) {
+			tasks.add(new Worker(w));
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			for (Future<Void> f : pool.invokeAll(tasks)) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private boolean expired() {
+		return System.nanoTime() > deadline;
+	}
+
+	/**
+	 * Retient le coloriage sans conflit colors s'il utilise moins de
+	 * couleurs que le meilleur.
+	 */
+	private synchronized void record(int[] colors) {
+		int[] c = colors.clone();
+		int nb = compact(c);
+		if (nb < bestNb) {
+			best = c;
+			bestNb = nb;
+		}
+	}
+
+	/**
+	 * Copie le meilleur coloriage dans colors et retourne son nombre de
+	 * couleurs.
+	 */
+	private synchronized int copyBest(int[] colors) {
+		System.arraycopy(best, 0, colors, 0, nodesNb);
+		return bestNb;
+	}
+
+	//CLASSES INTERNES
+
+	/**
+	 * Les tentatives successives d'un fil de calcul.
+	 */
+	private final class Worker implements Callable<Void> {
+
+		private final Random random;
+
+		/**
+		 * La couleur de chaque noeud.
+		 */
+		private final int[] colors;
+
+		/**
+		 * gamma[v * k + c] : le nombre de voisins de v de couleur c, pour
+		 * la tentative courante à k couleurs.
+		 */
+		private final int[] gamma;
+
+		/**
+		 * tabu[v * k + c] : l'itération jusqu'à laquelle v ne peut pas
+		 * reprendre la couleur c.
+		 */
+		private final int[] tabu;
+
+		/**
+		 * Les noeuds en conflit, dans les conflictingNb premières cases, et la
+		 * place de chaque noeud dans ce tableau (-1 s'il n'y est pas).
+		 */
+		private final int[] conflicting;
+		private final int[] positions;
+		private int conflictingNb;
+
+		/**
+		 * Le nombre d'arcs dont les extrémités ont la même couleur.
+		 */
+		private int conflicts;
+
+		Worker(int w) {
+			random = new Random(SEED + w);
+			colors = new int[nodesNb];
+			int size = nodesNb * Math.max(bestNb - 1, 0);
+			gamma = new int[size];
+			tabu = new int[size];
+			conflicting = new int[nodesNb];
+			positions = new int[nodesNb];
+		}
+
+		@Override
+		public Void call() {
+			while (!expired() && bestNb > lowerBound) {
+				int k = copyBest(colors) - 1;
+				if (k < lowerBound) {
+					break;
+				}
+				removeColor(k);
+				if (search(k)) {
+					record(colors);
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Donne aux noeuds de couleur k, un à un, la couleur de [0, k[ la
+		 * moins représentée dans leur voisinage, au hasard parmi les
+		 * ex aequo. gamma sert de compteur, et sera réinitialisé.
+		 */
+		private void removeColor(int k) {
+			for (int v = 0; v < nodesNb; v++) {
+				if (colors[v] != k) {
+					continue;
+				}
+				Arrays.fill(gamma, 0, k, 0);
+				for (int p = offsets[v]; p < offsets[v + 1]; p++) {
+					int c = colors[targets[p]];
+					if (c < k) {
+						gamma[c]++;
+					}
+				}
+				int chosen = 0;
+				int ties = 1;
+				for (int c = 1; c < k; c++) {
+					if (gamma[c] < gamma[chosen]) {
+						chosen = c;
+						ties = 1;
+					} else if (gamma[c] == gamma[chosen]
+							&& random.nextInt(++ties) == 0) {
+						chosen = c;
+					}
+				}
+				colors[v] = chosen;
+			}
+		}
+
+		/**
+		 * Cherche à éliminer les conflits du coloriage à k couleurs.
+		 * Retourne true en cas de succès, false si la tentative est
+		 * abandonnée.
+		 */
+		private boolean search(int k) {
+			int size = nodesNb * k;
+			Arrays.fill(gamma, 0, size, 0);
+			Arrays.fill(tabu, 0, size, 0);
+			Arrays.fill(positions, -1);
+			conflictingNb = 0;
+			conflicts = 0;
+			for (int v = 0; v < nodesNb; v++) {
+				for (int p = offsets[v]; p < offsets[v + 1]; p++) {
+					gamma[v * k + colors[targets[p]]]++;
+				}
+			}
+			for (int v = 0; v < nodesNb; v++) {
+				int own = gamma[v * k + colors[v]];
+				if (own > 0) {
+					conflicts += own;
+					addConflicting(v);
+				}
+			}
+			conflicts /= 2;
+
+			int bestConflicts = conflicts;
+			int lastProgress = 0;
+			for (int iter = 1; conflicts > 0; iter++) {
+				if (iter - lastProgress > stallLimit
+						|| iter >= MAX_ITERATIONS) {
+					return false;
+				}
+				if (iter % CLOCK_PERIOD == 0
+						&& (expired() || bestNb <= k)) {
+					return false;
+				}
+
+				//Le meilleur déplacement permis, au hasard parmi les ex aequo
+				int moveNode = -1;
+				int moveColor = -1;
+				int moveDelta = Integer.MAX_VALUE;
+				int ties = 0;
+				for (int q = 0; q < conflictingNb; q++) {
+					int v = conflicting[q];
+					int base = v * k;
+					int own = gamma[base + colors[v]];
+					for (int c = 0; c < k; c++) {
+						if (c == colors[v]) {
+							continue;
+						}
+						int delta = gamma[base + c] - own;
+						if (tabu[base + c] >= iter
+								&& conflicts + delta >= bestConflicts) {
+							continue;
+						}
+						if (delta < moveDelta) {
+							moveNode = v;
+							moveColor = c;
+							moveDelta = delta;
+							ties = 1;
+						} else if (delta == moveDelta
+								&& random.nextInt(++ties) == 0) {
+							moveNode = v;
+							moveColor = c;
+						}
+					}
+				}
+				if (moveNode < 0) {
+					//Tous les déplacements sont tabous : un au hasard
+					moveNode = conflicting[random.nextInt(conflictingNb)];
+					moveColor = random.nextInt(k - 1);
+					if (moveColor >= colors[moveNode]) {
+						moveColor++;
+					}
+					moveDelta = gamma[moveNode * k + moveColor]
+							- gamma[moveNode * k + colors[moveNode]];
+				}
+
+				int previous = colors[moveNode];
+				move(moveNode, moveColor, k);
+				conflicts += moveDelta;
+				tabu[moveNode * k + previous] = iter
+						+ (int) (TABU_FACTOR * conflictingNb)
+						+ random.nextInt(TABU_RANDOM);
+				if (conflicts < bestConflicts) {
+					bestConflicts = conflicts;
+					lastProgress = iter;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Donne au noeud v la couleur c, en tenant à jour gamma et les
+		 * noeuds en conflit.
+		 */
+		private void move(int v, int c, int k) {
+			int previous = colors[v];
+			colors[v] = c;
+			for (int p = offsets[v]; p < offsets[v + 1]; p++) {
+				int u = targets[p];
+				int base = u * k;
+				gamma[base + previous]--;
+				gamma[base + c]++;
+				updateConflicting(u, k);
+			}
+			updateConflicting(v, k);
+		}
+
+		private void updateConflicting(int v, int k) {
+			boolean inConflict = gamma[v * k + colors[v]] > 0;
+			if (inConflict && positions[v] < 0) {
+				addConflicting(v);
+			} else if (!inConflict && positions[v] >= 0) {
+				int last = conflicting[--conflictingNb];
+				conflicting[positions[v]] = last;
+				positions[last] = positions[v];
+				positions[v] = -1;
+			}
+		}
+
+		private void addConflicting(int v) {
+			positions[v] = conflictingNb;
+			conflicting[conflictingNb++] = v;
+		}
+	}
+}
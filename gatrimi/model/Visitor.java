@@ -0,0 +1,17 @@
+package gatrimi.model;
+
+/**
+ * Un traitement appliqué tour à tour aux éléments d'un graphe lors d'un
+ * parcours qui ne copie pas les ensembles internes du graphe.
+ * Le graphe parcouru ne doit pas être modifié structurellement (ajout ou
+ * suppression de noeuds ou d'arcs) pendant le parcours.
+ */
+public interface Visitor<T> {
+	
+	//COMMANDES
+	
+	/**
+	 * Traite l'élément e.
+	 */
+	void visit(T e);
+}